@@ -0,0 +1,176 @@
+package in.teramatrix.googleservices.service;
+
+import android.os.Debug;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import in.teramatrix.googleservices.model.Distance;
+import in.teramatrix.googleservices.model.DistanceMatrix;
+
+/**
+ * Compares the streaming parser of {@link DistanceCalculator} with the org.json tree parsing it replaced, on generated responses of
+ * 25x25 and 100x100 elements. Both parsers must agree, time and allocated bytes per parse are logged under the tag of this class.
+ * Run it on a device with {@code gradlew connectedAndroidTest}, numbers of an emulator are not representative.
+ */
+@SuppressWarnings("deprecation")
+public class DistanceMatrixParsingBenchmark extends AndroidTestCase {
+
+    private static final String TAG = "DistanceMatrixParsing";
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    public void testParse25x25() throws Exception {
+        compare(25);
+    }
+
+    public void testParse100x100() throws Exception {
+        compare(100);
+    }
+
+    private void compare(final int size) throws Exception {
+        final String json = getFixture(size);
+
+        //Both the parsers must read the same values
+        DistanceMatrix matrix = streaming(json, size);
+        ArrayList<Distance> distances = tree(json);
+        assertEquals(size * size, distances.size());
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                Distance distance = distances.get(i * size + j);
+                int meters = matrix.getDistance(i, j);
+                assertEquals(meters == DistanceMatrix.UNAVAILABLE ? 0 : meters, (int) distance.getDistanceValue());
+                assertEquals(distance.getOrigin(), matrix.getOrigin(i));
+                assertEquals(distance.getDestination(), matrix.getDestination(j));
+            }
+        }
+
+        Measurement stream = measure(new Parse() {
+            @Override
+            public void run() throws Exception {
+                streaming(json, size);
+            }
+        });
+        Measurement tree = measure(new Parse() {
+            @Override
+            public void run() throws Exception {
+                tree(json);
+            }
+        });
+        Log.i(TAG, size + "x" + size + " (" + json.length() / 1024 + " KB): JsonReader " + stream + ", org.json " + tree);
+    }
+
+    private static DistanceMatrix streaming(String json, int size) throws Exception {
+        DistanceMatrix matrix = new DistanceMatrix(size, size, true);
+        DistanceCalculator.parse(new StringReader(json), matrix);
+        return matrix;
+    }
+
+    /**
+     * Parsing as it was done before the streaming parser
+     */
+    private static ArrayList<Distance> tree(String json) throws Exception {
+        ArrayList<Distance> distances = new ArrayList<>();
+        JSONObject object = new JSONObject(json);
+        if (object.getString("status").equals("OK")) {
+            JSONArray destAddresses = object.getJSONArray("destination_addresses");
+            JSONArray orgAddresses = object.getJSONArray("origin_addresses");
+            JSONArray rows = object.getJSONArray("rows");
+            for (int i = 0; i < rows.length(); i++) {
+                JSONArray elements = rows.getJSONObject(i).getJSONArray("elements");
+                for (int j = 0; j < elements.length(); j++) {
+                    JSONObject element = elements.getJSONObject(j);
+                    Distance distance = new Distance();
+                    distance.setOrigin(orgAddresses.getString(i));
+                    distance.setDestination(destAddresses.getString(j));
+                    if (element.getString("status").equals("OK")) {
+                        distance.setDistanceText(element.getJSONObject("distance").getString("text"));
+                        distance.setDistanceValue(element.getJSONObject("distance").getInt("value"));
+                        distance.setDurationText(element.getJSONObject("duration").getString("text"));
+                        distance.setDurationValue(element.getJSONObject("duration").getInt("value"));
+                    } else {
+                        distance.setDistanceText("");
+                        distance.setDistanceValue(0);
+                        distance.setDurationText("");
+                        distance.setDurationValue(0);
+                    }
+                    distances.add(distance);
+                }
+            }
+        }
+        return distances;
+    }
+
+    private static Measurement measure(Parse parse) throws Exception {
+        for (int i = 0; i < WARMUP; i++)
+            parse.run();
+
+        Runtime.getRuntime().gc();
+        Debug.resetThreadAllocSize();
+        Debug.startAllocCounting();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            parse.run();
+        long elapsed = System.nanoTime() - start;
+        Debug.stopAllocCounting();
+        return new Measurement(elapsed / ITERATIONS, Debug.getThreadAllocSize() / ITERATIONS);
+    }
+
+    /**
+     * @return a Distance Matrix response of size x size elements, every 7th element has no route
+     */
+    private static String getFixture(int size) {
+        StringBuilder json = new StringBuilder(size * size * 160);
+        json.append("{\n   \"destination_addresses\" : [");
+        for (int j = 0; j < size; j++)
+            json.append(j > 0 ? ", " : " ").append("\"Destination ").append(j).append(", Jaipur, Rajasthan, India\"");
+        json.append(" ],\n   \"origin_addresses\" : [");
+        for (int i = 0; i < size; i++)
+            json.append(i > 0 ? ", " : " ").append("\"Origin ").append(i).append(", Jaipur, Rajasthan, India\"");
+        json.append(" ],\n   \"rows\" : [");
+        for (int i = 0; i < size; i++) {
+            json.append(i > 0 ? "," : "").append("\n      {\n         \"elements\" : [");
+            for (int j = 0; j < size; j++) {
+                json.append(j > 0 ? "," : "");
+                if ((i * size + j) % 7 == 3) {
+                    json.append("\n            {\n               \"status\" : \"ZERO_RESULTS\"\n            }");
+                    continue;
+                }
+                int meters = 500 + 37 * i + 53 * j;
+                int seconds = 60 + 5 * i + 7 * j;
+                json.append("\n            {\n               \"distance\" : {\n                  \"text\" : \"")
+                        .append(meters / 1000).append('.').append(meters / 100 % 10).append(" km\",\n                  \"value\" : ")
+                        .append(meters).append("\n               },\n               \"duration\" : {\n                  \"text\" : \"")
+                        .append(seconds / 60).append(" mins\",\n                  \"value\" : ").append(seconds)
+                        .append("\n               },\n               \"status\" : \"OK\"\n            }");
+            }
+            json.append("\n         ]\n      }");
+        }
+        json.append("\n   ],\n   \"status\" : \"OK\"\n}\n");
+        return json.toString();
+    }
+
+    private interface Parse {
+        void run() throws Exception;
+    }
+
+    private static class Measurement {
+        private final long nanos;
+        private final long bytes;
+
+        private Measurement(long nanos, long bytes) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String toString() {
+            return nanos / 1000 + " us and " + bytes / 1024 + " KB per parse";
+        }
+    }
+}
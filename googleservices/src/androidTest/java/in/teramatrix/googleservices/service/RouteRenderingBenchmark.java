@@ -0,0 +1,176 @@
+package in.teramatrix.googleservices.service;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+import android.view.Choreographer;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.PolylineOptions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import in.teramatrix.googleservices.model.Path;
+import in.teramatrix.googleservices.util.PolylineCodec;
+import in.teramatrix.googleservices.util.PolylineSimplifier;
+
+/**
+ * Frame times of the main thread while the geometry of a 20k vertex route is built, once on the main thread as RouteDesigner did
+ * before and once on a background thread as it does now, where only the hand over of the built options is left on the main thread.
+ * Geometry is the work of {@link RouteDesigner#doInBackground(LatLng...)} without simplification, the worst case: decoding, a
+ * {@link LatLng} per vertex and both the layers of {@link PolylineOptions}. Frame intervals are recorded with {@link Choreographer}
+ * and logged under the tag of this class; addPolyline itself needs a map and is the same in both the cases, so it is not measured.
+ * Run it on a device with {@code gradlew connectedAndroidTest}, numbers of an emulator are not representative.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+public class RouteRenderingBenchmark extends InstrumentationTestCase {
+
+    private static final String TAG = "RouteRendering";
+    private static final int VERTICES = 20000;
+    private static final int ROUNDS = 5;
+
+    public void testFrameTimes() throws Exception {
+        //Choreographer is available from Jelly Bean
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN)
+            return;
+
+        String encoded = getFixture();
+        //Warming up both the paths
+        build(encoded);
+        build(encoded);
+
+        FrameRecorder main = measure(encoded, true);
+        FrameRecorder background = measure(encoded, false);
+        Log.i(TAG, VERTICES + " vertices, geometry on main thread: " + main);
+        Log.i(TAG, VERTICES + " vertices, geometry in background: " + background);
+        assertTrue(main.count() > 0 && background.count() > 0);
+    }
+
+    private FrameRecorder measure(final String encoded, boolean onMainThread) throws Exception {
+        final FrameRecorder recorder = new FrameRecorder();
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                recorder.start();
+            }
+        });
+        Thread.sleep(300);
+
+        for (int i = 0; i < ROUNDS; i++) {
+            if (onMainThread) {
+                getInstrumentation().runOnMainSync(new Runnable() {
+                    @Override
+                    public void run() {
+                        build(encoded);
+                    }
+                });
+            } else {
+                //Instrumentation thread is not the main thread, it plays doInBackground()
+                final PolylineOptions layers[] = build(encoded);
+                getInstrumentation().runOnMainSync(new Runnable() {
+                    @Override
+                    public void run() {
+                        recorder.consume(layers);
+                    }
+                });
+            }
+            Thread.sleep(300);
+        }
+
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                recorder.stop();
+            }
+        });
+        return recorder;
+    }
+
+    /**
+     * Geometry of the route as it is built by RouteDesigner when simplification is off
+     */
+    private static PolylineOptions[] build(String encoded) {
+        Path path = new Path(encoded.length() / 4);
+        PolylineCodec.decode(encoded, path);
+        List<LatLng> list = PolylineSimplifier.simplify(path, 0, new Path(path.size())).toLatLngs();
+        PolylineOptions base = new PolylineOptions().width(10).geodesic(true).addAll(list);
+        PolylineOptions upper = new PolylineOptions().width(5).geodesic(true).addAll(list);
+        return new PolylineOptions[]{base, upper};
+    }
+
+    /**
+     * @return encoded polyline of a route of street sized steps
+     */
+    private static String getFixture() {
+        Random random = new Random(42);
+        Path route = new Path(VERTICES);
+        double lat = 26.9, lng = 75.8;
+        for (int i = 0; i < VERTICES; i++) {
+            lat += 0.0003 * random.nextGaussian();
+            lng += 0.0003 * random.nextGaussian();
+            route.add((int) Math.round(lat * Path.E5), (int) Math.round(lng * Path.E5));
+        }
+        return PolylineCodec.encode(route);
+    }
+
+    /**
+     * Records the intervals between frames of the main thread, it is used on the main thread only
+     */
+    private static class FrameRecorder implements Choreographer.FrameCallback {
+        private long intervals[] = new long[1024];
+        private int count;
+        private long last;
+        private boolean running;
+        private int vertices;
+
+        void start() {
+            running = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void stop() {
+            running = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        /**
+         * What is left on the main thread when geometry is built in background
+         */
+        void consume(PolylineOptions layers[]) {
+            vertices += layers[0].getPoints().size() + layers[1].getPoints().size();
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (last != 0) {
+                if (count == intervals.length) intervals = Arrays.copyOf(intervals, count * 2);
+                intervals[count++] = frameTimeNanos - last;
+            }
+            last = frameTimeNanos;
+            if (running) Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        int count() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            long sorted[] = Arrays.copyOf(intervals, count);
+            Arrays.sort(sorted);
+            long median = sorted[count / 2];
+            int janky = 0;
+            for (long interval : sorted)
+                if (interval > median * 3 / 2) janky++;
+            return count + " frames, median " + millis(median) + " ms, 99th " + millis(sorted[count * 99 / 100])
+                    + " ms, worst " + millis(sorted[count - 1]) + " ms, " + janky + " longer than 1.5x median";
+        }
+
+        private static String millis(long nanos) {
+            return String.valueOf(Math.round(nanos / 100000.0) / 10.0);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package in.teramatrix.googleservices;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Settings of the thread pool on which all the services of this module are executed. By default {@link android.os.AsyncTask} runs
+ * every task on one global serial executor, so one slow Directions call stalls every geocode behind it. Here requests run in parallel
+ * on a bounded pool, each service having its own concurrency limit and queue. It is easy to use class having Builder Pattern,
+ * pass it to {@link GoogleServices#setExecutorSettings(ExecutorSettings)} before calling any service.
+ */
+@SuppressWarnings("unused")
+public class ExecutorSettings {
+
+    /**
+     * Number of threads in the pool which is shared by all the services.
+     */
+    private int poolSize;
+
+    /**
+     * Time in milliseconds for which an idle thread is kept alive before it is terminated.
+     */
+    private long keepAliveTime;
+
+    /**
+     * Maximum number of requests of a single service that may wait for a free slot. Further requests will be rejected.
+     */
+    private int queueSize;
+
+    /**
+     * Maximum number of requests of a single service which may run at the same time. A service that is not
+     * listed here can use every thread of the pool but one, so that the other services always have a thread left.
+     */
+    private final Map<Class<?>, Integer> limits;
+
+    public ExecutorSettings() {
+        //Default Settings
+        this.poolSize = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors() * 2, 8));
+        this.keepAliveTime = 1000 * 30;
+        this.queueSize = 128;
+        this.limits = new HashMap<>();
+    }
+
+    public ExecutorSettings setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    public ExecutorSettings setKeepAliveTime(long keepAliveTime) {
+        this.keepAliveTime = keepAliveTime;
+        return this;
+    }
+
+    public ExecutorSettings setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    /**
+     * Method will restrict number of requests of a service which may run at the same time.
+     * @param service class of the service for example {@code RouteDesigner.class}
+     * @param limit maximum number of parallel requests of this service
+     * @return this instance
+     */
+    public ExecutorSettings setLimit(Class<?> service, int limit) {
+        this.limits.put(service, limit);
+        return this;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @param service class of the service
+     * @return concurrency limit of this service, never more than the pool size; one less than the pool size if it has not been set
+     */
+    public int getLimit(Class<?> service) {
+        Integer limit = limits.get(service);
+        return (limit == null) ? Math.max(1, poolSize - 1) : Math.min(limit, poolSize);
+    }
+
+    /**
+     * It is just like build method of Builder Pattern. It will construct the thread pool shared by all the services. Its own queue is
+     * not bounded because the number of waiting requests is already bounded per service.
+     * @return a new thread pool
+     */
+    public Executor build() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, keepAliveTime, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "GoogleServices #" + count.getAndIncrement());
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
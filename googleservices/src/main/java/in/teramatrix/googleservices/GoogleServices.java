@@ -13,16 +13,30 @@ import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.Polyline;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
+import in.teramatrix.googleservices.cache.DistanceMatrixCache;
+import in.teramatrix.googleservices.cache.GeocodingCache;
+import in.teramatrix.googleservices.cache.PersistentCache;
+import in.teramatrix.googleservices.cache.ReverseGeocodingCache;
+import in.teramatrix.googleservices.cache.RouteCache;
 import in.teramatrix.googleservices.model.Address;
 import in.teramatrix.googleservices.model.Distance;
+import in.teramatrix.googleservices.model.DistanceMatrix;
 import in.teramatrix.googleservices.model.Place;
 import in.teramatrix.googleservices.service.DistanceCalculator;
 import in.teramatrix.googleservices.service.Geocoder;
+import in.teramatrix.googleservices.service.NearestFinder;
 import in.teramatrix.googleservices.service.PlacesExplorer;
 import in.teramatrix.googleservices.service.ReverseGeocoder;
 import in.teramatrix.googleservices.service.RouteDesigner;
+import in.teramatrix.googleservices.util.CameraChangeDispatcher;
+import in.teramatrix.googleservices.util.LimitedExecutor;
+import okhttp3.OkHttpClient;
 
 /**
  * Main Class of the module that will be capable to call all the services from one place. Even Those services can be also called individually,
@@ -42,6 +56,58 @@ public class GoogleServices {
      */
     private Context context;
 
+    /**
+     * A single {@link OkHttpClient} shared by all the services of this module, so that every call reuses the same connection pool
+     * and dispatcher. It will be created lazily using default {@link HttpSettings} if not configured by the caller.
+     */
+    private static OkHttpClient httpClient;
+
+    /**
+     * Settings of the thread pool on which all the services are executed. Defaults will be used if not configured by the caller.
+     */
+    private static ExecutorSettings executorSettings;
+
+    /**
+     * Thread pool shared by all the services. It is either supplied by the caller or built from {@link ExecutorSettings}.
+     */
+    private static Executor executor;
+
+    /**
+     * Every service is executed through its own {@link LimitedExecutor} over the shared pool, so that one service can not
+     * occupy all the threads, unless it has been allowed to by {@link ExecutorSettings#setLimit(Class, int)}.
+     */
+    private static final Map<Class<?>, LimitedExecutor> serviceExecutors = new HashMap<>();
+
+    /**
+     * Optional in-memory cache of geocoded addresses. {@link Geocoder} will always call the server if it is null.
+     */
+    private static GeocodingCache geocodingCache;
+
+    /**
+     * Optional in-memory cache of reverse geocoded addresses by spatial cell. {@link ReverseGeocoder} will always call the server if it is null.
+     */
+    private static ReverseGeocodingCache reverseGeocodingCache;
+
+    /**
+     * Optional in-memory cache of routes. {@link RouteDesigner} will always call the server if it is null.
+     */
+    private static RouteCache routeCache;
+
+    /**
+     * Optional in-memory cache of origin destination pairs. {@link DistanceCalculator} will always request every pair if it is null.
+     */
+    private static DistanceMatrixCache distanceMatrixCache;
+
+    /**
+     * Optional on-disk cache beneath the in-memory caches, so that results survive app restarts.
+     */
+    private static PersistentCache persistentCache;
+
+    /**
+     * Camera change listener of each map on which routes are drawn, maps which are no longer used are dropped
+     */
+    private static final Map<GoogleMap, CameraChangeDispatcher> cameraChangeDispatchers = new WeakHashMap<>();
+
     /**
      * A default parameterize constructor to initialize {@link Context} instance.
      * @param context to initialize {@link GoogleMap} and to draw {@link Polyline}
@@ -72,7 +138,7 @@ public class GoogleServices {
      * @throws InterruptedException
      */
     public Address getAddress(LatLng latLng) throws ExecutionException, InterruptedException {
-        return new ReverseGeocoder().execute(latLng).get();
+        return new ReverseGeocoder().executeOnExecutor(getExecutor(ReverseGeocoder.class), latLng).get();
     }
 
     /**
@@ -83,7 +149,7 @@ public class GoogleServices {
      * @throws InterruptedException
      */
     public LatLng getLatLng(String address) throws ExecutionException, InterruptedException {
-        return new Geocoder().execute(address).get();
+        return new Geocoder().executeOnExecutor(getExecutor(Geocoder.class), address).get();
     }
 
     /**
@@ -95,7 +161,7 @@ public class GoogleServices {
     public void executeGeocoder(String address, Geocoder.GeocodingListener listener) {
         Geocoder geocoder = new Geocoder();
         geocoder.setResponseListener(listener);
-        geocoder.execute(address);
+        geocoder.executeOnExecutor(getExecutor(Geocoder.class), address);
     }
 
     /**
@@ -107,7 +173,7 @@ public class GoogleServices {
     public void executeReverseGeocoder(LatLng latLng, ReverseGeocoder.ReverseGeocodingListener listener) {
         ReverseGeocoder reverseGeocoder = new ReverseGeocoder();
         reverseGeocoder.setResponseListener(listener);
-        reverseGeocoder.execute(latLng);
+        reverseGeocoder.executeOnExecutor(getExecutor(ReverseGeocoder.class), latLng);
     }
 
     /**
@@ -128,7 +194,7 @@ public class GoogleServices {
         return new PlacesExplorer()
                 .setKey(key)
                 .setLocation(location)
-                .execute(places).get();
+                .executeOnExecutor(getExecutor(PlacesExplorer.class), places).get();
     }
 
     /**
@@ -165,7 +231,7 @@ public class GoogleServices {
                 .setContext(context)
                 .setOrigin(origin)
                 .setDestination(destination)
-                .execute(waypoints)
+                .executeOnExecutor(getExecutor(RouteDesigner.class), waypoints)
                 .get();
     }
 
@@ -204,7 +270,7 @@ public class GoogleServices {
     public ArrayList<Distance> getDistances(String origin, String ... destinations) throws ExecutionException, InterruptedException {
         return new DistanceCalculator()
                 .setOrigins(origin)
-                .execute(destinations)
+                .executeOnExecutor(getExecutor(DistanceCalculator.class), destinations)
                 .get();
     }
 
@@ -225,6 +291,413 @@ public class GoogleServices {
         calculator.calculate(destinations);
     }
 
+    /**
+     * Reverse Geo Coding in <b>asynchronous</b> manner, but instead of a listener it returns a {@link ServiceFuture} so that the result
+     * can be composed with other requests using {@link ServiceFuture#allOf(ServiceFuture[])} or {@link ServiceFuture#combine(ServiceFuture, ServiceFuture.Combiner)}.
+     * @param latLng to be reverse geo coded
+     * @return future of the address
+     */
+    public ServiceFuture<Address> getAddressAsync(LatLng latLng) {
+        final ServiceFuture<Address> future = new ServiceFuture<>();
+        ReverseGeocoder reverseGeocoder = new ReverseGeocoder();
+        reverseGeocoder.setResponseListener(new ReverseGeocoder.ReverseGeocodingListener() {
+            @Override
+            public void onRequestCompleted(String json, Address address) {
+                future.complete(address);
+            }
+
+            @Override
+            public void onRequestFailure(Exception e) {
+                future.fail(e);
+            }
+        });
+        future.setTask(reverseGeocoder);
+        reverseGeocoder.executeOnExecutor(getExecutor(ReverseGeocoder.class), latLng);
+        return future;
+    }
+
+    /**
+     * Geo Coding in <b>asynchronous</b> manner, but instead of a listener it returns a {@link ServiceFuture} so that the result
+     * can be composed with other requests.
+     * @param address to be geo coded
+     * @return future of the {@link LatLng}
+     */
+    public ServiceFuture<LatLng> getLatLngAsync(String address) {
+        final ServiceFuture<LatLng> future = new ServiceFuture<>();
+        Geocoder geocoder = new Geocoder();
+        geocoder.setResponseListener(new Geocoder.GeocodingListener() {
+            @Override
+            public void onRequestCompleted(String json, LatLng latLng) {
+                future.complete(latLng);
+            }
+
+            @Override
+            public void onRequestFailure(Exception e) {
+                future.fail(e);
+            }
+        });
+        future.setTask(geocoder);
+        geocoder.executeOnExecutor(getExecutor(Geocoder.class), address);
+        return future;
+    }
+
+    /**
+     * To call Google's Places API <b>asynchronously</b> returning a {@link ServiceFuture} instead of taking a listener.
+     * @param key Your application's API key.
+     * @param location The latitude/longitude around which to retrieve place information.
+     * @param places Restricts the results to places matching at least one of the specified types. like "hotel", "bar", "restaurant"
+     * @return future of an {@link ArrayList} of type {@link Place}
+     */
+    public ServiceFuture<ArrayList<Place>> getPlacesAsync(String key, LatLng location, String ... places) {
+        final ServiceFuture<ArrayList<Place>> future = new ServiceFuture<>();
+        PlacesExplorer explorer = new PlacesExplorer()
+                .setKey(key)
+                .setLocation(location)
+                .setResponseListener(new PlacesExplorer.PlaceExplorerListener() {
+                    @Override
+                    public void onRequestCompleted(String json, ArrayList<Place> places) {
+                        future.complete(places);
+                    }
+
+                    @Override
+                    public void onRequestFailure(Exception e) {
+                        future.fail(e);
+                    }
+                });
+        future.setTask(explorer);
+        explorer.explore(places);
+        return future;
+    }
+
+    /**
+     * Google's Direction Api <b>asynchronously</b> returning a {@link ServiceFuture} instead of taking a listener.
+     * @param map route will be drawn right here on this instance of GoogleMap.
+     * @param origin Starting point from where route will be drawn on the map.
+     * @param destination End point till where route will be drawn on the map.
+     * @param waypoints Specifies an array of waypoints. Waypoints alter a route by routing it through the specified location(s).
+     * @return future of the {@link Polyline} drawn on the map
+     */
+    public ServiceFuture<Polyline[]> addPolylineAsync(GoogleMap map, LatLng origin, LatLng destination, LatLng ... waypoints) {
+        final ServiceFuture<Polyline[]> future = new ServiceFuture<>();
+        RouteDesigner designer = new RouteDesigner()
+                .setMap(map)
+                .setContext(context)
+                .setOrigin(origin)
+                .setDestination(destination)
+                .setResponseListener(new RouteDesigner.DesignerListener() {
+                    @Override
+                    public void onRequestCompleted(String json, Polyline[] polylines) {
+                        future.complete(polylines);
+                    }
+
+                    @Override
+                    public void onRequestFailure(Exception e) {
+                        future.fail(e);
+                    }
+                });
+        future.setTask(designer);
+        designer.design(waypoints);
+        return future;
+    }
+
+    /**
+     * Google's Distance Matrix API <b>asynchronously</b> returning a {@link ServiceFuture} instead of taking a listener.
+     * @param origin the starting point for calculating travel distance and time.
+     * @param destinations One or more locations to use as the finishing point for calculating travel distance and time.
+     * @return future of an {@link ArrayList} of {@link Distance}
+     */
+    public ServiceFuture<ArrayList<Distance>> getDistancesAsync(String origin, String ... destinations) {
+        final ServiceFuture<ArrayList<Distance>> future = new ServiceFuture<>();
+        DistanceCalculator calculator = new DistanceCalculator()
+                .setOrigins(origin)
+                .setResponseListener(new DistanceCalculator.DistanceListener() {
+                    @Override
+                    public void onRequestCompleted(String json, ArrayList<Distance> distances) {
+                        future.complete(distances);
+                    }
+
+                    @Override
+                    public void onRequestFailure(Exception e) {
+                        future.fail(e);
+                    }
+                });
+        future.setTask(calculator);
+        calculator.calculate(destinations);
+        return future;
+    }
+
+    /**
+     * Google's Distance Matrix API <b>asynchronously</b> returning the compact {@link DistanceMatrix}. Use it for large matrices,
+     * no {@link Distance} object will be created.
+     * @param origins the starting points for calculating travel distance and time, these are rows of the matrix.
+     * @param destinations the finishing points for calculating travel distance and time, these are columns of the matrix.
+     * @return future of a {@link DistanceMatrix}
+     */
+    public ServiceFuture<DistanceMatrix> getDistanceMatrixAsync(String origins[], String ... destinations) {
+        final ServiceFuture<DistanceMatrix> future = new ServiceFuture<>();
+        DistanceCalculator calculator = new DistanceCalculator()
+                .setOrigins(origins)
+                .setMatrixListener(new DistanceCalculator.MatrixListener() {
+                    @Override
+                    public void onRequestCompleted(String json, DistanceMatrix matrix) {
+                        future.complete(matrix);
+                    }
+
+                    @Override
+                    public void onRequestFailure(Exception e) {
+                        future.fail(e);
+                    }
+                });
+        future.setTask(calculator);
+        calculator.calculate(destinations);
+        return future;
+    }
+
+    /**
+     * Same as {@link #getDistanceMatrixAsync(String[], String...)} but with coordinates, which are sent as encoded polylines. Rows
+     * and columns of the matrix are in the order of the given points.
+     * @param origins the starting points for calculating travel distance and time, these are rows of the matrix.
+     * @param destinations the finishing points for calculating travel distance and time, these are columns of the matrix.
+     * @return future of a {@link DistanceMatrix}
+     */
+    public ServiceFuture<DistanceMatrix> getDistanceMatrixAsync(LatLng origins[], LatLng ... destinations) {
+        final ServiceFuture<DistanceMatrix> future = new ServiceFuture<>();
+        DistanceCalculator calculator = new DistanceCalculator()
+                .setOrigins(origins)
+                .setMatrixListener(new DistanceCalculator.MatrixListener() {
+                    @Override
+                    public void onRequestCompleted(String json, DistanceMatrix matrix) {
+                        future.complete(matrix);
+                    }
+
+                    @Override
+                    public void onRequestFailure(Exception e) {
+                        future.fail(e);
+                    }
+                });
+        future.setTask(calculator);
+        calculator.calculate(destinations);
+        return future;
+    }
+
+    /**
+     * Finds the candidates nearest to the origin by road <b>asynchronously</b>. Candidates are shortlisted by great circle distance
+     * first, so road distances of only a few of them are requested, see {@link NearestFinder}.
+     * @param origin point from which candidates are measured
+     * @param count number of nearest candidates to be found
+     * @param candidates points among which the nearest ones will be found
+     * @return future of indexes of the nearest candidates, nearest first
+     */
+    public ServiceFuture<int[]> getNearestAsync(LatLng origin, int count, LatLng ... candidates) {
+        final ServiceFuture<int[]> future = new ServiceFuture<>();
+        NearestFinder finder = new NearestFinder()
+                .setOrigin(origin)
+                .setCount(count)
+                .setResponseListener(new NearestFinder.NearestListener() {
+                    @Override
+                    public void onRequestCompleted(int[] indexes, int[] meters, int[] seconds) {
+                        future.complete(indexes);
+                    }
+
+                    @Override
+                    public void onRequestFailure(Exception e) {
+                        future.fail(e);
+                    }
+                });
+        future.setTask(finder);
+        finder.find(candidates);
+        return future;
+    }
+
+    /**
+     * This will return the {@link OkHttpClient} shared by all the services. If nothing has been configured yet, a client having default
+     * {@link HttpSettings} will be created at the first call.
+     * @return library-wide http client
+     */
+    public static synchronized OkHttpClient getHttpClient() {
+        if (httpClient == null)
+            httpClient = new HttpSettings().build();
+        return httpClient;
+    }
+
+    /**
+     * Method will replace the library-wide http client by a new one built from these settings. Call it once before using any service,
+     * because services which are already running will keep using the previous client.
+     * @param settings connection pool, keep-alive, HTTP/2 and timeout settings
+     */
+    public static synchronized void setHttpSettings(HttpSettings settings) {
+        if (settings == null)
+            throw new NullPointerException("Http settings can not be null");
+        httpClient = settings.build();
+    }
+
+    /**
+     * If your app already has a tuned {@link OkHttpClient}, you can hand it over to this module so that both share the same connections.
+     * @param client to be used by all the services
+     */
+    public static synchronized void setHttpClient(OkHttpClient client) {
+        if (client == null)
+            throw new NullPointerException("Http client can not be null");
+        httpClient = client;
+    }
+
+    /**
+     * This will return the thread pool shared by all the services. If nothing has been configured yet, a pool having default
+     * {@link ExecutorSettings} will be created at the first call.
+     * @return library-wide executor
+     */
+    public static synchronized Executor getExecutor() {
+        if (executorSettings == null)
+            executorSettings = new ExecutorSettings();
+        if (executor == null)
+            executor = executorSettings.build();
+        return executor;
+    }
+
+    /**
+     * Services are executed on this executor instead of {@link android.os.AsyncTask#execute(Object[])} which runs everything serially.
+     * It will run the requests on the shared pool but never more than the concurrency limit of this service at once.
+     * @param service class of the service for example {@code Geocoder.class}
+     * @return executor of this service
+     */
+    public static synchronized Executor getExecutor(Class<?> service) {
+        LimitedExecutor limited = serviceExecutors.get(service);
+        if (limited == null) {
+            Executor shared = getExecutor();
+            limited = new LimitedExecutor(shared, executorSettings.getLimit(service), executorSettings.getQueueSize());
+            serviceExecutors.put(service, limited);
+        }
+        return limited;
+    }
+
+    /**
+     * Method will replace the library-wide thread pool by a new one built from these settings. Requests which are already
+     * queued will still be finished on the previous pool.
+     * @param settings pool size, queue size and per service limits
+     */
+    public static synchronized void setExecutorSettings(ExecutorSettings settings) {
+        if (settings == null)
+            throw new NullPointerException("Executor settings can not be null");
+        executorSettings = settings;
+        executor = settings.build();
+        serviceExecutors.clear();
+    }
+
+    /**
+     * If your app already has a thread pool, you can hand it over to this module. Per service limits and queue size of
+     * {@link ExecutorSettings} will still be applied on top of it.
+     * @param executor to be used by all the services
+     */
+    public static synchronized void setExecutor(Executor executor) {
+        if (executor == null)
+            throw new NullPointerException("Executor can not be null");
+        if (executorSettings == null)
+            executorSettings = new ExecutorSettings();
+        GoogleServices.executor = executor;
+        serviceExecutors.clear();
+    }
+
+    /**
+     * @return cache of geocoded addresses used by {@link Geocoder}, null if caching is not enabled
+     */
+    public static synchronized GeocodingCache getGeocodingCache() {
+        return geocodingCache;
+    }
+
+    /**
+     * Method will enable (or disable by passing null) caching of geocoded addresses. Once enabled, {@link Geocoder} will serve
+     * repeated addresses from this cache without calling the server.
+     * @param cache to be used by {@link Geocoder}
+     */
+    public static synchronized void setGeocodingCache(GeocodingCache cache) {
+        geocodingCache = cache;
+    }
+
+    /**
+     * @return cache of reverse geocoded addresses used by {@link ReverseGeocoder}, null if caching is not enabled
+     */
+    public static synchronized ReverseGeocodingCache getReverseGeocodingCache() {
+        return reverseGeocodingCache;
+    }
+
+    /**
+     * Method will enable (or disable by passing null) caching of reverse geocoded addresses. Once enabled, {@link ReverseGeocoder}
+     * will answer all the points of a recently reverse geocoded cell from this cache without calling the server.
+     * @param cache to be used by {@link ReverseGeocoder}
+     */
+    public static synchronized void setReverseGeocodingCache(ReverseGeocodingCache cache) {
+        reverseGeocodingCache = cache;
+    }
+
+    /**
+     * @return cache of routes used by {@link RouteDesigner}, null if caching is not enabled
+     */
+    public static synchronized RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    /**
+     * Method will enable (or disable by passing null) caching of routes. Once enabled, {@link RouteDesigner} will draw a recently
+     * designed route from this cache without calling the server and without parsing. Raw json is not cached, so the listener of
+     * the designer receives empty json for a cached route even if retaining of json is on.
+     * @param cache to be used by {@link RouteDesigner}
+     */
+    public static synchronized void setRouteCache(RouteCache cache) {
+        routeCache = cache;
+    }
+
+    /**
+     * @return cache of origin destination pairs used by {@link DistanceCalculator}, null if caching is not enabled
+     */
+    public static synchronized DistanceMatrixCache getDistanceMatrixCache() {
+        return distanceMatrixCache;
+    }
+
+    /**
+     * Method will enable (or disable by passing null) caching of origin destination pairs. Once enabled, {@link DistanceCalculator}
+     * will take recently calculated pairs from this cache and request only the remaining ones from the server.
+     * @param cache to be used by {@link DistanceCalculator}
+     */
+    public static synchronized void setDistanceMatrixCache(DistanceMatrixCache cache) {
+        distanceMatrixCache = cache;
+    }
+
+    /**
+     * @return on-disk cache used by {@link Geocoder}, {@link ReverseGeocoder} and {@link PlacesExplorer}, null if it is not enabled
+     */
+    public static synchronized PersistentCache getPersistentCache() {
+        return persistentCache;
+    }
+
+    /**
+     * Method will enable (or disable by passing null) the on-disk cache. Once enabled, {@link Geocoder}, {@link ReverseGeocoder}
+     * and {@link PlacesExplorer} will look into it, from their background thread, before calling the server.
+     * @param cache to be used by the services
+     */
+    public static synchronized void setPersistentCache(PersistentCache cache) {
+        persistentCache = cache;
+    }
+
+    /**
+     * A map has a single camera change listener, so set this dispatcher on it instead of a {@link RouteDesigner} to keep every
+     * designer drawn on the map simplified for its zoom level, and add your own listener to the dispatcher:
+     * <pre>
+     * map.setOnCameraChangeListener(GoogleServices.getCameraChangeDispatcher(map).setListener(yourListener));
+     * </pre>
+     * @param map on which routes are drawn
+     * @return dispatcher of this map, the same one for every call
+     */
+    public static synchronized CameraChangeDispatcher getCameraChangeDispatcher(GoogleMap map) {
+        if (map == null)
+            throw new NullPointerException("Map can not be null");
+        CameraChangeDispatcher dispatcher = cameraChangeDispatchers.get(map);
+        if (dispatcher == null) {
+            dispatcher = new CameraChangeDispatcher();
+            cameraChangeDispatchers.put(map, dispatcher);
+        }
+        return dispatcher;
+    }
+
     /**
      * @return true if Google Play Services available in device otherwise false
      */
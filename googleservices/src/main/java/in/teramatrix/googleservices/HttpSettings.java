@@ -0,0 +1,136 @@
+package in.teramatrix.googleservices;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Settings of the single library-wide {@link OkHttpClient} that is shared by every service of this module. All the services are
+ * talking to the same host (maps.googleapis.com), so reusing one client means back to back calls ride on warm connections instead of
+ * paying a fresh connection pool, dispatcher and TLS handshake every time. It is easy to use class having Builder Pattern, pass it to
+ * {@link GoogleServices#setHttpSettings(HttpSettings)} before calling any service.
+ */
+@SuppressWarnings("unused")
+public class HttpSettings {
+
+    /**
+     * The maximum number of idle connections to keep in the pool for later reuse.
+     */
+    private int maxIdleConnections;
+
+    /**
+     * Time in milliseconds for which an idle connection is kept alive in the pool before it is evicted.
+     */
+    private long keepAliveDuration;
+
+    /**
+     * Timeout in milliseconds for new connections. Zero means no timeout.
+     */
+    private long connectTimeout;
+
+    /**
+     * Timeout in milliseconds for reading the response of a request. Zero means no timeout.
+     */
+    private long readTimeout;
+
+    /**
+     * Timeout in milliseconds for writing the request. Zero means no timeout.
+     */
+    private long writeTimeout;
+
+    /**
+     * If true, HTTP/2 will be negotiated with the server where available, otherwise only HTTP/1.1 will be used.
+     */
+    private boolean http2;
+
+    /**
+     * If true, the client will silently retry a request when a pooled connection turns out to be stale.
+     */
+    private boolean retryOnConnectionFailure;
+
+    /**
+     * Maximum number of asynchronous calls to the same host which may run at the same time, for example the tiles of a large
+     * distance matrix. Further calls wait in the queue of the dispatcher.
+     */
+    private int maxRequestsPerHost;
+
+    public HttpSettings() {
+        //Default Settings
+        this.maxIdleConnections = 5;
+        this.keepAliveDuration = 1000 * 60 * 5;
+        this.connectTimeout = 1000 * 10;
+        this.readTimeout = 1000 * 10;
+        this.writeTimeout = 1000 * 10;
+        this.http2 = true;
+        this.retryOnConnectionFailure = true;
+        this.maxRequestsPerHost = 5;
+    }
+
+    public HttpSettings setMaxIdleConnections(int maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+        return this;
+    }
+
+    public HttpSettings setKeepAliveDuration(long keepAliveDuration) {
+        this.keepAliveDuration = keepAliveDuration;
+        return this;
+    }
+
+    public HttpSettings setConnectTimeout(long connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    public HttpSettings setReadTimeout(long readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    public HttpSettings setWriteTimeout(long writeTimeout) {
+        this.writeTimeout = writeTimeout;
+        return this;
+    }
+
+    public HttpSettings setHttp2(boolean http2) {
+        this.http2 = http2;
+        return this;
+    }
+
+    public HttpSettings setRetryOnConnectionFailure(boolean retryOnConnectionFailure) {
+        this.retryOnConnectionFailure = retryOnConnectionFailure;
+        return this;
+    }
+
+    public HttpSettings setMaxRequestsPerHost(int maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        return this;
+    }
+
+    /**
+     * It is just like build method of Builder Pattern. It will construct a new {@link OkHttpClient} using these settings.
+     * @return a new client having its own connection pool
+     */
+    public OkHttpClient build() {
+        List<Protocol> protocols = new ArrayList<>();
+        if (http2) protocols.add(Protocol.HTTP_2);
+        protocols.add(Protocol.HTTP_1_1);
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveDuration, TimeUnit.MILLISECONDS))
+                .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                .writeTimeout(writeTimeout, TimeUnit.MILLISECONDS)
+                .protocols(protocols)
+                .retryOnConnectionFailure(retryOnConnectionFailure)
+                .dispatcher(dispatcher)
+                .build();
+    }
+}
@@ -0,0 +1,292 @@
+package in.teramatrix.googleservices;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A composable result of an asynchronous service call. {@code CompletableFuture} is not available on the Android versions supported by
+ * this module, so this class provides the same kind of composition: callbacks, {@link #then(Function)}, {@link #combine(ServiceFuture, Combiner)}
+ * and {@link #allOf(ServiceFuture[])}. Several lookups can be fired together and joined without parking a thread per call.
+ * Callbacks are invoked on the main thread: services publish their results in {@code onPostExecute()}, and failures, which services
+ * report from their background thread, are posted to the main thread. A callback added to a future which is already done is invoked
+ * right away on the calling thread. It is also a plain {@link Future}, so {@link #get()} can still be used from a background thread.
+ * @param <T> type of the result
+ */
+@SuppressWarnings("unused")
+public class ServiceFuture<T> implements Future<T> {
+
+    /**
+     * Released as soon as this future is completed, failed or cancelled
+     */
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    /**
+     * Callbacks waiting for the result. It will be null once the callbacks have been invoked.
+     */
+    private List<Callback<? super T>> callbacks = new ArrayList<>();
+
+    private T result;
+    private Exception failure;
+    private boolean done;
+
+    /**
+     * The task which will produce the result. It will be cancelled along with this future.
+     */
+    private AsyncTask<?, ?, ?> task;
+
+    public ServiceFuture() {
+    }
+
+    /**
+     * @param value result
+     * @return a future which is already completed with this value
+     */
+    public static <T> ServiceFuture<T> completed(T value) {
+        ServiceFuture<T> future = new ServiceFuture<>();
+        future.complete(value);
+        return future;
+    }
+
+    /**
+     * Method will complete this future with the result. Only the first completion (or failure) is taken into account.
+     * @param value result
+     * @return true if this call completed the future
+     */
+    public boolean complete(T value) {
+        List<Callback<? super T>> pending;
+        synchronized (this) {
+            if (done) return false;
+            result = value;
+            done = true;
+            pending = callbacks;
+            callbacks = null;
+        }
+        latch.countDown();
+        for (Callback<? super T> callback : pending)
+            callback.onResult(value);
+        return true;
+    }
+
+    /**
+     * Method will complete this future with a failure. Only the first completion (or failure) is taken into account. Waiting
+     * {@link #get()} calls return at once, callbacks are invoked on the main thread.
+     * @param e cause of failure
+     * @return true if this call completed the future
+     */
+    public boolean fail(final Exception e) {
+        final List<Callback<? super T>> pending;
+        synchronized (this) {
+            if (done) return false;
+            failure = e;
+            done = true;
+            pending = callbacks;
+            callbacks = null;
+        }
+        latch.countDown();
+
+        Looper main = Looper.getMainLooper();
+        if (Looper.myLooper() == main) {
+            for (Callback<? super T> callback : pending)
+                callback.onRequestFailure(e);
+        } else {
+            //Failures are usually reported from doInBackground(), callbacks may touch the UI
+            new Handler(main).post(new Runnable() {
+                @Override
+                public void run() {
+                    for (Callback<? super T> callback : pending)
+                        callback.onRequestFailure(e);
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Callback will be invoked when this future is done. If it is already done, callback will be invoked right now on the calling thread.
+     * @param callback to be notified
+     * @return this instance
+     */
+    public ServiceFuture<T> addCallback(Callback<? super T> callback) {
+        synchronized (this) {
+            if (!done) {
+                callbacks.add(callback);
+                return this;
+            }
+        }
+        if (failure != null)
+            callback.onRequestFailure(failure);
+        else
+            callback.onResult(result);
+        return this;
+    }
+
+    /**
+     * It will transform the result of this future as soon as it is available.
+     * @param function to be applied on the result
+     * @return a new future of the transformed result
+     */
+    public <R> ServiceFuture<R> then(final Function<? super T, ? extends R> function) {
+        final ServiceFuture<R> next = new ServiceFuture<>();
+        addCallback(new Callback<T>() {
+            @Override
+            public void onResult(T value) {
+                try {
+                    next.complete(function.apply(value));
+                } catch (Exception e) {
+                    next.fail(e);
+                }
+            }
+
+            @Override
+            public void onRequestFailure(Exception e) {
+                next.fail(e);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * It will combine the results of this and another future when both are available.
+     * @param other another future
+     * @param combiner to merge both the results
+     * @return a new future of the combined result
+     */
+    public <U, R> ServiceFuture<R> combine(final ServiceFuture<U> other, final Combiner<? super T, ? super U, ? extends R> combiner) {
+        final ServiceFuture<R> next = new ServiceFuture<>();
+        allOf(this, other).addCallback(new Callback<Void>() {
+            @Override
+            public void onResult(Void value) {
+                try {
+                    next.complete(combiner.combine(getNow(), other.getNow()));
+                } catch (Exception e) {
+                    next.fail(e);
+                }
+            }
+
+            @Override
+            public void onRequestFailure(Exception e) {
+                next.fail(e);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Method will join a group of futures. Returned future will be completed when all of them are completed, or failed as soon as
+     * any of them fails. Individual results can then be read from each future using {@link #get()} without blocking.
+     * @param futures to be joined
+     * @return a future which is done when all the futures are done
+     */
+    public static ServiceFuture<Void> allOf(ServiceFuture<?>... futures) {
+        final ServiceFuture<Void> all = new ServiceFuture<>();
+        if (futures.length == 0) {
+            all.complete(null);
+            return all;
+        }
+
+        final AtomicInteger remaining = new AtomicInteger(futures.length);
+        for (ServiceFuture<?> future : futures) {
+            future.addCallback(new Callback<Object>() {
+                @Override
+                public void onResult(Object value) {
+                    if (remaining.decrementAndGet() == 0) all.complete(null);
+                }
+
+                @Override
+                public void onRequestFailure(Exception e) {
+                    all.fail(e);
+                }
+            });
+        }
+        return all;
+    }
+
+    /**
+     * Task producing the result of this future, so that it can be cancelled along with this future.
+     */
+    void setTask(AsyncTask<?, ?, ?> task) {
+        this.task = task;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!fail(new CancellationException("Request has been cancelled")))
+            return false;
+        if (task != null) task.cancel(mayInterruptIfRunning);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return failure instanceof CancellationException;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        latch.await();
+        return getResult();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!latch.await(timeout, unit))
+            throw new TimeoutException("Request is not completed yet");
+        return getResult();
+    }
+
+    /**
+     * @return result of this future, null if it is not completed yet
+     */
+    private synchronized T getNow() {
+        return result;
+    }
+
+    private T getResult() throws ExecutionException {
+        if (failure instanceof CancellationException)
+            throw (CancellationException) failure;
+        if (failure != null)
+            throw new ExecutionException(failure);
+        return result;
+    }
+
+    /**
+     * An interface to receive the result of a {@link ServiceFuture}.
+     */
+    public interface Callback<T> extends ResponseListener {
+        /**
+         * This method will be invoked when the future is completed successfully.
+         * @param result of the request
+         */
+        void onResult(T result);
+    }
+
+    /**
+     * A function to transform the result of a {@link ServiceFuture}.
+     */
+    public interface Function<T, R> {
+        R apply(T value) throws Exception;
+    }
+
+    /**
+     * A function to merge the results of two {@link ServiceFuture}.
+     */
+    public interface Combiner<A, B, R> {
+        R combine(A first, B second) throws Exception;
+    }
+}
@@ -0,0 +1,144 @@
+package in.teramatrix.googleservices.cache;
+
+import in.teramatrix.googleservices.model.DistanceMatrix;
+
+/**
+ * An in-memory LRU cache of single origin destination pairs for {@link in.teramatrix.googleservices.service.DistanceCalculator}.
+ * A dispatch loop asks for nearly the same matrix again and again, so pairs calculated a few minutes ago are served from here and
+ * only the remaining cells are requested from the server. A pair is identified by its normalized origin and destination, travel
+ * mode and a time bucket: durations depend on traffic, so all the pairs of a bucket (for example 15 minutes) belong to the same
+ * snapshot and a new bucket starts afresh. Every entry also lives only for a fixed time (TTL). It is opt-in, pass an instance to
+ * {@link in.teramatrix.googleservices.GoogleServices#setDistanceMatrixCache(DistanceMatrixCache)} to enable it.
+ */
+@SuppressWarnings("unused")
+public class DistanceMatrixCache extends ExpiringLruCache<String, DistanceMatrixCache.Element> {
+
+    /**
+     * Length of a time bucket in milliseconds
+     */
+    private final long bucketLength;
+
+    /**
+     * @param maxPairs maximum number of origin destination pairs to be kept, least recently used one will be evicted first
+     * @param bucketLength length of a time bucket in milliseconds, pairs of an older bucket are never served
+     * @param ttl time in milliseconds for which a pair is valid
+     */
+    public DistanceMatrixCache(int maxPairs, long bucketLength, long ttl) {
+        super(maxPairs, ttl);
+        if (bucketLength <= 0)
+            throw new IllegalArgumentException("Bucket length must be positive");
+        this.bucketLength = bucketLength;
+    }
+
+    /**
+     * @return current time bucket, take it once per matrix so that all of its pairs are looked up in the same bucket
+     */
+    public long getBucket() {
+        return System.currentTimeMillis() / bucketLength;
+    }
+
+    /**
+     * @return length of a time bucket in milliseconds
+     */
+    public long getBucketLength() {
+        return bucketLength;
+    }
+
+    /**
+     * @param origin normalized by {@link #normalize(String)}
+     * @param destination normalized by {@link #normalize(String)}
+     * @param mode of transport
+     * @param bucket see {@link #getBucket()}
+     * @return key of the pair
+     */
+    public static String getKey(String origin, String destination, String mode, long bucket) {
+        return new StringBuilder(origin.length() + destination.length() + 32)
+                .append(origin).append('|').append(destination).append('|').append(mode).append('|').append(bucket)
+                .toString();
+    }
+
+    /**
+     * Method will normalize an origin or a destination to be used in a key, same as {@link GeocodingCache#normalize(String)}.
+     * Normalize each location of a matrix once, not once per pair.
+     * @param location address or "latitude,longitude"
+     * @return normalized location
+     */
+    public static String normalize(String location) {
+        return GeocodingCache.normalize(location);
+    }
+
+    /**
+     * A single cached cell of the matrix, along with the addresses resolved by the server for its origin and destination.
+     */
+    public static class Element {
+        private final String originAddress;
+        private final String destinationAddress;
+        private final int meters;
+        private final int seconds;
+        private final String distanceText;
+        private final String durationText;
+        private final boolean texts;
+
+        /**
+         * Method will copy a cell of the matrix
+         * @param matrix from which cell will be copied
+         * @param row of the cell
+         * @param column of the cell
+         */
+        public Element(DistanceMatrix matrix, int row, int column) {
+            this.originAddress = matrix.getOrigin(row);
+            this.destinationAddress = matrix.getDestination(column);
+            this.meters = matrix.getDistance(row, column);
+            this.seconds = matrix.getDuration(row, column);
+            this.distanceText = matrix.getDistanceText(row, column);
+            this.durationText = matrix.getDurationText(row, column);
+            this.texts = matrix.hasTexts();
+        }
+
+        /**
+         * Method will copy this element into a cell of the matrix, and the addresses if these are not known yet
+         */
+        public void copyTo(DistanceMatrix matrix, int row, int column) {
+            matrix.set(row, column, meters, seconds, distanceText, durationText);
+            if (matrix.getOrigin(row) == null) matrix.setOrigin(row, originAddress);
+            if (matrix.getDestination(column) == null) matrix.setDestination(column, destinationAddress);
+        }
+
+        public String getOriginAddress() {
+            return originAddress;
+        }
+
+        public String getDestinationAddress() {
+            return destinationAddress;
+        }
+
+        /**
+         * @return distance in meters or {@link DistanceMatrix#UNAVAILABLE}
+         */
+        public int getDistance() {
+            return meters;
+        }
+
+        /**
+         * @return duration in seconds or {@link DistanceMatrix#UNAVAILABLE}
+         */
+        public int getDuration() {
+            return seconds;
+        }
+
+        public String getDistanceText() {
+            return distanceText;
+        }
+
+        public String getDurationText() {
+            return durationText;
+        }
+
+        /**
+         * @return true if display texts were kept when this element was calculated
+         */
+        public boolean hasTexts() {
+            return texts;
+        }
+    }
+}
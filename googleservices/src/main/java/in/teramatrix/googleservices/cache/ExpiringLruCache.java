@@ -0,0 +1,167 @@
+package in.teramatrix.googleservices.cache;
+
+import android.os.SystemClock;
+import android.util.LruCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size bounded LRU cache in which every entry lives only for a fixed time (TTL). It is the base of the in-memory caches of this
+ * module and keeps hit, miss, eviction and expiry statistics. By default size of the cache is counted in number of entries,
+ * override {@link #sizeOf(Object, Object)} to weigh entries differently.
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+@SuppressWarnings("unused")
+public class ExpiringLruCache<K, V> {
+
+    /**
+     * Entries along with their expiry time
+     */
+    private final LruCache<K, Entry<V>> cache;
+
+    /**
+     * Time in milliseconds for which an entry is valid
+     */
+    private final long ttl;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * @param maxSize maximum size of the cache, least recently used entries will be evicted first
+     * @param ttl time in milliseconds for which an entry is valid
+     */
+    public ExpiringLruCache(int maxSize, long ttl) {
+        if (maxSize <= 0 || ttl <= 0)
+            throw new IllegalArgumentException("Size and TTL must be positive");
+        this.ttl = ttl;
+        this.cache = new LruCache<K, Entry<V>>(maxSize) {
+            @Override
+            protected int sizeOf(K key, Entry<V> entry) {
+                return ExpiringLruCache.this.sizeOf(key, entry.value);
+            }
+        };
+    }
+
+    /**
+     * @param key to be looked up
+     * @return cached value or null if it is not cached or has expired
+     */
+    public V get(K key) {
+        Entry<V> entry = cache.get(key);
+        if (entry != null && entry.expiresAt <= SystemClock.elapsedRealtime()) {
+            cache.remove(key);
+            expirations.incrementAndGet();
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * @param key of the entry
+     * @param value to be cached
+     */
+    public void put(K key, V value) {
+        cache.put(key, new Entry<>(value, SystemClock.elapsedRealtime() + ttl));
+    }
+
+    /**
+     * @param key of the entry to be removed
+     */
+    public void remove(K key) {
+        cache.remove(key);
+    }
+
+    /**
+     * This will remove all the entries, statistics will remain as it is.
+     */
+    public void clear() {
+        cache.evictAll();
+    }
+
+    /**
+     * Size of an entry in the units of max size. It must not change while the entry is in the cache.
+     * @return 1 by default, so that the size of the cache is its number of entries
+     */
+    protected int sizeOf(K key, V value) {
+        return 1;
+    }
+
+    /**
+     * @return current size of the cache, number of entries by default
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return maximum size of the cache
+     */
+    public int maxSize() {
+        return cache.maxSize();
+    }
+
+    /**
+     * @return time in milliseconds for which an entry is valid
+     */
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * @return number of lookups served from the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of lookups which were not found in the cache (including expired ones)
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of entries evicted because the cache was full
+     */
+    public long getEvictionCount() {
+        return cache.evictionCount();
+    }
+
+    /**
+     * @return number of entries removed because they were older than TTL
+     */
+    public long getExpiredCount() {
+        return expirations.get();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "size=" + size() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                ", expired=" + getExpiredCount() +
+                '}';
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
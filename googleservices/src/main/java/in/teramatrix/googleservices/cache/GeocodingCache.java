@@ -0,0 +1,70 @@
+package in.teramatrix.googleservices.cache;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.Locale;
+
+/**
+ * An in-memory, size bounded LRU cache of address to {@link LatLng} for {@link in.teramatrix.googleservices.service.Geocoder}.
+ * Addresses like depots and customer sites are geocoded again and again, so repeat lookups can be served from here without
+ * calling the Geocoding API. Every entry lives only for a fixed time (TTL) and addresses are normalized before lookup, so
+ * " Jaipur,  Rajasthan" and "jaipur, rajasthan" share one entry. It is opt-in, pass an instance to
+ * {@link in.teramatrix.googleservices.GoogleServices#setGeocodingCache(GeocodingCache)} to enable it.
+ */
+@SuppressWarnings("unused")
+public class GeocodingCache extends ExpiringLruCache<String, LatLng> {
+
+    /**
+     * @param maxEntries maximum number of addresses to be kept, least recently used one will be evicted first
+     * @param ttl time in milliseconds for which a geocoded address is valid
+     */
+    public GeocodingCache(int maxEntries, long ttl) {
+        super(maxEntries, ttl);
+    }
+
+    /**
+     * @param address to be looked up, it will be normalized first
+     * @return cached {@link LatLng} or null if it is not cached or has expired
+     */
+    @Override
+    public LatLng get(String address) {
+        return super.get(normalize(address));
+    }
+
+    /**
+     * @param address which has been geocoded
+     * @param latLng result of geocoding
+     */
+    @Override
+    public void put(String address, LatLng latLng) {
+        super.put(normalize(address), latLng);
+    }
+
+    @Override
+    public void remove(String address) {
+        super.remove(normalize(address));
+    }
+
+    /**
+     * Method will normalize an address to be used as a key. Leading/trailing spaces are removed, runs of white spaces are
+     * collapsed and case is folded.
+     * @param address to be normalized
+     * @return normalized address
+     */
+    public static String normalize(String address) {
+        return address.trim().replaceAll("\\s+", " ").toLowerCase(Locale.US);
+    }
+
+    /**
+     * Method will build the identity of a geocoding request, for example to coalesce identical requests. It is built from the
+     * normalized address (see {@link #normalize(String)}) rather than the url, so " Jaipur,  Rajasthan" and "jaipur, rajasthan"
+     * are treated as the same request and keys or signatures of a url never end up in it. Urls of
+     * {@link in.teramatrix.googleservices.util.UrlManager} ask no language, responses come in the default language of the server,
+     * so language does not split the requests.
+     * @param address to be geocoded
+     * @return key of the request, it should not be used to make a call
+     */
+    public static String getRequestKey(String address) {
+        return "address|" + normalize(address);
+    }
+}
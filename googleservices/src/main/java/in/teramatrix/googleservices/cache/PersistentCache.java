@@ -0,0 +1,389 @@
+package in.teramatrix.googleservices.cache;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import in.teramatrix.googleservices.model.Address;
+import in.teramatrix.googleservices.model.Place;
+
+/**
+ * A persistent cache tier beneath the services, so that geocoded addresses, reverse geocoded addresses and places survive app restarts.
+ * {@link in.teramatrix.googleservices.service.Geocoder}, {@link in.teramatrix.googleservices.service.ReverseGeocoder} and
+ * {@link in.teramatrix.googleservices.service.PlacesExplorer} consult it before hitting the network. Results are stored in a SQLite
+ * table in a compact binary form (not the raw JSON), the number of entries is capped and least recently used entries are evicted
+ * first. Every entry is valid only for a fixed time (TTL) from the moment it was stored.
+ * <br/>
+ * All the methods touch the disk, so never call them on the main thread. Services call them from {@code doInBackground()}.
+ * It is opt-in, pass an instance to {@link in.teramatrix.googleservices.GoogleServices#setPersistentCache(PersistentCache)} to enable it.
+ */
+@SuppressWarnings("unused")
+public class PersistentCache {
+
+    private static final String DATABASE_NAME = "google_services_cache.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE = "entries";
+    private static final String COLUMN_NAMESPACE = "namespace";
+    private static final String COLUMN_KEY = "key";
+    private static final String COLUMN_VALUE = "value";
+    private static final String COLUMN_CREATED = "created";
+    private static final String COLUMN_ACCESSED = "accessed";
+
+    private static final String GEOCODING = "geocoding";
+    private static final String REVERSE_GEOCODING = "reverse_geocoding";
+    private static final String PLACES = "places";
+
+    /**
+     * Access time of an entry is refreshed at most once in this time in milliseconds, so that most of the reads don't write.
+     */
+    private static final long ACCESS_RESOLUTION = 1000 * 60;
+
+    private final Helper helper;
+
+    /**
+     * Maximum number of entries of all kinds
+     */
+    private final int maxEntries;
+
+    /**
+     * Time in milliseconds for which an entry is valid
+     */
+    private final long ttl;
+
+    /**
+     * Edge in meters of the spatial cell used as key of reverse geocoded addresses. If zero, exact coordinates are used as key.
+     */
+    private double cellSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param context to open the database, application context will be used
+     * @param maxEntries maximum number of entries to be kept on disk
+     * @param ttl time in milliseconds for which an entry is valid
+     */
+    public PersistentCache(Context context, int maxEntries, long ttl) {
+        if (maxEntries <= 0 || ttl <= 0)
+            throw new IllegalArgumentException("Size and TTL must be positive");
+        this.helper = new Helper(context.getApplicationContext());
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.cellSize = 0;
+    }
+
+    /**
+     * Reverse geocoded addresses will be keyed by spatial cell of this size, see {@link SpatialKey}.
+     * @param cellSize edge of a cell in meters, zero to key them by exact coordinates
+     * @return this instance
+     */
+    public PersistentCache setCellSize(double cellSize) {
+        this.cellSize = cellSize;
+        return this;
+    }
+
+    /**
+     * @param address geocoded address
+     * @return cached {@link LatLng} or null
+     */
+    public LatLng getLatLng(String address) {
+        byte[] value = get(GEOCODING, GeocodingCache.normalize(address));
+        if (value == null) return null;
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+            return new LatLng(in.readDouble(), in.readDouble());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @param address geocoded address
+     * @param latLng result of geocoding
+     */
+    public void putLatLng(String address, LatLng latLng) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeDouble(latLng.latitude);
+            out.writeDouble(latLng.longitude);
+            put(GEOCODING, GeocodingCache.normalize(address), bytes.toByteArray());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param latLng reverse geocoded point
+     * @return cached {@link Address} or null
+     */
+    public Address getAddress(LatLng latLng) {
+        byte[] value = get(REVERSE_GEOCODING, getKey(latLng));
+        if (value == null) return null;
+        try {
+            return readAddress(new DataInputStream(new ByteArrayInputStream(value)));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @param latLng reverse geocoded point
+     * @param address result of reverse geocoding
+     */
+    public void putAddress(LatLng latLng, Address address) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            writeAddress(new DataOutputStream(bytes), address);
+            put(REVERSE_GEOCODING, getKey(latLng), bytes.toByteArray());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param url of the Places API request
+     * @return cached places or null
+     */
+    public ArrayList<Place> getPlaces(String url) {
+        byte[] value = get(PLACES, getPlacesKey(url));
+        if (value == null) return null;
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+            int count = in.readInt();
+            ArrayList<Place> places = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Place place = new Place();
+                place.setId(readString(in));
+                place.setPlaceId(readString(in));
+                place.setName(readString(in));
+                place.setType(readString(in));
+                place.setIcon(readString(in));
+                place.setVicinity(readString(in));
+                place.setLocation(new LatLng(in.readDouble(), in.readDouble()));
+                places.add(place);
+            }
+            return places;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @param url of the Places API request
+     * @param places result of the request
+     */
+    public void putPlaces(String url, ArrayList<Place> places) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * places.size() + 4);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(places.size());
+            for (Place place : places) {
+                writeString(out, place.getId());
+                writeString(out, place.getPlaceId());
+                writeString(out, place.getName());
+                writeString(out, place.getType());
+                writeString(out, place.getIcon());
+                writeString(out, place.getVicinity());
+                out.writeDouble(place.getLocation().latitude);
+                out.writeDouble(place.getLocation().longitude);
+            }
+            put(PLACES, getPlacesKey(url), bytes.toByteArray());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * This will remove all the entries from the disk.
+     */
+    public void clear() {
+        try {
+            helper.getWritableDatabase().delete(TABLE, null, null);
+        } catch (SQLiteException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return number of lookups served from the disk
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of lookups which were not found on the disk (including expired ones)
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Method will read an entry and refresh its access time. An expired entry is deleted and treated as missing.
+     */
+    private byte[] get(String namespace, String key) {
+        try {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            String[] args = {namespace, key};
+            Cursor cursor = db.rawQuery("SELECT " + COLUMN_VALUE + ", " + COLUMN_CREATED + ", " + COLUMN_ACCESSED
+                    + " FROM " + TABLE + " WHERE " + COLUMN_NAMESPACE + " = ? AND " + COLUMN_KEY + " = ?", args);
+            try {
+                if (cursor.moveToFirst()) {
+                    long now = System.currentTimeMillis();
+                    if (cursor.getLong(1) + ttl > now) {
+                        if (cursor.getLong(2) + ACCESS_RESOLUTION < now) {
+                            ContentValues values = new ContentValues(1);
+                            values.put(COLUMN_ACCESSED, now);
+                            db.update(TABLE, values, COLUMN_NAMESPACE + " = ? AND " + COLUMN_KEY + " = ?", args);
+                        }
+                        hits.incrementAndGet();
+                        return cursor.getBlob(0);
+                    }
+                    db.delete(TABLE, COLUMN_NAMESPACE + " = ? AND " + COLUMN_KEY + " = ?", args);
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (SQLiteException e) {
+            e.printStackTrace();
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Method will store an entry and then evict expired and least recently used entries beyond the maximum count.
+     */
+    private void put(String namespace, String key, byte[] value) {
+        try {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            long now = System.currentTimeMillis();
+            ContentValues values = new ContentValues(5);
+            values.put(COLUMN_NAMESPACE, namespace);
+            values.put(COLUMN_KEY, key);
+            values.put(COLUMN_VALUE, value);
+            values.put(COLUMN_CREATED, now);
+            values.put(COLUMN_ACCESSED, now);
+            db.insertWithOnConflict(TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+
+            long count = DatabaseUtils.queryNumEntries(db, TABLE);
+            if (count > maxEntries) {
+                db.delete(TABLE, COLUMN_CREATED + " <= ?", new String[]{String.valueOf(now - ttl)});
+                count = DatabaseUtils.queryNumEntries(db, TABLE);
+            }
+            if (count > maxEntries) {
+                db.execSQL("DELETE FROM " + TABLE + " WHERE rowid IN (SELECT rowid FROM " + TABLE
+                        + " ORDER BY " + COLUMN_ACCESSED + " LIMIT " + (count - maxEntries) + ")");
+            }
+        } catch (SQLiteException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method will strip the credentials (key, signature and client) from a url, so that they are never written to the disk and an
+     * entry stays valid when the key is rotated.
+     * @param url of the Places API request
+     * @return url without its credentials
+     */
+    static String getPlacesKey(String url) {
+        int query = url.indexOf('?');
+        if (query < 0) return url;
+
+        StringBuilder key = new StringBuilder(url.length()).append(url, 0, query);
+        char separator = '?';
+        for (String parameter : url.substring(query + 1).split("&")) {
+            int end = parameter.indexOf('=');
+            String name = end < 0 ? parameter : parameter.substring(0, end);
+            if (name.isEmpty() || name.equals("key") || name.equals("signature") || name.equals("client"))
+                continue;
+            key.append(separator).append(parameter);
+            separator = '&';
+        }
+        return key.toString();
+    }
+
+    private String getKey(LatLng latLng) {
+        return (cellSize > 0)
+                ? String.valueOf(SpatialKey.cell(latLng.latitude, latLng.longitude, cellSize))
+                : latLng.latitude + "," + latLng.longitude;
+    }
+
+    private static void writeAddress(DataOutputStream out, Address address) throws IOException {
+        writeString(out, address.getAddressOne());
+        writeString(out, address.getAddressTwo());
+        writeString(out, address.getCity());
+        writeString(out, address.getDistrict());
+        writeString(out, address.getState());
+        writeString(out, address.getCountry());
+        writeString(out, address.getPin());
+    }
+
+    private static Address readAddress(DataInputStream in) throws IOException {
+        Address address = new Address();
+        address.setAddressOne(readString(in));
+        address.setAddressTwo(readString(in));
+        address.setCity(readString(in));
+        address.setDistrict(readString(in));
+        address.setState(readString(in));
+        address.setCountry(readString(in));
+        address.setPin(readString(in));
+        return address;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Creates the table of cached entries. There's only one version of it yet.
+     */
+    private static class Helper extends SQLiteOpenHelper {
+
+        private Helper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE + " ("
+                    + COLUMN_NAMESPACE + " TEXT NOT NULL, "
+                    + COLUMN_KEY + " TEXT NOT NULL, "
+                    + COLUMN_VALUE + " BLOB NOT NULL, "
+                    + COLUMN_CREATED + " INTEGER NOT NULL, "
+                    + COLUMN_ACCESSED + " INTEGER NOT NULL, "
+                    + "PRIMARY KEY (" + COLUMN_NAMESPACE + ", " + COLUMN_KEY + "))");
+            db.execSQL("CREATE INDEX " + TABLE + "_" + COLUMN_ACCESSED + " ON " + TABLE + " (" + COLUMN_ACCESSED + ")");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+            onCreate(db);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package in.teramatrix.googleservices.cache;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import in.teramatrix.googleservices.model.Address;
+
+/**
+ * An in-memory, size bounded LRU cache of reverse geocoded addresses for {@link in.teramatrix.googleservices.service.ReverseGeocoder}.
+ * Location updates of a stationary or slow moving device barely move, but their exact doubles never repeat. So entries are keyed by
+ * a spatial cell of configurable size (see {@link SpatialKey}) and every point in the same cell is answered with the cached
+ * {@link Address} without a network call. {@link Address} is mutable, so addresses are copied on the way in and on the way out.
+ * Every entry lives only for a fixed time (TTL). It is opt-in, pass an instance to
+ * {@link in.teramatrix.googleservices.GoogleServices#setReverseGeocodingCache(ReverseGeocodingCache)} to enable it.
+ */
+@SuppressWarnings("unused")
+public class ReverseGeocodingCache extends ExpiringLruCache<Long, Address> {
+
+    /**
+     * Edge of a cell in meters. All the points of a cell share the same address.
+     */
+    private final double cellSize;
+
+    /**
+     * @param maxEntries maximum number of cells to be kept, least recently used one will be evicted first
+     * @param cellSize edge of a cell in meters, for example 25 meters for street level addresses
+     * @param ttl time in milliseconds for which an address is valid
+     */
+    public ReverseGeocodingCache(int maxEntries, double cellSize, long ttl) {
+        super(maxEntries, ttl);
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("Cell size must be positive");
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * @param latLng to be looked up
+     * @return copy of the cached address of the cell in which this point lies, null if it is not cached or has expired
+     */
+    public Address get(LatLng latLng) {
+        return get(getKey(latLng));
+    }
+
+    /**
+     * @param latLng which has been reverse geocoded
+     * @param address result of reverse geocoding
+     */
+    public void put(LatLng latLng, Address address) {
+        put(getKey(latLng), address);
+    }
+
+    /**
+     * @param key of the cell, see {@link #getKey(LatLng)}
+     * @return copy of the cached address, null if it is not cached or has expired
+     */
+    @Override
+    public Address get(Long key) {
+        Address address = super.get(key);
+        return address != null ? new Address(address) : null;
+    }
+
+    /**
+     * @param key of the cell, see {@link #getKey(LatLng)}
+     * @param address to be cached, a copy of it is kept
+     */
+    @Override
+    public void put(Long key, Address address) {
+        super.put(key, new Address(address));
+    }
+
+    /**
+     * @param latLng a point
+     * @return key of the cell in which this point lies
+     */
+    public long getKey(LatLng latLng) {
+        return SpatialKey.cell(latLng.latitude, latLng.longitude, cellSize);
+    }
+
+    /**
+     * Method will build the identity of a reverse geocoding request, for example to coalesce identical requests. Points of the
+     * same spatial cell are treated as the same request, as this cache would answer them with the same address anyway. Without a
+     * cell size, only the exact same point is.
+     * @param latLng to be reverse geocoded
+     * @param cellSize edge of a cell in meters, 0 to key the exact point
+     * @return key of the request, it should not be used to make a call
+     */
+    public static String getRequestKey(LatLng latLng, double cellSize) {
+        if (cellSize > 0)
+            return "cell|" + Long.toHexString(SpatialKey.cell(latLng.latitude, latLng.longitude, cellSize));
+        return "latlng|" + latLng.latitude + "," + latLng.longitude;
+    }
+
+    /**
+     * @return edge of a cell in meters
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+}
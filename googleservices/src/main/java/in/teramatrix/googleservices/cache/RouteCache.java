@@ -0,0 +1,110 @@
+package in.teramatrix.googleservices.cache;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import in.teramatrix.googleservices.model.Route;
+
+/**
+ * An in-memory LRU cache of routes for {@link in.teramatrix.googleservices.service.RouteDesigner}. A request is identified by its
+ * origin, destination and waypoints quantized into spatial cells (see {@link SpatialKey}), travel mode and the alternatives and
+ * steps flags, so a driver leaving the depot a few meters away from the last time still gets the cached route. Size of the cache is
+ * the total number of vertices of all the cached routes, not the number of entries, so one cross-country route weighs as much as
+ * many short ones. Every entry lives only for a fixed time (TTL), traffic makes routes stale. {@link Route} is mutable, so routes
+ * are copied, along with their legs, steps and paths, on the way in and on the way out. Raw json of the response is not cached, a
+ * route served from this cache is passed to the listener of the designer with empty json. It is opt-in, pass an instance to
+ * {@link in.teramatrix.googleservices.GoogleServices#setRouteCache(RouteCache)} to enable it.
+ */
+@SuppressWarnings("unused")
+public class RouteCache extends ExpiringLruCache<String, List<Route>> {
+
+    /**
+     * Edge of a cell in meters. Requests whose points lie in the same cells share their routes.
+     */
+    private final double cellSize;
+
+    /**
+     * @param maxVertices maximum number of vertices of all the cached routes, least recently used routes will be evicted first
+     * @param cellSize edge of a cell in meters, for example 50 meters
+     * @param ttl time in milliseconds for which routes are valid
+     */
+    public RouteCache(int maxVertices, double cellSize, long ttl) {
+        super(maxVertices, ttl);
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("Cell size must be positive");
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * @return key of the request, made of quantized points and options
+     */
+    public String getKey(LatLng origin, LatLng destination, LatLng[] waypoints, String mode, boolean alternatives, boolean steps) {
+        return getKey(origin, destination, waypoints, mode, alternatives, steps, cellSize);
+    }
+
+    /**
+     * Same key as {@link #getKey(LatLng, LatLng, LatLng[], String, boolean, boolean)} for a given cell size, it is also the
+     * fingerprint of routes stored in files, see {@link in.teramatrix.googleservices.util.RouteFormat}
+     * @param cellSize edge of a cell in meters
+     * @return key of the request, made of quantized points and options
+     */
+    public static String getKey(LatLng origin, LatLng destination, LatLng[] waypoints, String mode, boolean alternatives, boolean steps,
+                                double cellSize) {
+        StringBuilder builder = new StringBuilder(64 + waypoints.length * 17);
+        builder.append(mode).append(alternatives ? "|a" : "|-").append(steps ? "s" : "-");
+        builder.append('|').append(Long.toHexString(SpatialKey.cell(origin.latitude, origin.longitude, cellSize)));
+        builder.append('|').append(Long.toHexString(SpatialKey.cell(destination.latitude, destination.longitude, cellSize)));
+        for (LatLng waypoint : waypoints)
+            builder.append('|').append(Long.toHexString(SpatialKey.cell(waypoint.latitude, waypoint.longitude, cellSize)));
+        return builder.toString();
+    }
+
+    /**
+     * @param key of the request, see {@link #getKey(LatLng, LatLng, LatLng[], String, boolean, boolean)}
+     * @return copies of the cached routes, null if these are not cached or have expired
+     */
+    @Override
+    public List<Route> get(String key) {
+        List<Route> routes = super.get(key);
+        return routes != null ? copyOf(routes) : null;
+    }
+
+    /**
+     * @param key of the request, see {@link #getKey(LatLng, LatLng, LatLng[], String, boolean, boolean)}
+     * @param routes to be cached, copies of these are kept
+     */
+    @Override
+    public void put(String key, List<Route> routes) {
+        super.put(key, copyOf(routes));
+    }
+
+    /**
+     * @return copies of the routes, see {@link Route#Route(Route)}
+     */
+    static List<Route> copyOf(List<Route> routes) {
+        List<Route> copies = new ArrayList<>(routes.size());
+        for (Route route : routes)
+            copies.add(new Route(route));
+        return copies;
+    }
+
+    /**
+     * Weight of an entry is the number of vertices of all its routes
+     */
+    @Override
+    protected int sizeOf(String key, List<Route> routes) {
+        int vertices = 0;
+        for (Route route : routes)
+            vertices += route.getPath() == null ? 0 : route.getPath().size();
+        return Math.max(1, vertices);
+    }
+
+    /**
+     * @return edge of a cell in meters
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+}
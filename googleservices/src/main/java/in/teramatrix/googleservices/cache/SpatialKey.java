@@ -0,0 +1,34 @@
+package in.teramatrix.googleservices.cache;
+
+/**
+ * Quantization of coordinates into square cells of a fixed size on the ground. Points of the same cell get the same key, so a cache
+ * keyed by cell can answer for all the points nearby, even though their exact doubles never repeat. Rows are of fixed height in
+ * degrees of latitude, and each row is divided into columns whose width in degrees of longitude grows with the latitude, so cells
+ * remain roughly square everywhere.
+ */
+public final class SpatialKey {
+
+    /**
+     * Approximate length of one degree of latitude in meters
+     */
+    public static final double METERS_PER_DEGREE = 111320.0;
+
+    private SpatialKey() {
+    }
+
+    /**
+     * @param latitude of the point
+     * @param longitude of the point
+     * @param cellSize edge of a cell in meters
+     * @return key of the cell in which point lies, row in upper 32 bits and column in lower 32 bits
+     */
+    public static long cell(double latitude, double longitude, double cellSize) {
+        double latStep = cellSize / METERS_PER_DEGREE;
+        long row = (long) Math.floor((latitude + 90) / latStep);
+        double rowLatitude = -90 + (row + 0.5) * latStep;
+        double cos = Math.max(Math.cos(Math.toRadians(rowLatitude)), 1e-6);
+        double lngStep = latStep / cos;
+        long column = (long) Math.floor((longitude + 180) / lngStep);
+        return (row << 32) | (column & 0xffffffffL);
+    }
+}
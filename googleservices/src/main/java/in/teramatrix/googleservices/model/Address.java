@@ -19,6 +19,25 @@ public class Address {
 
     }
 
+    /**
+     * Copy constructor. An address is mutable, so cached addresses are handed out as copies and a caller changing its copy does not
+     * change the cache or the results of other callers.
+     * @param address to be copied
+     */
+    public Address(Address address) {
+        this.pin = address.pin;
+        this.city = address.city;
+        this.state = address.state;
+        this.country = address.country;
+        this.district = address.district;
+        this.addressOne = address.addressOne;
+        this.addressTwo = address.addressTwo;
+    }
+
+    public String getPin() {
+        return pin;
+    }
+
     public void setPin(String pin) {
         this.pin = pin;
     }
@@ -47,6 +66,10 @@ public class Address {
         this.country = country;
     }
 
+    public String getDistrict() {
+        return district;
+    }
+
     public void setDistrict(String district) {
         this.district = district;
     }
@@ -59,6 +82,10 @@ public class Address {
         this.addressOne = addressOne;
     }
 
+    public String getAddressTwo() {
+        return addressTwo;
+    }
+
     public void setAddressTwo(String addressTwo) {
         this.addressTwo = addressTwo;
     }
@@ -15,6 +15,8 @@ public class Distance {
     private float durationValue;
     private String distanceText;
     private float distanceValue;
+    private int originIndex;
+    private int destinationIndex;
 
     public Distance() {
     }
@@ -67,6 +69,29 @@ public class Distance {
         this.distanceValue = distanceValue;
     }
 
+    /**
+     * @return index of the origin in the origins given to the calculator, so that results can be mapped back without matching
+     * addresses
+     */
+    public int getOriginIndex() {
+        return originIndex;
+    }
+
+    public void setOriginIndex(int originIndex) {
+        this.originIndex = originIndex;
+    }
+
+    /**
+     * @return index of the destination in the destinations given to the calculator
+     */
+    public int getDestinationIndex() {
+        return destinationIndex;
+    }
+
+    public void setDestinationIndex(int destinationIndex) {
+        this.destinationIndex = destinationIndex;
+    }
+
     @Override
     public String toString() {
         return "Distance{" +
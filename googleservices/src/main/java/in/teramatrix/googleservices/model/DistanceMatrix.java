@@ -0,0 +1,184 @@
+package in.teramatrix.googleservices.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Compact, columnar result of Distance Matrix API. Instead of one {@link Distance} object per element, distances and durations
+ * are kept in two primitive arrays in row major order (origins are rows, destinations are columns) and every address is stored
+ * only once. A 200 x 200 matrix is two int arrays of 40000 elements here, instead of 40000 objects and their strings.
+ * Elements which could not be calculated (for example no route) have {@link #UNAVAILABLE} as their value.
+ */
+@SuppressWarnings("unused")
+public class DistanceMatrix {
+
+    /**
+     * Value of distance and duration of an element whose status is not OK
+     */
+    public static final int UNAVAILABLE = -1;
+
+    private final String origins[];
+    private final String destinations[];
+    private final int meters[];
+    private final int seconds[];
+
+    /**
+     * Display texts of the elements, these are null unless the texts have been asked for
+     */
+    private final String distanceTexts[];
+    private final String durationTexts[];
+
+    /**
+     * @param rows number of origins
+     * @param columns number of destinations
+     * @param texts if true, display texts of distance and duration will also be kept
+     */
+    public DistanceMatrix(int rows, int columns, boolean texts) {
+        this.origins = new String[rows];
+        this.destinations = new String[columns];
+        this.meters = new int[rows * columns];
+        this.seconds = new int[rows * columns];
+        this.distanceTexts = texts ? new String[rows * columns] : null;
+        this.durationTexts = texts ? new String[rows * columns] : null;
+        Arrays.fill(meters, UNAVAILABLE);
+        Arrays.fill(seconds, UNAVAILABLE);
+    }
+
+    public int getRowCount() {
+        return origins.length;
+    }
+
+    public int getColumnCount() {
+        return destinations.length;
+    }
+
+    /**
+     * @return index of an element in the primitive arrays, it is row * columns + column
+     */
+    public int indexOf(int row, int column) {
+        return row * destinations.length + column;
+    }
+
+    public String getOrigin(int row) {
+        return origins[row];
+    }
+
+    public void setOrigin(int row, String origin) {
+        origins[row] = origin;
+    }
+
+    public String getDestination(int column) {
+        return destinations[column];
+    }
+
+    public void setDestination(int column, String destination) {
+        destinations[column] = destination;
+    }
+
+    /**
+     * @return distance in meters or {@link #UNAVAILABLE}
+     */
+    public int getDistance(int row, int column) {
+        return meters[indexOf(row, column)];
+    }
+
+    /**
+     * @return duration in seconds or {@link #UNAVAILABLE}
+     */
+    public int getDuration(int row, int column) {
+        return seconds[indexOf(row, column)];
+    }
+
+    public boolean isAvailable(int row, int column) {
+        return meters[indexOf(row, column)] != UNAVAILABLE;
+    }
+
+    /**
+     * @return display text of distance like "12.3 km" or null if texts are not kept or the element is not available
+     */
+    public String getDistanceText(int row, int column) {
+        return distanceTexts == null ? null : distanceTexts[indexOf(row, column)];
+    }
+
+    /**
+     * @return display text of duration like "25 mins" or null if texts are not kept or the element is not available
+     */
+    public String getDurationText(int row, int column) {
+        return durationTexts == null ? null : durationTexts[indexOf(row, column)];
+    }
+
+    public boolean hasTexts() {
+        return distanceTexts != null;
+    }
+
+    /**
+     * Method will set the values of a single element. Texts will be ignored if they are not kept.
+     */
+    public void set(int row, int column, int meters, int seconds, String distanceText, String durationText) {
+        int index = indexOf(row, column);
+        this.meters[index] = meters;
+        this.seconds[index] = seconds;
+        if (distanceTexts != null) {
+            distanceTexts[index] = distanceText;
+            durationTexts[index] = durationText;
+        }
+    }
+
+    /**
+     * Backing array of distances in row major order. It is not a copy, so tight loops (route optimization etc.) can read it
+     * directly; do not modify it.
+     * @return distances in meters
+     */
+    public int[] getDistances() {
+        return meters;
+    }
+
+    /**
+     * Backing array of durations in row major order. It is not a copy; do not modify it.
+     * @return durations in seconds
+     */
+    public int[] getDurations() {
+        return seconds;
+    }
+
+    /**
+     * Method will expand this matrix to the classic list of {@link Distance}, one object per element in row major order.
+     * Unavailable elements will have zero values and empty texts, just like the list returned by the calculator.
+     * @return list of distances
+     */
+    public ArrayList<Distance> toDistances() {
+        ArrayList<Distance> distances = new ArrayList<>(meters.length);
+        for (int row = 0; row < origins.length; row++) {
+            for (int column = 0; column < destinations.length; column++) {
+                int index = indexOf(row, column);
+                Distance distance = new Distance();
+                distance.setOrigin(origins[row]);
+                distance.setDestination(destinations[column]);
+                distance.setOriginIndex(row);
+                distance.setDestinationIndex(column);
+                if (meters[index] != UNAVAILABLE) {
+                    distance.setDistanceValue(meters[index]);
+                    distance.setDurationValue(seconds[index]);
+                    distance.setDistanceText(distanceTexts == null ? "" : distanceTexts[index]);
+                    distance.setDurationText(durationTexts == null ? "" : durationTexts[index]);
+                } else {
+                    distance.setDistanceValue(0);
+                    distance.setDurationValue(0);
+                    distance.setDistanceText("");
+                    distance.setDurationText("");
+                }
+                distances.add(distance);
+            }
+        }
+        return distances;
+    }
+
+    @Override
+    public String toString() {
+        return "DistanceMatrix{" +
+                "Origins=" + origins.length +
+                ", Destinations=" + destinations.length +
+                ", Texts=" + hasTexts() +
+                '}';
+    }
+}
@@ -0,0 +1,127 @@
+package in.teramatrix.googleservices.model;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A leg of a {@link Route}, that is the part of the route from one waypoint to the next one. A route without waypoints has a
+ * single leg. Distance is in meters and duration is in seconds. Steps are available only if they have been asked for.
+ */
+@SuppressWarnings("unused")
+public class Leg {
+    private String startAddress;
+    private String endAddress;
+    private LatLng startLocation;
+    private LatLng endLocation;
+    private String distanceText;
+    private int distanceValue;
+    private String durationText;
+    private int durationValue;
+    private List<Step> steps;
+
+    public Leg() {
+        this.steps = new ArrayList<>();
+    }
+
+    /**
+     * Copy constructor, steps are copied as well, see {@link Route#Route(Route)}
+     * @param leg to be copied
+     */
+    public Leg(Leg leg) {
+        this.startAddress = leg.startAddress;
+        this.endAddress = leg.endAddress;
+        this.startLocation = leg.startLocation;
+        this.endLocation = leg.endLocation;
+        this.distanceText = leg.distanceText;
+        this.distanceValue = leg.distanceValue;
+        this.durationText = leg.durationText;
+        this.durationValue = leg.durationValue;
+        this.steps = new ArrayList<>(leg.steps.size());
+        for (Step step : leg.steps)
+            this.steps.add(new Step(step));
+    }
+
+    public String getStartAddress() {
+        return startAddress;
+    }
+
+    public void setStartAddress(String startAddress) {
+        this.startAddress = startAddress;
+    }
+
+    public String getEndAddress() {
+        return endAddress;
+    }
+
+    public void setEndAddress(String endAddress) {
+        this.endAddress = endAddress;
+    }
+
+    public LatLng getStartLocation() {
+        return startLocation;
+    }
+
+    public void setStartLocation(LatLng startLocation) {
+        this.startLocation = startLocation;
+    }
+
+    public LatLng getEndLocation() {
+        return endLocation;
+    }
+
+    public void setEndLocation(LatLng endLocation) {
+        this.endLocation = endLocation;
+    }
+
+    public String getDistanceText() {
+        return distanceText;
+    }
+
+    public void setDistanceText(String distanceText) {
+        this.distanceText = distanceText;
+    }
+
+    public int getDistanceValue() {
+        return distanceValue;
+    }
+
+    public void setDistanceValue(int distanceValue) {
+        this.distanceValue = distanceValue;
+    }
+
+    public String getDurationText() {
+        return durationText;
+    }
+
+    public void setDurationText(String durationText) {
+        this.durationText = durationText;
+    }
+
+    public int getDurationValue() {
+        return durationValue;
+    }
+
+    public void setDurationValue(int durationValue) {
+        this.durationValue = durationValue;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public void setSteps(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    @Override
+    public String toString() {
+        return "Leg{" +
+                "From='" + startAddress + '\'' +
+                ", To='" + endAddress + '\'' +
+                ", Duration='" + durationText + '\'' +
+                ", Distance='" + distanceText + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,153 @@
+package in.teramatrix.googleservices.model;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable sequence of vertices kept as E5 fixed-point integers (degrees x 100000, the precision of encoded polylines) in a single
+ * interleaved array: latitude of vertex i is at 2i and its longitude is at 2i + 1. A path of tens of thousands of vertices is one
+ * int array here instead of as many {@link LatLng} objects, and it can be cleared and reused for the next route.
+ * {@link LatLng} objects are created only when asked for.
+ */
+@SuppressWarnings("unused")
+public class Path {
+
+    /**
+     * Scale of fixed-point coordinates
+     */
+    public static final double E5 = 1E5;
+
+    private int coordinates[];
+    private int size;
+
+    public Path() {
+        this(64);
+    }
+
+    /**
+     * @param capacity number of vertices which can be added without growing
+     */
+    public Path(int capacity) {
+        this.coordinates = new int[Math.max(1, capacity) * 2];
+    }
+
+    /**
+     * Path over an array which has already been filled, the array is not copied and it must not be modified afterwards
+     * @param coordinates interleaved E5 latitudes and longitudes
+     * @param size number of vertices in the array
+     */
+    public Path(int coordinates[], int size) {
+        if (size < 0 || size * 2 > coordinates.length)
+            throw new IllegalArgumentException("Size " + size + " out of " + coordinates.length / 2 + " vertices");
+        this.coordinates = coordinates.length == 0 ? new int[2] : coordinates;
+        this.size = size;
+    }
+
+    /**
+     * Copy constructor, vertices are copied into an array of their own
+     * @param path to be copied
+     */
+    public Path(Path path) {
+        this.coordinates = Arrays.copyOf(path.coordinates, Math.max(1, path.size) * 2);
+        this.size = path.size;
+    }
+
+    /**
+     * @return number of vertices
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the vertices but keeps the buffer for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity * 2 > coordinates.length)
+            coordinates = Arrays.copyOf(coordinates, Math.max(capacity * 2, coordinates.length * 2));
+    }
+
+    /**
+     * @param latE5 latitude x 100000
+     * @param lngE5 longitude x 100000
+     */
+    public void add(int latE5, int lngE5) {
+        if (size * 2 == coordinates.length)
+            coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+        coordinates[size * 2] = latE5;
+        coordinates[size * 2 + 1] = lngE5;
+        size++;
+    }
+
+    public void add(LatLng latLng) {
+        add((int) Math.round(latLng.latitude * E5), (int) Math.round(latLng.longitude * E5));
+    }
+
+    /**
+     * Appends vertices of another path, from start (inclusive) to end (exclusive)
+     */
+    public void addAll(Path path, int start, int end) {
+        ensureCapacity(size + end - start);
+        System.arraycopy(path.coordinates, start * 2, coordinates, size * 2, (end - start) * 2);
+        size += end - start;
+    }
+
+    public int getLatE5(int index) {
+        return coordinates[index * 2];
+    }
+
+    public int getLngE5(int index) {
+        return coordinates[index * 2 + 1];
+    }
+
+    public double getLatitude(int index) {
+        return coordinates[index * 2] / E5;
+    }
+
+    public double getLongitude(int index) {
+        return coordinates[index * 2 + 1] / E5;
+    }
+
+    /**
+     * @return a new {@link LatLng} of the vertex at this index
+     */
+    public LatLng getLatLng(int index) {
+        return new LatLng(getLatitude(index), getLongitude(index));
+    }
+
+    /**
+     * Backing array, it is not a copy and it may be longer than 2 x {@link #size()}; do not modify it.
+     * @return interleaved E5 latitudes and longitudes
+     */
+    public int[] getCoordinates() {
+        return coordinates;
+    }
+
+    /**
+     * @return vertices as {@link LatLng}, for the APIs of Google Maps which need them
+     */
+    public List<LatLng> toLatLngs() {
+        List<LatLng> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            list.add(getLatLng(i));
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return "Path{" +
+                "Vertices=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,137 @@
+package in.teramatrix.googleservices.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import in.teramatrix.googleservices.util.PolylineCodec;
+
+/**
+ * A route returned by Directions API. If alternatives have been asked for, there may be several routes between the same points,
+ * the first one is the route recommended by Google. Distance (meters) and duration (seconds) of a route are the sums of its legs.
+ * Geometry of the route is its decoded overview polyline, see {@link Path}.
+ */
+@SuppressWarnings("unused")
+public class Route {
+    private String summary;
+    private String encodedPolyline;
+    private Path path;
+    private List<Leg> legs;
+
+    public Route() {
+        this.legs = new ArrayList<>();
+    }
+
+    /**
+     * Copy constructor. A route is mutable, so cached routes are handed out as copies of the route, its legs, steps and paths, and
+     * a caller changing its copy does not change the cache or the routes of other callers.
+     * @param route to be copied
+     */
+    public Route(Route route) {
+        this.summary = route.summary;
+        synchronized (route) {
+            this.encodedPolyline = route.encodedPolyline;
+            this.path = route.path != null ? new Path(route.path) : null;
+        }
+        this.legs = new ArrayList<>(route.legs.size());
+        for (Leg leg : route.legs)
+            this.legs.add(new Leg(leg));
+    }
+
+    /**
+     * @return short textual description of the route, suitable for naming and disambiguating it from alternatives
+     */
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    /**
+     * @return overview polyline as it was received from the server, or encoded from the path at the first call if route has been
+     * built from a path only (for example read from a file)
+     */
+    public synchronized String getEncodedPolyline() {
+        if (encodedPolyline == null && path != null)
+            encodedPolyline = PolylineCodec.encode(path);
+        return encodedPolyline;
+    }
+
+    public synchronized void setEncodedPolyline(String encodedPolyline) {
+        this.encodedPolyline = encodedPolyline;
+    }
+
+    /**
+     * @return decoded overview polyline
+     */
+    public synchronized Path getPath() {
+        return path;
+    }
+
+    public synchronized void setPath(Path path) {
+        this.path = path;
+    }
+
+    public List<Leg> getLegs() {
+        return legs;
+    }
+
+    public void setLegs(List<Leg> legs) {
+        this.legs = legs;
+    }
+
+    /**
+     * @return total distance of all the legs in meters
+     */
+    public int getDistanceValue() {
+        int distance = 0;
+        for (Leg leg : legs) distance += leg.getDistanceValue();
+        return distance;
+    }
+
+    /**
+     * @return total duration of all the legs in seconds
+     */
+    public int getDurationValue() {
+        int duration = 0;
+        for (Leg leg : legs) duration += leg.getDurationValue();
+        return duration;
+    }
+
+    /**
+     * @param routes to be compared
+     * @return index of the route having least duration, -1 if there's no route
+     */
+    public static int getFastest(List<Route> routes) {
+        int fastest = -1;
+        for (int i = 0; i < routes.size(); i++) {
+            if (fastest == -1 || routes.get(i).getDurationValue() < routes.get(fastest).getDurationValue())
+                fastest = i;
+        }
+        return fastest;
+    }
+
+    /**
+     * @param routes to be compared
+     * @return index of the route having least distance, -1 if there's no route
+     */
+    public static int getShortest(List<Route> routes) {
+        int shortest = -1;
+        for (int i = 0; i < routes.size(); i++) {
+            if (shortest == -1 || routes.get(i).getDistanceValue() < routes.get(shortest).getDistanceValue())
+                shortest = i;
+        }
+        return shortest;
+    }
+
+    @Override
+    public String toString() {
+        return "Route{" +
+                "Summary='" + summary + '\'' +
+                ", Legs=" + legs.size() +
+                ", Distance=" + getDistanceValue() +
+                ", Duration=" + getDurationValue() +
+                '}';
+    }
+}
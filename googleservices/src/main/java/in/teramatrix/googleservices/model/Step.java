@@ -0,0 +1,162 @@
+package in.teramatrix.googleservices.model;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import in.teramatrix.googleservices.util.PolylineCodec;
+
+/**
+ * A single step of a {@link Leg}, that is one instruction of turn by turn directions. Polyline of a step is kept encoded and it is
+ * decoded only when {@link #getPath()} is called for the first time, so steps which are never drawn or snapped to cost only their
+ * encoded string. Distance is in meters and duration is in seconds.
+ */
+@SuppressWarnings("unused")
+public class Step {
+    private String instructions;
+    private String maneuver;
+    private String travelMode;
+    private LatLng startLocation;
+    private LatLng endLocation;
+    private String distanceText;
+    private int distanceValue;
+    private String durationText;
+    private int durationValue;
+    private String encodedPolyline;
+    private Path path;
+
+    public Step() {
+    }
+
+    /**
+     * Copy constructor, path is copied only if it has been decoded, see {@link Route#Route(Route)}
+     * @param step to be copied
+     */
+    public Step(Step step) {
+        this.instructions = step.instructions;
+        this.maneuver = step.maneuver;
+        this.travelMode = step.travelMode;
+        this.startLocation = step.startLocation;
+        this.endLocation = step.endLocation;
+        this.distanceText = step.distanceText;
+        this.distanceValue = step.distanceValue;
+        this.durationText = step.durationText;
+        this.durationValue = step.durationValue;
+        synchronized (step) {
+            this.encodedPolyline = step.encodedPolyline;
+            this.path = step.path != null ? new Path(step.path) : null;
+        }
+    }
+
+    /**
+     * @return instruction of this step as HTML text, for example "Turn &lt;b&gt;left&lt;/b&gt; onto ..."
+     */
+    public String getInstructions() {
+        return instructions;
+    }
+
+    public void setInstructions(String instructions) {
+        this.instructions = instructions;
+    }
+
+    /**
+     * @return action to take for this step, for example "turn-left", it may be null
+     */
+    public String getManeuver() {
+        return maneuver;
+    }
+
+    public void setManeuver(String maneuver) {
+        this.maneuver = maneuver;
+    }
+
+    public String getTravelMode() {
+        return travelMode;
+    }
+
+    public void setTravelMode(String travelMode) {
+        this.travelMode = travelMode;
+    }
+
+    public LatLng getStartLocation() {
+        return startLocation;
+    }
+
+    public void setStartLocation(LatLng startLocation) {
+        this.startLocation = startLocation;
+    }
+
+    public LatLng getEndLocation() {
+        return endLocation;
+    }
+
+    public void setEndLocation(LatLng endLocation) {
+        this.endLocation = endLocation;
+    }
+
+    public String getDistanceText() {
+        return distanceText;
+    }
+
+    public void setDistanceText(String distanceText) {
+        this.distanceText = distanceText;
+    }
+
+    public int getDistanceValue() {
+        return distanceValue;
+    }
+
+    public void setDistanceValue(int distanceValue) {
+        this.distanceValue = distanceValue;
+    }
+
+    public String getDurationText() {
+        return durationText;
+    }
+
+    public void setDurationText(String durationText) {
+        this.durationText = durationText;
+    }
+
+    public int getDurationValue() {
+        return durationValue;
+    }
+
+    public void setDurationValue(int durationValue) {
+        this.durationValue = durationValue;
+    }
+
+    public String getEncodedPolyline() {
+        return encodedPolyline;
+    }
+
+    public void setEncodedPolyline(String encodedPolyline) {
+        this.encodedPolyline = encodedPolyline;
+        this.path = null;
+    }
+
+    /**
+     * @return decoded polyline of this step, it is decoded at the first call and kept for the next calls
+     */
+    public synchronized Path getPath() {
+        if (path == null) {
+            path = new Path(encodedPolyline == null ? 1 : encodedPolyline.length() / 4);
+            if (encodedPolyline != null) PolylineCodec.decode(encodedPolyline, path);
+        }
+        return path;
+    }
+
+    /**
+     * @return true if polyline of this step has been decoded
+     */
+    public synchronized boolean isDecoded() {
+        return path != null;
+    }
+
+    @Override
+    public String toString() {
+        return "Step{" +
+                "Maneuver='" + maneuver + '\'' +
+                ", Duration='" + durationText + '\'' +
+                ", Distance='" + distanceText + '\'' +
+                '}';
+    }
+}
@@ -1,25 +1,41 @@
 package in.teramatrix.googleservices.service;
 
 import android.os.AsyncTask;
+import android.util.JsonReader;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.google.android.gms.maps.model.LatLng;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.URISyntaxException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import in.teramatrix.googleservices.GoogleServices;
 import in.teramatrix.googleservices.ResponseListener;
+import in.teramatrix.googleservices.cache.DistanceMatrixCache;
 import in.teramatrix.googleservices.exception.CorruptedResponseException;
 import in.teramatrix.googleservices.model.Distance;
+import in.teramatrix.googleservices.model.DistanceMatrix;
+import in.teramatrix.googleservices.model.Path;
 import in.teramatrix.googleservices.model.TravelMode;
+import in.teramatrix.googleservices.util.CallBatch;
+import in.teramatrix.googleservices.util.PolylineCodec;
 import in.teramatrix.googleservices.util.UrlManager;
 import in.teramatrix.googleservices.util.UrlSigner;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 import static in.teramatrix.googleservices.exception.CorruptedResponseException.NULL_RESPONSE;
 import static in.teramatrix.googleservices.exception.CorruptedResponseException.STATUS_NOT_OK;
@@ -36,7 +52,8 @@ import static in.teramatrix.googleservices.exception.CorruptedResponseException.
 @SuppressWarnings("unused")
 public class DistanceCalculator extends AsyncTask<String, Void, ArrayList<Distance>> {
     /**
-     * Server response without parsing
+     * Server response without parsing. It will be empty if the matrix was requested in several tiles, if some of its pairs were
+     * taken from {@link DistanceMatrixCache} or if retaining of json has been turned off, see {@link #setRetainJson(boolean)}
      */
     private String json;
 
@@ -74,30 +91,116 @@ public class DistanceCalculator extends AsyncTask<String, Void, ArrayList<Distan
      */
     private String origins[];
 
+    /**
+     * Coordinates of the origins and of the destinations, if these have been given as {@link LatLng} instead of addresses.
+     * Coordinates of a request are sent as a single encoded polyline ({@code enc:...:}), which is several times shorter than
+     * "latitude,longitude" texts, so more elements fit in a url and the server does not have to resolve any address.
+     * Precision of an encoded polyline is 5 decimal places, about a meter.
+     */
+    private LatLng originPoints[];
+    private LatLng destinationPoints[];
+
     /**
      * This will publish results to your app module. Just pass an implemented version of this listener in this class
      * and results will be in your hand.
      */
     private DistanceListener listener;
 
+    /**
+     * Listener for the compact result. If only this listener is set, no {@link Distance} objects will be created at all.
+     */
+    private MatrixListener matrixListener;
+
+    /**
+     * If true, display texts of distances and durations will also be kept in {@link DistanceMatrix}. These are always kept
+     * when a {@link DistanceListener} is set, because each {@link Distance} carries its texts.
+     */
+    private boolean retainTexts;
+
+    /**
+     * If false, the response will be parsed directly from the network stream and the raw json will never be held in memory
+     */
+    private boolean retainJson;
+
+    /**
+     * Result of the last calculation
+     */
+    private DistanceMatrix matrix;
+
+    /**
+     * Maximum number of elements (origins x destinations) in a single request. Larger matrices are split into tiles of at most
+     * this many elements, which are requested concurrently and stitched back in the original order.
+     */
+    private int maxElements;
+
+    /**
+     * Maximum number of origins, and also of destinations, in a single request.
+     */
+    private int maxDimension;
+
+    /**
+     * Maximum length of url of a single request. A tile whose url is longer than this will be split further.
+     */
+    private int maxUrlLength;
+
+    /**
+     * Maximum number of tiles which may be requested at the same time.
+     */
+    private int maxConcurrentRequests;
+
+    /**
+     * Fraction of a requested block which may be cells that are already cached, see {@link #setMaxOverFetch(double)}.
+     */
+    private double maxOverFetch;
+
+    /**
+     * Default limits of Google Maps Distance Matrix API for standard users
+     */
+    public static final int MAX_ELEMENTS = 100;
+    public static final int MAX_DIMENSION = 25;
+    public static final int MAX_URL_LENGTH = 8192;
+
     /**
      * Okhttp is a third party library to interact with the server. OkHttpClient is a factory for calls,
-     * which can be used to send HTTP requests and read their responses.
+     * which can be used to send HTTP requests and read their responses. Same client is shared by all the services,
+     * see {@link GoogleServices#getHttpClient()}
      */
-    private final OkHttpClient client = new OkHttpClient();
+    private final OkHttpClient client = GoogleServices.getHttpClient();
 
     public DistanceCalculator() {
         this.json = "";
+        //Default Settings
         this.mode = TravelMode.MODE_DRIVING;
+        this.maxElements = MAX_ELEMENTS;
+        this.maxDimension = MAX_DIMENSION;
+        this.maxUrlLength = MAX_URL_LENGTH;
+        this.maxConcurrentRequests = 4;
+        this.maxOverFetch = 0;
+        this.retainJson = true;
     }
 
     public DistanceCalculator(String ... origins) {
+        this();
         this.origins = origins;
-        this.mode = TravelMode.MODE_DRIVING;
+    }
+
+    public DistanceCalculator(LatLng ... origins) {
+        this();
+        this.originPoints = origins;
     }
 
     public DistanceCalculator setOrigins(String ... origins) {
         this.origins = origins;
+        this.originPoints = null;
+        return this;
+    }
+
+    /**
+     * @param origins coordinates of the origins, rows of the result will be in the same order
+     */
+    public DistanceCalculator setOrigins(LatLng ... origins) {
+        this.originPoints = origins;
+        this.origins = null;
         return this;
     }
 
@@ -126,12 +229,90 @@ public class DistanceCalculator extends AsyncTask<String, Void, ArrayList<Distan
         return this;
     }
 
+    /**
+     * Set this listener to receive the result as a primitive {@link DistanceMatrix} instead of a list of {@link Distance}.
+     * It is the better choice for large matrices, which are going to be read in loops.
+     */
+    public DistanceCalculator setMatrixListener(MatrixListener matrixListener) {
+        this.matrixListener = matrixListener;
+        return this;
+    }
+
+    public DistanceCalculator setRetainTexts(boolean retainTexts) {
+        this.retainTexts = retainTexts;
+        return this;
+    }
+
+    /**
+     * By default, raw response is kept and passed to the listeners. Turn it off for large matrices, the response will then be
+     * parsed token by token while it is being downloaded.
+     */
+    public DistanceCalculator setRetainJson(boolean retainJson) {
+        this.retainJson = retainJson;
+        return this;
+    }
+
+    /**
+     * @return result of the calculation, null until it has been finished successfully
+     */
+    public DistanceMatrix getMatrix() {
+        return matrix;
+    }
+
+    public DistanceCalculator setMaxElements(int maxElements) {
+        this.maxElements = maxElements;
+        return this;
+    }
+
+    public DistanceCalculator setMaxDimension(int maxDimension) {
+        this.maxDimension = maxDimension;
+        return this;
+    }
+
+    public DistanceCalculator setMaxUrlLength(int maxUrlLength) {
+        this.maxUrlLength = maxUrlLength;
+        return this;
+    }
+
+    public DistanceCalculator setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        return this;
+    }
+
+    /**
+     * By default only the missing cells of a partly cached matrix are requested, in as many blocks as it takes. Callers who prefer
+     * fewer requests to fewer elements may let rows missing nearly the same columns be requested together: the cached cells which
+     * fall in such a block are then requested again and billed like any other element (their cached values are refreshed), in
+     * exchange for fewer and larger requests, each of which costs a round trip, a slot of the request quota and the addresses of
+     * its url.
+     * @param maxOverFetch fraction (0 to 1) of the cells of a block which may be already cached, 0 by default
+     */
+    public DistanceCalculator setMaxOverFetch(double maxOverFetch) {
+        this.maxOverFetch = maxOverFetch;
+        return this;
+    }
+
     public void calculate(String ... destinations) {
         //If nothing to calculate
-        if (origins == null || destinations == null)
+        if ((origins == null && originPoints == null) || destinations == null)
+            throw new NullPointerException("Origin or Destination can not be null");
+
+        this.destinationPoints = null;
+        this.executeOnExecutor(GoogleServices.getExecutor(DistanceCalculator.class), destinations);
+    }
+
+    /**
+     * Same as {@link #calculate(String...)} but with coordinates, see {@link #destinationPoints}. Columns of the result will be
+     * in the same order as the destinations, so results can be mapped back by index, see {@link Distance#getDestinationIndex()}.
+     * @param destinations coordinates of the destinations
+     */
+    public void calculate(LatLng ... destinations) {
+        //If nothing to calculate
+        if ((origins == null && originPoints == null) || destinations == null)
             throw new NullPointerException("Origin or Destination can not be null");
 
-        this.execute(destinations);
+        this.destinationPoints = destinations;
+        this.executeOnExecutor(GoogleServices.getExecutor(DistanceCalculator.class));
     }
 
     @Override
@@ -139,61 +320,414 @@ public class DistanceCalculator extends AsyncTask<String, Void, ArrayList<Distan
         ArrayList<Distance> distances = new ArrayList<>();
 
         //If nothing to process then returning an empty list
-        if (origins == null || destinations == null)
+        if ((origins == null && originPoints == null) || (destinations == null && destinationPoints == null))
             return distances;
 
         try {
-            String url = buildUrl(destinations);
-            Request request = new Request.Builder().url(url).build();
-            json = client.newCall(request).execute().body().string();
-
-            if (!json.equals("")) {
-                JSONObject object = new JSONObject(json);
-                if (object.getString("status").equals("OK")) {
-                    JSONArray destAddresses = object.getJSONArray("destination_addresses");
-                    JSONArray orgAddresses = object.getJSONArray("origin_addresses");
-                    JSONArray rows = object.getJSONArray("rows");
-                    for (int i = 0; i < rows.length(); i++) {
-                        JSONArray elements = rows.getJSONObject(i).getJSONArray("elements");
-                        for (int j = 0; j < elements.length(); j++) {
-                            JSONObject element = elements.getJSONObject(j);
-                            Distance distance = new Distance();
-                            distance.setOrigin(orgAddresses.getString(i));
-                            distance.setDestination(destAddresses.getString(j));
-                            if (element.getString("status").equals("OK")) {
-                                distance.setDistanceText(element.getJSONObject("distance").getString("text"));
-                                distance.setDistanceValue(element.getJSONObject("distance").getInt("value"));
-                                distance.setDurationText(element.getJSONObject("duration").getString("text"));
-                                distance.setDurationValue(element.getJSONObject("duration").getInt("value"));
-                            } else {
-                                distance.setDistanceText("");
-                                distance.setDistanceValue(0);
-                                distance.setDurationText("");
-                                distance.setDurationValue(0);
-                            }
-                            distances.add(distance);
-                        }
-                    }
-                } else {
-                    if (listener != null) listener.onRequestFailure(new CorruptedResponseException(STATUS_NOT_OK));
+            DistanceMatrix result = destinationPoints != null ? calculateMatrix(destinationPoints) : calculateMatrix(destinations);
+            matrix = result;
+            //Expanding to objects only if someone is going to receive them
+            if (listener != null) distances = result.toDistances();
+        } catch (CorruptedResponseException e) {
+            onFailure(e);
+        } catch (Exception e) {
+            e.printStackTrace();
+            onFailure(e);
+        }
+        return distances;
+    }
+
+    /**
+     * Method will request and parse the whole matrix on the calling thread, so call it from a background thread only. It is used
+     * by {@link #doInBackground(String...)} and by other services which need a matrix in the middle of their own work.
+     * If a {@link DistanceMatrixCache} is enabled, recently calculated pairs are taken from it and the remaining cells are
+     * requested, along with the cached ones allowed by {@link #setMaxOverFetch(double)}, see {@link #plan(boolean[], int, int, double)}.
+     * @param destinations columns of the matrix, origins are rows
+     * @return matrix of all the origin destination pairs
+     */
+    DistanceMatrix calculateMatrix(String ... destinations) throws Exception {
+        return calculateMatrix(destinations, null);
+    }
+
+    /**
+     * Same as {@link #calculateMatrix(String...)} but with coordinates of the destinations
+     */
+    DistanceMatrix calculateMatrix(LatLng ... destinations) throws Exception {
+        return calculateMatrix(null, destinations);
+    }
+
+    /**
+     * @param destinations addresses of the destinations, or null if these are given as points
+     * @param destinationPoints coordinates of the destinations, or null if these are given as addresses
+     */
+    private DistanceMatrix calculateMatrix(final String destinations[], final LatLng destinationPoints[]) throws Exception {
+        int rows = originPoints != null ? originPoints.length : origins.length;
+        int columns = destinationPoints != null ? destinationPoints.length : destinations.length;
+        boolean texts = retainTexts || listener != null;
+        final DistanceMatrix result = new DistanceMatrix(rows, columns, texts);
+
+        //Cells which are not cached, all of them if caching is not enabled
+        boolean missing[] = new boolean[rows * columns];
+        DistanceMatrixCache cache = GoogleServices.getDistanceMatrixCache();
+        String keys[] = null;
+        if (cache != null) {
+            keys = getKeys(cache, destinations, destinationPoints);
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    int index = result.indexOf(row, column);
+                    DistanceMatrixCache.Element element = cache.get(keys[index]);
+                    if (element != null && (element.hasTexts() || !texts))
+                        element.copyTo(result, row, column);
+                    else
+                        missing[index] = true;
                 }
+            }
+        } else {
+            Arrays.fill(missing, true);
+        }
+
+        TileUrl url = new TileUrl() {
+            @Override
+            public String get(int rows[], int columns[]) throws Exception {
+                return buildUrl(getLocations(origins, originPoints, rows), getLocations(destinations, destinationPoints, columns));
+            }
+        };
+        List<Tile> tiles = new ArrayList<>();
+        for (int block[][] : plan(missing, rows, columns, maxOverFetch)) {
+            //Cached cells of the block are fetched again, so these are cached again along with the missing ones
+            for (int row : block[0]) {
+                for (int column : block[1])
+                    missing[row * columns + column] = true;
+            }
+            split(block[0], block[1], maxElements, maxDimension, maxUrlLength, url, tiles);
+        }
+
+        if (tiles.size() == 1 && tiles.get(0).rows.length == rows && tiles.get(0).columns.length == columns) {
+            //Whole matrix fits in a single request
+            Request request = new Request.Builder().url(tiles.get(0).url).build();
+            ResponseBody body = client.newCall(request).execute().body();
+            if (retainJson) {
+                json = body.string();
+                if (json.equals(""))
+                    throw new CorruptedResponseException(NULL_RESPONSE);
+                parse(new StringReader(json), tiles.get(0), result);
             } else {
-                if (listener != null) listener.onRequestFailure(new CorruptedResponseException(NULL_RESPONSE));
+                try {
+                    parse(body.charStream(), tiles.get(0), result);
+                } finally {
+                    body.close();
+                }
             }
-        } catch (IOException | JSONException | NoSuchAlgorithmException | InvalidKeyException | URISyntaxException e) {
-            e.printStackTrace();
-            if (listener != null) listener.onRequestFailure(e);
+        } else if (!tiles.isEmpty()) {
+            //Requesting all the tiles concurrently, each one is parsed from its stream straight into its own cells
+            List<String> urls = new ArrayList<>(tiles.size());
+            for (Tile tile : tiles) urls.add(tile.url);
+            final List<Tile> parts = tiles;
+            CallBatch.execute(client, urls, maxConcurrentRequests, new CallBatch.Parser<Void>() {
+                @Override
+                public Void parse(int index, Response response) throws Exception {
+                    DistanceCalculator.parse(response.body().charStream(), parts.get(index), result);
+                    return null;
+                }
+            });
         }
-        return distances;
+
+        //Every tile has succeeded, so each fetched cell holds its final value (unavailable ones included)
+        if (cache != null) {
+            for (int index = 0; index < missing.length; index++) {
+                if (missing[index])
+                    cache.put(keys[index], new DistanceMatrixCache.Element(result, index / columns, index % columns));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return cache keys of all the cells in row major order, every location is normalized only once
+     */
+    private String[] getKeys(DistanceMatrixCache cache, String destinations[], LatLng destinationPoints[]) {
+        long bucket = cache.getBucket();
+        String rowKeys[] = getKeys(origins, originPoints);
+        String columnKeys[] = getKeys(destinations, destinationPoints);
+
+        String keys[] = new String[rowKeys.length * columnKeys.length];
+        for (int row = 0; row < rowKeys.length; row++) {
+            for (int column = 0; column < columnKeys.length; column++)
+                keys[row * columnKeys.length + column] = DistanceMatrixCache.getKey(rowKeys[row], columnKeys[column], mode, bucket);
+        }
+        return keys;
+    }
+
+    /**
+     * @return normalized addresses, or coordinates rounded to the precision in which these are sent
+     */
+    static String[] getKeys(String addresses[], LatLng points[]) {
+        if (points == null) {
+            String keys[] = new String[addresses.length];
+            for (int i = 0; i < keys.length; i++)
+                keys[i] = DistanceMatrixCache.normalize(addresses[i]);
+            return keys;
+        }
+
+        String keys[] = new String[points.length];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = Math.round(points[i].latitude * Path.E5) / Path.E5 + "," + Math.round(points[i].longitude * Path.E5) / Path.E5;
+        return keys;
+    }
+
+    /**
+     * This method will work out the blocks to be requested so that every missing cell is covered exactly once. Rows are first
+     * grouped by the set of their missing columns: rows missing the same columns form one group of those rows and those columns.
+     * A matrix without any cached cell is a single group, and a column (or row) added to a cached matrix is a single thin group.
+     * <br/>
+     * Scattered cached cells would leave nearly one group per row though, so groups are then merged greedily, in the order of their
+     * first row: a group joins the block to which it adds the fewest cached cells, as long as at most maxOverFetch of the cells of
+     * the merged block are cached ones, otherwise it starts a block of its own. Every block is then split into API-legal tiles like
+     * any matrix.
+     * @param missing cells to be requested in row major order
+     * @param rows number of origins
+     * @param columns number of destinations
+     * @param maxOverFetch fraction of the cells of a block which may be already cached, zero to request only the missing cells
+     * @return blocks as pairs of row indexes and column indexes, empty if nothing is missing
+     */
+    static List<int[][]> plan(boolean missing[], int rows, int columns, double maxOverFetch) {
+        //Insertion order keeps groups in the order of their first row
+        Map<BitSet, List<Integer>> groups = new LinkedHashMap<>();
+        for (int row = 0; row < rows; row++) {
+            BitSet signature = new BitSet(columns);
+            for (int column = 0; column < columns; column++) {
+                if (missing[row * columns + column]) signature.set(column);
+            }
+            if (signature.isEmpty())
+                continue;
+            List<Integer> group = groups.get(signature);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(signature, group);
+            }
+            group.add(row);
+        }
+
+        List<Block> merged = new ArrayList<>(groups.size());
+        for (Map.Entry<BitSet, List<Integer>> group : groups.entrySet()) {
+            Block next = new Block(group.getValue(), group.getKey());
+            Block best = null;
+            long fewest = Long.MAX_VALUE;
+            for (Block block : merged) {
+                BitSet union = (BitSet) block.columns.clone();
+                union.or(next.columns);
+                long cells = (long) (block.rows.size() + next.rows.size()) * union.cardinality();
+                long cached = cells - block.missing - next.missing;
+                if (cached <= maxOverFetch * cells && cached < fewest) {
+                    fewest = cached;
+                    best = block;
+                }
+            }
+            if (best != null)
+                best.merge(next);
+            else
+                merged.add(next);
+        }
+
+        List<int[][]> blocks = new ArrayList<>(merged.size());
+        for (Block block : merged) {
+            Collections.sort(block.rows);
+            int blockRows[] = new int[block.rows.size()];
+            for (int i = 0; i < blockRows.length; i++)
+                blockRows[i] = block.rows.get(i);
+
+            int blockColumns[] = new int[block.columns.cardinality()];
+            for (int i = 0, column = block.columns.nextSetBit(0); column >= 0; i++, column = block.columns.nextSetBit(column + 1))
+                blockColumns[i] = column;
+            blocks.add(new int[][]{blockRows, blockColumns});
+        }
+        return blocks;
     }
 
     @Override
     protected void onPostExecute(ArrayList<Distance> distances) {
         super.onPostExecute(distances);
         if (listener != null) listener.onRequestCompleted(json, distances);
+        if (matrixListener != null && matrix != null) matrixListener.onRequestCompleted(json, matrix);
+    }
+
+    private void onFailure(Exception e) {
+        if (listener != null) listener.onRequestFailure(e);
+        if (matrixListener != null) matrixListener.onRequestFailure(e);
+    }
+
+    /**
+     * This method will split a block of the matrix into API-legal tiles. A tile has at most maxDimension origins and destinations,
+     * at most maxElements elements and a url not longer than maxUrlLength. Tiles are kept as square as possible, because a square
+     * tile needs the least number of addresses in its url for the same number of elements.
+     * @param rows indexes of the origins of the block
+     * @param columns indexes of the destinations of the block
+     * @param url builder of the url of a tile
+     * @param tiles list in which tiles will be collected, along with their urls
+     */
+    static void split(int rows[], int columns[], int maxElements, int maxDimension, int maxUrlLength, TileUrl url, List<Tile> tiles) throws Exception {
+        int side = Math.max(1, (int) Math.sqrt(maxElements));
+        int tileRows = Math.min(rows.length, Math.min(maxDimension, side));
+        int tileColumns = Math.max(1, Math.min(columns.length, Math.min(maxDimension, maxElements / tileRows)));
+        tileRows = Math.max(1, Math.min(rows.length, Math.min(maxDimension, maxElements / tileColumns)));
+
+        for (int row = 0; row < rows.length; row += tileRows) {
+            for (int column = 0; column < columns.length; column += tileColumns) {
+                Tile tile = new Tile(Arrays.copyOfRange(rows, row, Math.min(row + tileRows, rows.length)),
+                        Arrays.copyOfRange(columns, column, Math.min(column + tileColumns, columns.length)));
+                tile.url = url.get(tile.rows, tile.columns);
+
+                int tileRowCount = tile.rows.length;
+                int tileColumnCount = tile.columns.length;
+                if (tile.url.length() <= maxUrlLength || tileRowCount * tileColumnCount == 1) {
+                    tiles.add(tile);
+                } else if (tileRowCount >= tileColumnCount) {
+                    //Url is too long, splitting it further along the larger side
+                    int middle = tileRowCount / 2;
+                    split(Arrays.copyOfRange(tile.rows, 0, middle), tile.columns, maxElements, maxDimension, maxUrlLength, url, tiles);
+                    split(Arrays.copyOfRange(tile.rows, middle, tileRowCount), tile.columns, maxElements, maxDimension, maxUrlLength, url, tiles);
+                } else {
+                    int middle = tileColumnCount / 2;
+                    split(tile.rows, Arrays.copyOfRange(tile.columns, 0, middle), maxElements, maxDimension, maxUrlLength, url, tiles);
+                    split(tile.rows, Arrays.copyOfRange(tile.columns, middle, tileColumnCount), maxElements, maxDimension, maxUrlLength, url, tiles);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param addresses all the locations of a side, or null if these are given as points
+     * @param points all the locations of a side, or null if these are given as addresses
+     * @param indexes of the locations of a tile
+     * @return locations of the tile as they go in the url, points are sent as a single encoded polyline
+     */
+    static String[] getLocations(String addresses[], LatLng points[], int indexes[]) {
+        if (points != null) {
+            Path path = new Path(indexes.length);
+            for (int index : indexes) path.add(points[index]);
+            return new String[]{"enc:" + PolylineCodec.encode(path) + ":"};
+        }
+
+        String selected[] = new String[indexes.length];
+        for (int i = 0; i < indexes.length; i++)
+            selected[i] = addresses[indexes[i]];
+        return selected;
+    }
+
+    /**
+     * Method will parse the response of a tile token by token and place its elements at their original position in the matrix.
+     * Neither the whole response nor a JSON tree is built, so memory does not grow with the size of the response.
+     * Status of the response comes after the rows, so cells are filled first and the status is checked at the end.
+     * @param in response of the tile
+     * @param tile position of the tile in the matrix
+     * @param matrix the whole matrix
+     */
+    private static void parse(Reader in, Tile tile, DistanceMatrix matrix) throws IOException, CorruptedResponseException {
+        JsonReader reader = new JsonReader(in);
+        String status = null;
+        try {
+            reader.beginObject();
+        } catch (EOFException e) {
+            throw new CorruptedResponseException(NULL_RESPONSE);
+        }
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("status")) {
+                status = reader.nextString();
+            } else if (name.equals("origin_addresses")) {
+                reader.beginArray();
+                for (int i = 0; reader.hasNext(); i++) {
+                    String address = reader.nextString();
+                    if (i < tile.rows.length) matrix.setOrigin(tile.rows[i], address);
+                }
+                reader.endArray();
+            } else if (name.equals("destination_addresses")) {
+                reader.beginArray();
+                for (int j = 0; reader.hasNext(); j++) {
+                    String address = reader.nextString();
+                    if (j < tile.columns.length) matrix.setDestination(tile.columns[j], address);
+                }
+                reader.endArray();
+            } else if (name.equals("rows")) {
+                reader.beginArray();
+                for (int i = 0; reader.hasNext(); i++) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.nextName().equals("elements")) {
+                            reader.beginArray();
+                            for (int j = 0; reader.hasNext(); j++)
+                                parseElement(reader, tile, i, j, matrix);
+                            reader.endArray();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!"OK".equals(status))
+            throw new CorruptedResponseException(STATUS_NOT_OK);
+    }
+
+    /**
+     * Method will parse the response of a whole matrix, as a single tile. It is the entry point of tests and benchmarks of the parser.
+     * @param in response of the matrix
+     * @param matrix to be filled, of the size of the response
+     */
+    static void parse(Reader in, DistanceMatrix matrix) throws IOException, CorruptedResponseException {
+        int rows[] = new int[matrix.getRowCount()];
+        int columns[] = new int[matrix.getColumnCount()];
+        for (int i = 0; i < rows.length; i++) rows[i] = i;
+        for (int j = 0; j < columns.length; j++) columns[j] = j;
+        parse(in, new Tile(rows, columns), matrix);
+    }
+
+    /**
+     * Method will parse a single element of a row. Its values are kept only if its own status is OK.
+     */
+    private static void parseElement(JsonReader reader, Tile tile, int i, int j, DistanceMatrix matrix) throws IOException {
+        String status = null;
+        int meters = DistanceMatrix.UNAVAILABLE;
+        int seconds = DistanceMatrix.UNAVAILABLE;
+        String distanceText = null;
+        String durationText = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("status")) {
+                status = reader.nextString();
+            } else if (name.equals("distance") || name.equals("duration")) {
+                boolean distance = name.equals("distance");
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    if (field.equals("value")) {
+                        if (distance) meters = reader.nextInt(); else seconds = reader.nextInt();
+                    } else if (field.equals("text")) {
+                        if (distance) distanceText = reader.nextString(); else durationText = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if ("OK".equals(status) && i < tile.rows.length && j < tile.columns.length)
+            matrix.set(tile.rows[i], tile.columns[j], meters, seconds, distanceText, durationText);
     }
 
-    private String buildUrl(String [] destinations) throws IOException, URISyntaxException, NoSuchAlgorithmException, InvalidKeyException {
+    private String buildUrl(String [] origins, String [] destinations) throws IOException, URISyntaxException, NoSuchAlgorithmException, InvalidKeyException {
         if (clientId != null && cryptoKey != null) {
             return UrlManager.getDistanceMatrixUrl(origins, destinations, mode, clientId, cryptoKey);
         } else if (serverKey != null) {
@@ -203,6 +737,53 @@ public class DistanceCalculator extends AsyncTask<String, Void, ArrayList<Distan
         }
     }
 
+    /**
+     * A single request of the matrix, its origins are rows and its destinations are columns of the matrix at the given indexes.
+     * Indexes need not be contiguous, a tile of a partly cached matrix skips the cached rows and columns.
+     */
+    static class Tile {
+        final int rows[];
+        final int columns[];
+        String url;
+
+        Tile(int rows[], int columns[]) {
+            this.rows = rows;
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * Builds the url of a tile from the indexes of its origins and destinations, see {@link #split(int[], int[], int, int, int, TileUrl, List)}
+     */
+    interface TileUrl {
+        String get(int rows[], int columns[]) throws Exception;
+    }
+
+    /**
+     * Rows and columns of the matrix to be requested together, while the blocks are being worked out by {@link #plan(boolean[], int, int, double)}
+     */
+    private static class Block {
+        private final List<Integer> rows;
+        private final BitSet columns;
+
+        /**
+         * Number of cells of the block which are not cached
+         */
+        private long missing;
+
+        private Block(List<Integer> rows, BitSet columns) {
+            this.rows = rows;
+            this.columns = columns;
+            this.missing = (long) rows.size() * columns.cardinality();
+        }
+
+        private void merge(Block other) {
+            rows.addAll(other.rows);
+            columns.or(other.columns);
+            missing += other.missing;
+        }
+    }
+
     /**
      * An interface to publish results in the caller classes. By implementing this,
      * end user of the module can access final results.
@@ -218,4 +799,19 @@ public class DistanceCalculator extends AsyncTask<String, Void, ArrayList<Distan
          */
         void onRequestCompleted(String json, ArrayList<Distance> distances);
     }
+
+    /**
+     * An interface to publish the compact result in the caller classes.
+     */
+    public interface MatrixListener extends ResponseListener {
+        /**
+         * This method will be invoked on a successful http request.
+         * @param json
+         * It is the response received from the server after request, empty if the matrix was requested in several tiles.
+         * @param matrix
+         * distances and durations of all the origin destination pairs
+         * @see DistanceMatrix
+         */
+        void onRequestCompleted(String json, DistanceMatrix matrix);
+    }
 }
\ No newline at end of file
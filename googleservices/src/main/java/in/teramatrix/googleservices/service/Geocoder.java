@@ -9,9 +9,14 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
 
+import in.teramatrix.googleservices.GoogleServices;
 import in.teramatrix.googleservices.ResponseListener;
+import in.teramatrix.googleservices.cache.GeocodingCache;
+import in.teramatrix.googleservices.cache.PersistentCache;
 import in.teramatrix.googleservices.exception.CorruptedResponseException;
+import in.teramatrix.googleservices.util.SingleFlight;
 import in.teramatrix.googleservices.util.UrlManager;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -31,7 +36,13 @@ import static in.teramatrix.googleservices.exception.CorruptedResponseException.
 public class Geocoder extends AsyncTask<String, Void, LatLng> {
 
     /**
-     * Server response without parsing
+     * Identical requests which are running at the same time share one network call and one parse.
+     */
+    private static final SingleFlight<Result> coalescer = new SingleFlight<>();
+
+    /**
+     * Server response without parsing. It will be empty if the result has been served from {@link GeocodingCache}
+     * or {@link PersistentCache}.
      */
     private String json;
 
@@ -43,9 +54,10 @@ public class Geocoder extends AsyncTask<String, Void, LatLng> {
 
     /**
      * Okhttp is a third party library to interact with the server. OkHttpClient is a factory for calls,
-     * which can be used to send HTTP requests and read their responses.
+     * which can be used to send HTTP requests and read their responses. Same client is shared by all the services,
+     * see {@link GoogleServices#getHttpClient()}
      */
-    private final OkHttpClient client = new OkHttpClient();
+    private final OkHttpClient client = GoogleServices.getHttpClient();
 
     public Geocoder() {
         json = "";
@@ -55,6 +67,20 @@ public class Geocoder extends AsyncTask<String, Void, LatLng> {
         this.listener = listener;
     }
 
+    /**
+     * @return number of geocoding calls actually sent to the server
+     */
+    public static long getExecutedCount() {
+        return coalescer.getExecutedCount();
+    }
+
+    /**
+     * @return number of geocoding requests which were served by an identical request already in flight
+     */
+    public static long getCollapsedCount() {
+        return coalescer.getCollapsedCount();
+    }
+
     @Override
     protected LatLng doInBackground(String... params) {
         LatLng geocoded = new LatLng(0,0);
@@ -62,27 +88,44 @@ public class Geocoder extends AsyncTask<String, Void, LatLng> {
         //If nothing to geo code
         if (params[0].equals("")) return geocoded;
 
+        //If it has been geocoded recently
+        final String address = params[0];
+        final GeocodingCache cache = GoogleServices.getGeocodingCache();
+        if (cache != null) {
+            LatLng cached = cache.get(address);
+            if (cached != null) return cached;
+        }
+
+        //If it has been geocoded before, may be in a previous session
+        final PersistentCache disk = GoogleServices.getPersistentCache();
+        if (disk != null) {
+            LatLng stored = disk.getLatLng(address);
+            if (stored != null) {
+                if (cache != null) cache.put(address, stored);
+                return stored;
+            }
+        }
+
         try {
-            Request request = new Request.Builder().url(UrlManager.getGeoCodingApiUrl(params[0])).build();
-            json = client.newCall(request).execute().body().string();
-            if (!json.equals("")) {
-                JSONObject object = new JSONObject(json);
-                if (object.getString("status").equals("OK")) {
-                    JSONArray array = object.getJSONArray("results");
-                    if (array.length() > 0) {
-                        JSONObject data = array.getJSONObject(0);
-                        JSONObject location = data.getJSONObject("geometry").getJSONObject("location");
-                        geocoded = new LatLng(location.getDouble("lat"), location.getDouble("lng"));
-                    } else {
-                        if (listener != null) listener.onRequestFailure(new CorruptedResponseException(EMPTY_ARRAY));
+            final String url = UrlManager.getGeoCodingApiUrl(address);
+            Result result = coalescer.execute(GeocodingCache.getRequestKey(address), new Callable<Result>() {
+                @Override
+                public Result call() throws Exception {
+                    Result result = fetch(url);
+                    if (result.failure == null) {
+                        if (cache != null) cache.put(address, result.latLng);
+                        if (disk != null) disk.putLatLng(address, result.latLng);
                     }
-                } else {
-                    if (listener != null) listener.onRequestFailure(new CorruptedResponseException(STATUS_NOT_OK));
+                    return result;
                 }
+            });
+            json = result.json;
+            if (result.failure != null) {
+                if (listener != null) listener.onRequestFailure(result.failure);
             } else {
-                if (listener != null) listener.onRequestFailure(new CorruptedResponseException(NULL_RESPONSE));
+                geocoded = result.latLng;
             }
-        } catch (IOException | JSONException e) {
+        } catch (Exception e) {
             e.printStackTrace();
             if (listener != null) listener.onRequestFailure(e);
         }
@@ -95,6 +138,49 @@ public class Geocoder extends AsyncTask<String, Void, LatLng> {
         if (listener != null) listener.onRequestCompleted(json, latLng);
     }
 
+    /**
+     * Method will make the http call and parse the response. It may be shared by several concurrent requests,
+     * so it must not touch the state of this instance.
+     * @param url of Geocoding API
+     * @return raw response and parsed {@link LatLng} or the cause of failure
+     */
+    private Result fetch(String url) throws IOException, JSONException {
+        Request request = new Request.Builder().url(url).build();
+        String json = client.newCall(request).execute().body().string();
+        if (!json.equals("")) {
+            JSONObject object = new JSONObject(json);
+            if (object.getString("status").equals("OK")) {
+                JSONArray array = object.getJSONArray("results");
+                if (array.length() > 0) {
+                    JSONObject data = array.getJSONObject(0);
+                    JSONObject location = data.getJSONObject("geometry").getJSONObject("location");
+                    return new Result(json, new LatLng(location.getDouble("lat"), location.getDouble("lng")), null);
+                } else {
+                    return new Result(json, null, new CorruptedResponseException(EMPTY_ARRAY));
+                }
+            } else {
+                return new Result(json, null, new CorruptedResponseException(STATUS_NOT_OK));
+            }
+        } else {
+            return new Result(json, null, new CorruptedResponseException(NULL_RESPONSE));
+        }
+    }
+
+    /**
+     * Outcome of a single network call, shared by all the requests which were coalesced into it.
+     */
+    private static class Result {
+        private final String json;
+        private final LatLng latLng;
+        private final Exception failure;
+
+        private Result(String json, LatLng latLng, Exception failure) {
+            this.json = json;
+            this.latLng = latLng;
+            this.failure = failure;
+        }
+    }
+
     /**
      * An interface to publish results in the caller classes. By implementing this,
      * end user of the module can access final results.
@@ -110,4 +196,4 @@ public class Geocoder extends AsyncTask<String, Void, LatLng> {
          */
         void onRequestCompleted(String json, LatLng latLng);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,222 @@
+package in.teramatrix.googleservices.service;
+
+import android.os.AsyncTask;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import in.teramatrix.googleservices.GoogleServices;
+import in.teramatrix.googleservices.ResponseListener;
+import in.teramatrix.googleservices.exception.CorruptedResponseException;
+import in.teramatrix.googleservices.model.DistanceMatrix;
+import in.teramatrix.googleservices.model.TravelMode;
+import in.teramatrix.googleservices.util.CoordinateUtilities;
+
+/**
+ * Finds the candidates nearest to an origin by road, for example the nearest 5 of 500 sites by drive time. Asking road distances of
+ * every candidate costs one matrix element each, so candidates are first ranked by great circle distance on the device (see
+ * {@link CoordinateUtilities#getNearest(double, double, double[], double[], int)}) and only a shortlist of the top few, with a safety
+ * margin, is sent to {@link DistanceCalculator}. Roads are rarely straight, so a candidate slightly farther as the crow flies may be
+ * nearer by road; the margin decides how many such candidates are still considered. It is easy to use class having Builder Pattern.
+ */
+@SuppressWarnings("unused")
+public class NearestFinder extends AsyncTask<LatLng, Void, int[]> {
+
+    /**
+     * Point from which candidates are measured
+     */
+    private LatLng origin;
+
+    /**
+     * Number of nearest candidates to be found
+     */
+    private int count;
+
+    /**
+     * Shortlist is this many times the count, for example 2 means twice as many candidates are asked as are to be found
+     */
+    private double margin;
+
+    /**
+     * Mode of transport for the distance matrix, see {@link TravelMode}
+     */
+    private String mode;
+
+    /**
+     * Keys of Distance Matrix API, see {@link DistanceCalculator}
+     */
+    private String serverKey;
+    private String clientId;
+    private String cryptoKey;
+
+    /**
+     * If true, candidates will be ranked by road distance, otherwise by duration
+     */
+    private boolean byDistance;
+
+    /**
+     * Road distances and durations of the nearest candidates, in the order of the result
+     */
+    private int meters[];
+    private int seconds[];
+
+    /**
+     * This will publish results to your app module. Just pass an implemented version of this listener in this class
+     * and results will be in your hand.
+     */
+    private NearestListener listener;
+
+    public NearestFinder() {
+        //Default Settings
+        this.mode = TravelMode.MODE_DRIVING;
+        this.count = 1;
+        this.margin = 2;
+        this.byDistance = false;
+    }
+
+    public NearestFinder setOrigin(LatLng origin) {
+        this.origin = origin;
+        return this;
+    }
+
+    public NearestFinder setCount(int count) {
+        this.count = count;
+        return this;
+    }
+
+    /**
+     * @param margin size of the shortlist as a multiple of the count, at least 1. Larger margin is more exact but costs more elements.
+     */
+    public NearestFinder setMargin(double margin) {
+        this.margin = margin;
+        return this;
+    }
+
+    public NearestFinder setMode(String mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    public NearestFinder setServerKey(String serverKey) {
+        this.serverKey = serverKey;
+        return this;
+    }
+
+    public NearestFinder setClientId(String clientId) {
+        this.clientId = clientId;
+        return this;
+    }
+
+    public NearestFinder setCryptoKey(String cryptoKey) {
+        this.cryptoKey = cryptoKey;
+        return this;
+    }
+
+    public NearestFinder setByDistance(boolean byDistance) {
+        this.byDistance = byDistance;
+        return this;
+    }
+
+    public NearestFinder setResponseListener(NearestListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * It is just like build method of Builder Pattern. It will execute this {@link AsyncTask} on the
+     * executor of this service, see {@link GoogleServices#getExecutor(Class)}
+     * @param candidates points among which the nearest ones will be found
+     */
+    public void find(LatLng ... candidates) {
+        //If origin or candidates are null
+        if (origin == null || candidates == null)
+            throw new NullPointerException("Origin or Candidates can not be null");
+        if (count <= 0 || margin < 1)
+            throw new IllegalArgumentException("Count must be positive and margin must be at least 1");
+
+        this.executeOnExecutor(GoogleServices.getExecutor(NearestFinder.class), candidates);
+    }
+
+    @Override
+    protected int[] doInBackground(LatLng... candidates) {
+        try {
+            //Shortlisting by great circle distance
+            int size = candidates.length;
+            double latitudes[] = new double[size];
+            double longitudes[] = new double[size];
+            for (int i = 0; i < size; i++) {
+                latitudes[i] = candidates[i].latitude;
+                longitudes[i] = candidates[i].longitude;
+            }
+            int shortlist[] = CoordinateUtilities.getNearest(origin.latitude, origin.longitude, latitudes, longitudes,
+                    (int) Math.ceil(count * margin));
+            if (shortlist.length == 0)
+                return new int[0];
+
+            LatLng points[] = new LatLng[shortlist.length];
+            for (int i = 0; i < points.length; i++)
+                points[i] = candidates[shortlist[i]];
+
+            DistanceMatrix matrix = new DistanceCalculator(origin)
+                    .setMode(mode)
+                    .setServerKey(serverKey)
+                    .setClientId(clientId)
+                    .setCryptoKey(cryptoKey)
+                    .setRetainJson(false)
+                    .calculateMatrix(points);
+
+            //Sorting the shortlist by road cost, it is small so insertion sort will do; unreachable candidates are dropped
+            int costs[] = byDistance ? matrix.getDistances() : matrix.getDurations();
+            int order[] = new int[shortlist.length];
+            int available = 0;
+            for (int i = 0; i < shortlist.length; i++) {
+                if (costs[i] == DistanceMatrix.UNAVAILABLE)
+                    continue;
+                int j = available++;
+                while (j > 0 && costs[order[j - 1]] > costs[i]) {
+                    order[j] = order[j - 1];
+                    j--;
+                }
+                order[j] = i;
+            }
+
+            int nearest[] = new int[Math.min(count, available)];
+            meters = new int[nearest.length];
+            seconds = new int[nearest.length];
+            for (int i = 0; i < nearest.length; i++) {
+                nearest[i] = shortlist[order[i]];
+                meters[i] = matrix.getDistance(0, order[i]);
+                seconds[i] = matrix.getDuration(0, order[i]);
+            }
+            return nearest;
+        } catch (CorruptedResponseException e) {
+            if (listener != null) listener.onRequestFailure(e);
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (listener != null) listener.onRequestFailure(e);
+        }
+        return null;
+    }
+
+    @Override
+    protected void onPostExecute(int[] nearest) {
+        super.onPostExecute(nearest);
+        if (nearest == null)
+            return;
+
+        if (listener != null) listener.onRequestCompleted(nearest, meters, seconds);
+    }
+
+    /**
+     * An interface to publish results in the caller classes. By implementing this,
+     * end user of the module can access final results.
+     */
+    public interface NearestListener extends ResponseListener {
+        /**
+         * This method will be invoked once the nearest candidates have been found.
+         * @param indexes of the nearest candidates in the given candidates, nearest first
+         * @param meters road distances of these candidates
+         * @param seconds durations of these candidates
+         */
+        void onRequestCompleted(int[] indexes, int[] meters, int[] seconds);
+    }
+}
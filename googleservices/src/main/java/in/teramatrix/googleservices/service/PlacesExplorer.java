@@ -11,7 +11,9 @@ import org.json.JSONObject;
 import java.io.IOException;
 import java.util.ArrayList;
 
+import in.teramatrix.googleservices.GoogleServices;
 import in.teramatrix.googleservices.ResponseListener;
+import in.teramatrix.googleservices.cache.PersistentCache;
 import in.teramatrix.googleservices.exception.CorruptedResponseException;
 import in.teramatrix.googleservices.model.Place;
 import in.teramatrix.googleservices.util.UrlManager;
@@ -35,7 +37,7 @@ import static in.teramatrix.googleservices.exception.CorruptedResponseException.
 public class PlacesExplorer extends AsyncTask<String, Void, ArrayList<Place>> {
 
     /**
-     * Server response without parsing
+     * Server response without parsing. It will be empty if the result has been served from {@link PersistentCache}.
      */
     private String json;
 
@@ -83,9 +85,10 @@ public class PlacesExplorer extends AsyncTask<String, Void, ArrayList<Place>> {
 
     /**
      * Okhttp is a third party library to interact with the server. OkHttpClient is a factory for calls,
-     * which can be used to send HTTP requests and read their responses.
+     * which can be used to send HTTP requests and read their responses. Same client is shared by all the services,
+     * see {@link GoogleServices#getHttpClient()}
      */
-    private final OkHttpClient client = new OkHttpClient();
+    private final OkHttpClient client = GoogleServices.getHttpClient();
 
     public PlacesExplorer() {
         this.json = "";
@@ -126,7 +129,8 @@ public class PlacesExplorer extends AsyncTask<String, Void, ArrayList<Place>> {
     }
 
     /**
-     * It is just like build method of Builder Pattern. It will execute this {@link AsyncTask}
+     * It is just like build method of Builder Pattern. It will execute this {@link AsyncTask} on the
+     * executor of this service, see {@link GoogleServices#getExecutor(Class)}
      * @param places to be searched/explore for example "bar", "restaurant" <br/>
      *               See <a href="https://developers.google.com/places/supported_types#table1">full list of supported types</a>
      */
@@ -138,7 +142,7 @@ public class PlacesExplorer extends AsyncTask<String, Void, ArrayList<Place>> {
         if (location == null)
             throw new NullPointerException("Location can not be null");
 
-        this.execute(places);
+        this.executeOnExecutor(GoogleServices.getExecutor(PlacesExplorer.class), places);
     }
 
     @Override
@@ -149,9 +153,17 @@ public class PlacesExplorer extends AsyncTask<String, Void, ArrayList<Place>> {
         if (params.length <= 0) return places;
 
         try {
+            String url = UrlManager.getPlacesApiUrl(location, params, radius, rankBy, sensor, key);
+
+            //If same places have been explored before, may be in a previous session
+            PersistentCache disk = GoogleServices.getPersistentCache();
+            if (disk != null) {
+                ArrayList<Place> stored = disk.getPlaces(url);
+                if (stored != null) return stored;
+            }
+
             //Building request and making call
-            Request request = new Request.Builder().url(UrlManager.getPlacesApiUrl
-                    (location, params, radius, rankBy, sensor, key)).build();
+            Request request = new Request.Builder().url(url).build();
             Response response = client.newCall(request).execute();
 
             if (response.isSuccessful()) {
@@ -173,13 +185,15 @@ public class PlacesExplorer extends AsyncTask<String, Void, ArrayList<Place>> {
                         place.setLocation(new LatLng(location.getDouble("lat"), location.getDouble("lng")));
                         places.add(place);
                     }
+                    if (disk != null) disk.putPlaces(url, places);
                 } else {
                     //If Google's API status is not ok
                     if (listener != null)
                         listener.onRequestFailure(new CorruptedResponseException(STATUS_NOT_OK));
                 }
             } else {
-                //If response is not successful
+                //If response is not successful, releasing the connection back to the shared pool
+                response.body().close();
                 if (listener != null)
                     listener.onRequestFailure(new CorruptedResponseException(NULL_RESPONSE));
             }
@@ -10,10 +10,15 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
 
+import in.teramatrix.googleservices.GoogleServices;
 import in.teramatrix.googleservices.ResponseListener;
+import in.teramatrix.googleservices.cache.PersistentCache;
+import in.teramatrix.googleservices.cache.ReverseGeocodingCache;
 import in.teramatrix.googleservices.exception.CorruptedResponseException;
 import in.teramatrix.googleservices.model.Address;
+import in.teramatrix.googleservices.util.SingleFlight;
 import in.teramatrix.googleservices.util.UrlManager;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -34,7 +39,13 @@ import static in.teramatrix.googleservices.exception.CorruptedResponseException.
 public class ReverseGeocoder extends AsyncTask<LatLng, Void, Address> {
 
     /**
-     * Server response without parsing
+     * Identical requests which are running at the same time share one network call and one parse.
+     */
+    private static final SingleFlight<Result> coalescer = new SingleFlight<>();
+
+    /**
+     * Server response without parsing. It will be empty if the result has been served from {@link ReverseGeocodingCache}
+     * or {@link PersistentCache}.
      */
     private String json;
 
@@ -51,9 +62,10 @@ public class ReverseGeocoder extends AsyncTask<LatLng, Void, Address> {
 
     /**
      * Okhttp is a third party library to interact with the server. OkHttpClient is a factory for calls,
-     * which can be used to send HTTP requests and read their responses.
+     * which can be used to send HTTP requests and read their responses. Same client is shared by all the services,
+     * see {@link GoogleServices#getHttpClient()}
      */
-    private final OkHttpClient client = new OkHttpClient();
+    private final OkHttpClient client = GoogleServices.getHttpClient();
 
     public ReverseGeocoder() {
         json = "";
@@ -64,54 +76,58 @@ public class ReverseGeocoder extends AsyncTask<LatLng, Void, Address> {
         this.listener = listener;
     }
 
+    /**
+     * @return number of reverse geocoding calls actually sent to the server
+     */
+    public static long getExecutedCount() {
+        return coalescer.getExecutedCount();
+    }
+
+    /**
+     * @return number of reverse geocoding requests which were served by an identical request already in flight
+     */
+    public static long getCollapsedCount() {
+        return coalescer.getCollapsedCount();
+    }
+
     @Override
     protected Address doInBackground(LatLng... params) {
+        //If a point nearby has been reverse geocoded recently
+        final LatLng latLng = params[0];
+        final ReverseGeocodingCache cache = GoogleServices.getReverseGeocodingCache();
+        if (cache != null) {
+            Address cached = cache.get(latLng);
+            if (cached != null) return cached;
+        }
+
+        //If it has been reverse geocoded before, may be in a previous session
+        final PersistentCache disk = GoogleServices.getPersistentCache();
+        if (disk != null) {
+            Address stored = disk.getAddress(latLng);
+            if (stored != null) {
+                if (cache != null) cache.put(latLng, stored);
+                return stored;
+            }
+        }
+
         try {
-            Request request = new Request.Builder().url(UrlManager.getReverseGeoCodingApiUrl(params[0])).build();
-            Response response = client.newCall(request).execute();
-            if (response.isSuccessful()) {
-                //Parsing JSON
-                json = response.body().string();
-                JSONObject object = new JSONObject(json);
-                String Status = object.getString("status");
-                if (Status.equalsIgnoreCase("OK")) {
-                    //If every thing is alright
-                    JSONArray Results = object.getJSONArray("results");
-                    JSONObject zero = Results.getJSONObject(0);
-                    JSONArray address_components = zero.getJSONArray("address_components");
-
-                    for (int i = 0; i < address_components.length(); i++) {
-                        JSONObject zero2 = address_components.getJSONObject(i);
-                        String long_name = zero2.getString("long_name");
-                        JSONArray mtypes = zero2.getJSONArray("types");
-                        String Type = mtypes.getString(0);
-                        if (TextUtils.isEmpty(long_name) == false || !long_name.equals(null) || long_name.length() > 0 || long_name != "") {
-                            if (Type.equalsIgnoreCase("street_number")) {
-                                address.setAddressOne(long_name + " ");
-                            } else if (Type.equalsIgnoreCase("route")) {
-                                address.setAddressOne(address.getAddressOne() + long_name);
-                            } else if (Type.equalsIgnoreCase("sublocality")) {
-                                address.setAddressTwo(long_name);
-                            } else if (Type.equalsIgnoreCase("locality")) {
-                                address.setCity(long_name);
-                            } else if (Type.equalsIgnoreCase("administrative_area_level_2")) {
-                                address.setDistrict(long_name);
-                            } else if (Type.equalsIgnoreCase("administrative_area_level_1")) {
-                                address.setState(long_name);
-                            } else if (Type.equalsIgnoreCase("country")) {
-                                address.setCountry(long_name);
-                            } else if (Type.equalsIgnoreCase("postal_code")) {
-                                address.setPin(long_name);
-                            }
-                        }
+            final String url = UrlManager.getReverseGeoCodingApiUrl(latLng);
+            Result result = coalescer.execute(ReverseGeocodingCache.getRequestKey(latLng, cache != null ? cache.getCellSize() : 0), new Callable<Result>() {
+                @Override
+                public Result call() throws Exception {
+                    Result result = fetch(url);
+                    if (result.failure == null) {
+                        if (cache != null) cache.put(latLng, result.address);
+                        if (disk != null) disk.putAddress(latLng, result.address);
                     }
-                } else {
-                    if (listener != null) listener.onRequestFailure(new CorruptedResponseException(STATUS_NOT_OK));
+                    return result;
                 }
-            } else {
-                if (listener != null) listener.onRequestFailure(new CorruptedResponseException(NULL_RESPONSE));
-            }
-        } catch (IOException | JSONException | NullPointerException | ArrayIndexOutOfBoundsException e) {
+            });
+            json = result.json;
+            //Result is shared by the coalesced callers, each of them gets its own copy
+            address = new Address(result.address);
+            if (result.failure != null && listener != null) listener.onRequestFailure(result.failure);
+        } catch (Exception e) {
             e.printStackTrace();
             if (listener != null) listener.onRequestFailure(e);
         }
@@ -124,6 +140,78 @@ public class ReverseGeocoder extends AsyncTask<LatLng, Void, Address> {
         if (listener != null) listener.onRequestCompleted(json, address);
     }
 
+    /**
+     * Method will make the http call and parse the response. It may be shared by several concurrent requests,
+     * so it must not touch the state of this instance.
+     * @param url of Reverse Geocoding API
+     * @return raw response and parsed {@link Address} or the cause of failure
+     */
+    private Result fetch(String url) throws IOException, JSONException {
+        Address address = new Address();
+        Request request = new Request.Builder().url(url).build();
+        Response response = client.newCall(request).execute();
+        if (response.isSuccessful()) {
+            //Parsing JSON
+            String json = response.body().string();
+            JSONObject object = new JSONObject(json);
+            String Status = object.getString("status");
+            if (Status.equalsIgnoreCase("OK")) {
+                //If every thing is alright
+                JSONArray Results = object.getJSONArray("results");
+                JSONObject zero = Results.getJSONObject(0);
+                JSONArray address_components = zero.getJSONArray("address_components");
+
+                for (int i = 0; i < address_components.length(); i++) {
+                    JSONObject zero2 = address_components.getJSONObject(i);
+                    String long_name = zero2.getString("long_name");
+                    JSONArray mtypes = zero2.getJSONArray("types");
+                    String Type = mtypes.getString(0);
+                    if (TextUtils.isEmpty(long_name) == false || !long_name.equals(null) || long_name.length() > 0 || long_name != "") {
+                        if (Type.equalsIgnoreCase("street_number")) {
+                            address.setAddressOne(long_name + " ");
+                        } else if (Type.equalsIgnoreCase("route")) {
+                            address.setAddressOne(address.getAddressOne() + long_name);
+                        } else if (Type.equalsIgnoreCase("sublocality")) {
+                            address.setAddressTwo(long_name);
+                        } else if (Type.equalsIgnoreCase("locality")) {
+                            address.setCity(long_name);
+                        } else if (Type.equalsIgnoreCase("administrative_area_level_2")) {
+                            address.setDistrict(long_name);
+                        } else if (Type.equalsIgnoreCase("administrative_area_level_1")) {
+                            address.setState(long_name);
+                        } else if (Type.equalsIgnoreCase("country")) {
+                            address.setCountry(long_name);
+                        } else if (Type.equalsIgnoreCase("postal_code")) {
+                            address.setPin(long_name);
+                        }
+                    }
+                }
+                return new Result(json, address, null);
+            } else {
+                return new Result(json, address, new CorruptedResponseException(STATUS_NOT_OK));
+            }
+        } else {
+            //Releasing the connection back to the shared pool
+            response.body().close();
+            return new Result("", address, new CorruptedResponseException(NULL_RESPONSE));
+        }
+    }
+
+    /**
+     * Outcome of a single network call, shared by all the requests which were coalesced into it.
+     */
+    private static class Result {
+        private final String json;
+        private final Address address;
+        private final Exception failure;
+
+        private Result(String json, Address address, Exception failure) {
+            this.json = json;
+            this.address = address;
+            this.failure = failure;
+        }
+    }
+
     /**
      * An interface to publish results in the caller classes. By implementing this,
      * end user of the module can access final results.
@@ -1,32 +1,50 @@
 package in.teramatrix.googleservices.service;
 
-import android.app.Activity;
 import android.content.Context;
 import android.graphics.Color;
 import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.JsonReader;
 
 import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.CameraPosition;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.Polyline;
 import com.google.android.gms.maps.model.PolylineOptions;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
+import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
+import in.teramatrix.googleservices.GoogleServices;
 import in.teramatrix.googleservices.ResponseListener;
+import in.teramatrix.googleservices.cache.RouteCache;
 import in.teramatrix.googleservices.exception.CorruptedResponseException;
+import in.teramatrix.googleservices.model.Leg;
+import in.teramatrix.googleservices.model.Path;
+import in.teramatrix.googleservices.model.Route;
+import in.teramatrix.googleservices.model.Step;
 import in.teramatrix.googleservices.model.TravelMode;
+import in.teramatrix.googleservices.util.CallBatch;
 import in.teramatrix.googleservices.util.GoogleMapUtilities;
+import in.teramatrix.googleservices.util.PolylineCodec;
+import in.teramatrix.googleservices.util.PolylineSimplifier;
+import in.teramatrix.googleservices.util.RouteFormat;
 import in.teramatrix.googleservices.util.UrlManager;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 
+import static in.teramatrix.googleservices.exception.CorruptedResponseException.EMPTY_ARRAY;
 import static in.teramatrix.googleservices.exception.CorruptedResponseException.NULL_RESPONSE;
 import static in.teramatrix.googleservices.exception.CorruptedResponseException.STATUS_NOT_OK;
 
@@ -41,10 +59,11 @@ import static in.teramatrix.googleservices.exception.CorruptedResponseException.
  * @date 1/5/2016
  */
 @SuppressWarnings("unused")
-public class RouteDesigner extends AsyncTask<LatLng, Void, Polyline[]> {
+public class RouteDesigner extends AsyncTask<LatLng, Integer, Polyline[]> implements GoogleMap.OnCameraChangeListener {
 
     /**
-     * Server response without parsing
+     * Server response without parsing. It will be empty if the route was requested in several segments, if it was taken from
+     * {@link RouteCache} or from the route file, or if retaining of json has been turned off, see {@link #setRetainJson(boolean)}
      */
     private String json;
 
@@ -55,7 +74,8 @@ public class RouteDesigner extends AsyncTask<LatLng, Void, Polyline[]> {
     private GoogleMap map;
 
     /**
-     * This class will draw route here, that's why context is needed here to run the statements on UI thread.
+     * It is not needed anymore, route is prepared in background and drawn in {@link #onPostExecute(Polyline[])} on UI thread.
+     * It is kept only for the callers which are still setting it.
      */
     private Context context;
 
@@ -100,6 +120,85 @@ public class RouteDesigner extends AsyncTask<LatLng, Void, Polyline[]> {
      */
     private PolylineOptions upperLayer;
 
+    /**
+     * Style of alternative routes, these are drawn below the recommended route if {@link #renderAlternatives} is true.
+     * Only width, color, geodesic and z-index of these options are used.
+     */
+    private PolylineOptions alternativeLayer;
+
+    /**
+     * Maximum number of waypoints in a single request. Longer journeys will be split into segments, see {@link #designSegments(LatLng[])}
+     */
+    private int maxWaypoints;
+
+    /**
+     * Maximum number of segments which may be requested at the same time
+     */
+    private int maxConcurrentRequests;
+
+    /**
+     * Waypoint limit of Google Maps Directions API for standard users
+     */
+    public static final int MAX_WAYPOINTS = 23;
+
+    /**
+     * If true and alternatives have been asked for, all the alternative routes will also be drawn on the map
+     */
+    private boolean renderAlternatives;
+
+    /**
+     * If true, steps of all the legs will also be parsed, see {@link Step}
+     */
+    private boolean parseSteps;
+
+    /**
+     * If false, the response will be parsed directly from the network stream and the raw json will never be held in memory
+     */
+    private boolean retainJson;
+
+    /**
+     * If true, route will be drawn leg by leg while the response is still being downloaded and parsed
+     */
+    private boolean progressive;
+
+    /**
+     * Simplified vertices of every leg of the recommended route parsed so far, in progressive mode.
+     * These are added in background and read on UI thread.
+     */
+    private final List<List<LatLng>> legPoints = Collections.synchronizedList(new ArrayList<List<LatLng>>());
+
+    /**
+     * Vertices drawn so far in progressive mode, it is used on UI thread only
+     */
+    private final List<LatLng> drawnPoints = new ArrayList<>();
+
+    /**
+     * Number of legs drawn so far in progressive mode
+     */
+    private int drawnLegs;
+
+    /**
+     * Styles of progressive polylines, copied on UI thread before the task is started
+     */
+    private PolylineOptions progressiveBase;
+    private PolylineOptions progressiveUpper;
+
+    /**
+     * Simplified vertices of the complete recommended route
+     */
+    private List<LatLng> points;
+
+    /**
+     * If not null, routes will be loaded from this file instead of calling Directions API, and stored in it after calling the API,
+     * see {@link RouteFormat}
+     */
+    private File routeFile;
+
+    /**
+     * Age in milliseconds after which {@link #routeFile} is not used anymore, zero means it never expires
+     */
+    private long routeFileMaxAge;
+
     /**
      * If this bit will be true then Map camera will be zoom over there automatically.
      */
@@ -111,11 +210,78 @@ public class RouteDesigner extends AsyncTask<LatLng, Void, Polyline[]> {
      */
     private DesignerListener listener;
 
+    /**
+     * If true, route will be simplified according to the zoom level of the map, see {@link PolylineSimplifier}
+     */
+    private boolean simplify;
+
+    /**
+     * Maximum deviation of the simplified route from the original one, in pixels of the screen
+     */
+    private float tolerance;
+
+    /**
+     * Full recommended route as it was decoded, it is kept to re-simplify the route when zoom level changes
+     */
+    private Path path;
+
+    /**
+     * All the routes of the response, the first one is the recommended route
+     */
+    private List<Route> routes;
+
+    /**
+     * Polylines drawn on the map, base layer and upper layer
+     */
+    private Polyline polylines[];
+
+    /**
+     * Options of alternative routes, built in background
+     */
+    private List<PolylineOptions> alternativeOptions;
+
+    /**
+     * Polylines of alternative routes drawn on the map, in the order of {@link #routes} starting from the second route
+     */
+    private Polyline alternativePolylines[];
+
+    /**
+     * If encoded polylines of all the routes are longer than this, routes will be decoded in parallel
+     */
+    private static final int PARALLEL_DECODING_THRESHOLD = 16 * 1024;
+
+    /**
+     * Edge in meters of the cells in which points of a request are quantized for the fingerprint of {@link #routeFile}, so a driver
+     * leaving the depot a few meters away from the last time still gets the stored route
+     */
+    private static final double ROUTE_FILE_CELL_SIZE = 50;
+
+    /**
+     * Zoom level for which polylines have been simplified, it is -1 if route has not been drawn yet
+     */
+    private int renderedZoom;
+
+    /**
+     * Zoom level of the map camera when this task was started, route will be simplified in background for this zoom level
+     */
+    private int initialZoom;
+
+    /**
+     * Zoom level for which simplification is in progress after a camera change, it is read and written on UI thread only
+     */
+    private int requestedZoom;
+
+    /**
+     * To post the results of re-simplification back on UI thread
+     */
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
     /**
      * Okhttp is a third party library to interact with the server. OkHttpClient is a factory for calls,
-     * which can be used to send HTTP requests and read their responses.
+     * which can be used to send HTTP requests and read their responses. Same client is shared by all the services,
+     * see {@link GoogleServices#getHttpClient()}
      */
-    private final OkHttpClient client = new OkHttpClient();
+    private final OkHttpClient client = GoogleServices.getHttpClient();
 
     public RouteDesigner() {
         this.json = "";
@@ -124,8 +290,19 @@ public class RouteDesigner extends AsyncTask<LatLng, Void, Polyline[]> {
         this.sensor = false;
         this.alternatives = false;
         this.autoZoom = false;
+        this.simplify = true;
+        this.tolerance = 1;
+        this.renderedZoom = -1;
+        this.requestedZoom = -1;
         this.baseLayer = new PolylineOptions().width(10).color(Color.parseColor("#1c83bf")).geodesic(true);
         this.upperLayer = new PolylineOptions().width(5).color(Color.parseColor("#0bb4fa")).geodesic(true);
+        this.alternativeLayer = new PolylineOptions().width(8).color(Color.parseColor("#9e9e9e")).geodesic(true);
+        this.renderAlternatives = false;
+        this.maxWaypoints = MAX_WAYPOINTS;
+        this.parseSteps = false;
+        this.retainJson = true;
+        this.progressive = false;
+        this.maxConcurrentRequests = 4;
     }
 
     public RouteDesigner setMap(GoogleMap map) {
@@ -173,128 +350,722 @@ public class RouteDesigner extends AsyncTask<LatLng, Void, Polyline[]> {
         return this;
     }
 
+    public RouteDesigner setAlternativeLayer(PolylineOptions alternativeLayer) {
+        this.alternativeLayer = alternativeLayer;
+        return this;
+    }
+
+    /**
+     * Set it true to get turn by turn directions, each {@link Leg} will have its steps. Polylines of steps are decoded only when
+     * these are accessed.
+     */
+    public RouteDesigner setParseSteps(boolean parseSteps) {
+        this.parseSteps = parseSteps;
+        return this;
+    }
+
+    /**
+     * By default, raw response is kept and passed to the listener. Turn it off for long routes, the response will then be parsed
+     * token by token while it is being downloaded. Json is empty whenever the route is not requested, for example when it is taken
+     * from {@link RouteCache}.
+     */
+    public RouteDesigner setRetainJson(boolean retainJson) {
+        this.retainJson = retainJson;
+        return this;
+    }
+
+    /**
+     * Set it true for long routes. Each leg of the recommended route will be drawn as soon as it has been parsed, straight from the
+     * network stream, and progress will be reported to {@link ProgressListener}. Steps are parsed internally to get the geometry of
+     * legs. Raw json will not be retained in this mode, and it has no effect if the route is requested in several segments.
+     */
+    public RouteDesigner setProgressive(boolean progressive) {
+        this.progressive = progressive;
+        return this;
+    }
+
+    /**
+     * Set a file per route (for example named after the depot and the zone) to load frequently driven routes without calling the
+     * API. If the file exists and has been written for the same request (points, mode, alternatives and steps), routes are read
+     * from it; otherwise they are requested and written into it. Raw json is not available when routes are read from the file.
+     * @param routeFile file of this route
+     * @param maxAge age of file in milliseconds after which the route will be requested again, zero means never
+     */
+    public RouteDesigner setRouteFile(File routeFile, long maxAge) {
+        this.routeFile = routeFile;
+        this.routeFileMaxAge = maxAge;
+        return this;
+    }
+
+    public RouteDesigner setMaxWaypoints(int maxWaypoints) {
+        this.maxWaypoints = maxWaypoints;
+        return this;
+    }
+
+    public RouteDesigner setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        return this;
+    }
+
+    public RouteDesigner setRenderAlternatives(boolean renderAlternatives) {
+        this.renderAlternatives = renderAlternatives;
+        return this;
+    }
+
+    /**
+     * @return all the routes of the response, the first one is the recommended route. It is null until the response has been parsed.
+     */
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * @return polylines of alternative routes drawn on the map, null if these have not been drawn
+     */
+    public Polyline[] getAlternativePolylines() {
+        return alternativePolylines;
+    }
+
     public RouteDesigner setAutoZoom(boolean autoZoom) {
         this.autoZoom = autoZoom;
         return this;
     }
 
+    public RouteDesigner setSimplify(boolean simplify) {
+        this.simplify = simplify;
+        return this;
+    }
+
+    public RouteDesigner setTolerance(float tolerance) {
+        this.tolerance = tolerance;
+        return this;
+    }
+
     public RouteDesigner setResponseListener(DesignerListener listener) {
         this.listener = listener;
         return this;
     }
 
     /**
-     * It is just like build method of Builder Pattern. It will execute this {@link AsyncTask}
-     * @param waypoints an array of all the waypoints but should be less then 10
+     * It is just like build method of Builder Pattern. It will execute this {@link AsyncTask} on the
+     * executor of this service, see {@link GoogleServices#getExecutor(Class)}
+     * @param waypoints an array of all the waypoints, if these are more than {@link #MAX_WAYPOINTS} then the route will be
+     *                  requested in several segments and alternatives will not be available
      */
     public void design(LatLng ... waypoints) {
         //If Google Map is null
         if (map == null)
             throw new NullPointerException("Google Map can not be null");
 
-        //If context is null
-        if (context == null)
-            throw new NullPointerException("Context can not be null");
-
         //If origin or destination is null
         if (origin == null || destination == null)
             throw new NullPointerException("Origin or Destination can not be null");
 
-        this.execute(waypoints);
+        this.executeOnExecutor(GoogleServices.getExecutor(RouteDesigner.class), waypoints);
+    }
+
+    @Override
+    protected void onPreExecute() {
+        super.onPreExecute();
+        //Camera can only be read on UI thread
+        initialZoom = (int) map.getCameraPosition().zoom;
+        if (progressive) {
+            progressiveBase = copyOf(baseLayer);
+            progressiveUpper = copyOf(upperLayer);
+        }
     }
 
+    /**
+     * Everything except drawing happens here: http call, parsing, decoding, simplification and building of {@link PolylineOptions}.
+     * Returned array is empty until both the layers are added on the map in {@link #onPostExecute(Polyline[])}, in the same frame.
+     */
     @Override
     protected Polyline [] doInBackground(LatLng... waypoints) {
         final Polyline polylines [] = new Polyline[2];
         try {
+            //Recently designed routes may be in memory, frequently driven routes may be on the disk
+            RouteCache cache = GoogleServices.getRouteCache();
+            String key = cache == null ? null : cache.getKey(origin, destination, waypoints, mode, alternatives, parseSteps);
+            List<Route> routes = cache == null ? null : cache.get(key);
+            if (routes == null) {
+                String fingerprint = routeFile == null ? null
+                        : RouteCache.getKey(origin, destination, waypoints, mode, alternatives, parseSteps, ROUTE_FILE_CELL_SIZE);
+                routes = readRouteFile(fingerprint);
+                if (routes == null) {
+                    routes = fetch(waypoints);
+                    writeRouteFile(routes, fingerprint);
+                }
+                if (cache != null) cache.put(key, routes);
+            }
+
+            this.routes = routes;
+            this.path = routes.get(0).getPath();
+            List<LatLng> list = getPoints(path, initialZoom);
+            baseLayer.addAll(list);
+            upperLayer.addAll(list);
+            this.points = list;
+
+            if (renderAlternatives && routes.size() > 1) {
+                List<PolylineOptions> options = new ArrayList<>(routes.size() - 1);
+                for (int i = 1; i < routes.size(); i++) {
+                    PolylineOptions option = copyOf(alternativeLayer).addAll(getPoints(routes.get(i).getPath(), initialZoom));
+                    //Recommended route is already on the map in progressive mode, so alternatives need a lower z-index to stay below
+                    if (progressive) option.zIndex(Math.min(alternativeLayer.getZIndex(), baseLayer.getZIndex() - 1));
+                    options.add(option);
+                }
+                alternativeOptions = options;
+            }
+        } catch (CorruptedResponseException e) {
+            if (listener != null) listener.onRequestFailure(e);
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (listener != null) listener.onRequestFailure(e);
+        }
+        return polylines;
+    }
+
+    @Override
+    protected void onPostExecute(Polyline [] polylines) {
+        super.onPostExecute(polylines);
+
+        //Only the final calls are made on UI thread, options have been built in background
+        if (path != null) {
+            //Alternatives first, so that these remain below the recommended route
+            if (alternativeOptions != null) {
+                alternativePolylines = new Polyline[alternativeOptions.size()];
+                for (int i = 0; i < alternativeOptions.size(); i++)
+                    alternativePolylines[i] = map.addPolyline(alternativeOptions.get(i));
+            }
+            if (this.polylines != null) {
+                //Already drawn progressively, replacing legs by the complete route
+                polylines[0] = this.polylines[0];
+                polylines[1] = this.polylines[1];
+                polylines[0].setPoints(points);
+                polylines[1].setPoints(points);
+            } else {
+                polylines[0] = map.addPolyline(baseLayer);
+                polylines[1] = map.addPolyline(upperLayer);
+            }
+            this.polylines = polylines;
+            renderedZoom = initialZoom;
+            requestedZoom = initialZoom;
+            //Camera changes of the map reach this designer even when other designers are drawn on it as well
+            if (simplify) GoogleServices.getCameraChangeDispatcher(map).add(this);
+        } else if (this.polylines != null) {
+            //Request failed after some legs were drawn progressively
+            GoogleMapUtilities.removePolyLines(this.polylines);
+            this.polylines = null;
+        }
+
+        if (autoZoom && polylines[0] != null) {
+            List<LatLng> list = polylines[0].getPoints();
+            GoogleMapUtilities.animateCameraToGroup(map, list.toArray(new LatLng[list.size()]));
+        }
+
+        if (listener instanceof RoutesListener && routes != null)
+            ((RoutesListener) listener).onRoutesReceived(routes);
+        if (listener != null) listener.onRequestCompleted(json, polylines);
+    }
+
+    /**
+     * Method will request the routes from Directions API, in several segments if there are too many waypoints
+     * @param waypoints of the route
+     * @return decoded routes
+     */
+    private List<Route> fetch(LatLng[] waypoints) throws Exception {
+        List<Route> routes;
+        if (waypoints.length > maxWaypoints) {
+            //Too many waypoints for a single request, there's no single raw response in this case
+            routes = new ArrayList<>();
+            routes.add(designSegments(waypoints));
+        } else {
             //Building request and making call
             Request request = new Request.Builder().url(UrlManager.getDirectionApiUrl
                     (origin, destination, sensor, mode, alternatives, waypoints)).build();
             Response response = client.newCall(request).execute();
 
-            if (response.isSuccessful()) {
-                //Parsing JSON response
-                json = response.body().string();
-                JSONObject object = new JSONObject(json);
-                if (object.getString("status").equalsIgnoreCase("OK")) {
-                    JSONArray routeArray = object.getJSONArray("routes");
-                    JSONObject routes = routeArray.getJSONObject(0);
-                    JSONObject overviewPolylines = routes.getJSONObject("overview_polyline");
-                    String encodedString = overviewPolylines.getString("points");
-                    final List<LatLng> list = decodePoly(encodedString);
-                    ((Activity) context).runOnUiThread(new Runnable() {
+            if (!response.isSuccessful()) {
+                //If response is not successful, releasing the connection back to the shared pool
+                response.body().close();
+                throw new CorruptedResponseException(NULL_RESPONSE);
+            }
+
+            //Parsing JSON response
+            if (progressive) {
+                try {
+                    routes = parseRoutes(response.body().charStream(), true, new LegListener() {
                         @Override
-                        public void run() {
-                            for (int z = 0; z < list.size() - 1; z++) {
-                                baseLayer.add(list.get(z), list.get(z + 1));
-                                upperLayer.add(list.get(z), list.get(z + 1));
-                            }
-                            polylines[0] = map.addPolyline(baseLayer);
-                            polylines[1] = map.addPolyline(upperLayer);
+                        public void onLegParsed(Leg leg) {
+                            publishLeg(leg);
                         }
                     });
-                } else {
-                    //If Google's API status is not ok
-                    if (listener != null)
-                        listener.onRequestFailure(new CorruptedResponseException(STATUS_NOT_OK));
+                } finally {
+                    response.body().close();
                 }
+            } else if (retainJson) {
+                json = response.body().string();
+                routes = parseRoutes(new StringReader(json), parseSteps, null);
             } else {
-                //If response is not successful
-                if (listener != null)
-                    listener.onRequestFailure(new CorruptedResponseException(NULL_RESPONSE));
+                try {
+                    routes = parseRoutes(response.body().charStream(), parseSteps, null);
+                } finally {
+                    response.body().close();
+                }
             }
-        } catch (IOException | JSONException e) {
+            decode(routes);
+        }
+        return routes;
+    }
+
+    /**
+     * @param fingerprint of this request, see {@link RouteCache#getKey(LatLng, LatLng, LatLng[], String, boolean, boolean, double)}
+     * @return routes stored in {@link #routeFile}, null if there's no such file, it is too old, it has been written for another
+     * request (other points, mode, alternatives or steps) or it can not be read
+     */
+    private List<Route> readRouteFile(String fingerprint) {
+        if (routeFile == null || !routeFile.isFile())
+            return null;
+        if (routeFileMaxAge > 0 && System.currentTimeMillis() - routeFile.lastModified() > routeFileMaxAge)
+            return null;
+        try {
+            return RouteFormat.read(routeFile, fingerprint);
+        } catch (IOException e) {
             e.printStackTrace();
-            if (listener != null) listener.onRequestFailure(e);
+            return null;
         }
-        return polylines;
     }
 
+    /**
+     * Storing the routes is best effort, the route is drawn even if it can not be written
+     */
+    private void writeRouteFile(List<Route> routes, String fingerprint) {
+        if (routeFile == null)
+            return;
+        try {
+            RouteFormat.write(routes, fingerprint, routeFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Called in background for every parsed leg of the recommended route in progressive mode. Geometry of the leg is the chain of
+     * polylines of its steps.
+     */
+    private void publishLeg(Leg leg) {
+        Path path = new Path();
+        for (Step step : leg.getSteps()) {
+            Path part = step.getPath();
+            int first = (!path.isEmpty() && !part.isEmpty()
+                    && path.getLatE5(path.size() - 1) == part.getLatE5(0)
+                    && path.getLngE5(path.size() - 1) == part.getLngE5(0)) ? 1 : 0;
+            path.addAll(part, first, part.size());
+        }
+        //Steps were needed only for the geometry
+        if (!parseSteps) leg.getSteps().clear();
+
+        legPoints.add(getPoints(path, initialZoom));
+        publishProgress(legPoints.size());
+    }
+
+    /**
+     * Draws all the legs which have been parsed but not drawn yet. Several legs may be drawn by a single call, so a slow UI thread
+     * makes fewer and larger updates.
+     */
     @Override
-    protected void onPostExecute(Polyline [] polylines) {
-        super.onPostExecute(polylines);
+    protected void onProgressUpdate(Integer... values) {
+        super.onProgressUpdate(values);
+        int available = legPoints.size();
+        if (available == drawnLegs || isCancelled())
+            return;
 
-        if (autoZoom && polylines != null) {
-            List<LatLng> list = polylines[0].getPoints();
-            GoogleMapUtilities.animateCameraToGroup(map, list.toArray(new LatLng[list.size()]));
+        for (int i = drawnLegs; i < available; i++) {
+            List<LatLng> leg = legPoints.get(i);
+            //Skipping the first vertex if it is the same as the last vertex of previous leg
+            int first = (!drawnPoints.isEmpty() && !leg.isEmpty() && drawnPoints.get(drawnPoints.size() - 1).equals(leg.get(0))) ? 1 : 0;
+            drawnPoints.addAll(leg.subList(first, leg.size()));
         }
+        drawnLegs = available;
 
-        if (listener != null) listener.onRequestCompleted(json, polylines);
+        if (polylines == null) {
+            polylines = new Polyline[2];
+            polylines[0] = map.addPolyline(progressiveBase.addAll(drawnPoints));
+            polylines[1] = map.addPolyline(progressiveUpper.addAll(drawnPoints));
+        } else {
+            polylines[0].setPoints(drawnPoints);
+            polylines[1].setPoints(drawnPoints);
+        }
+
+        if (listener instanceof ProgressListener)
+            ((ProgressListener) listener).onProgress(drawnLegs, polylines);
+    }
+
+    /**
+     * Method will parse the response token by token, no JSON tree is built. Status of the response comes after the routes,
+     * so routes are parsed first and the status is checked at the end.
+     * @param in response of Directions API
+     * @param steps if true, steps of legs will also be parsed
+     * @param legListener if not null, it will be notified for every leg of the first route as soon as the leg has been parsed
+     * @return all the routes of the response, not decoded yet
+     * @throws CorruptedResponseException if status is not OK or there's no route
+     */
+    private static List<Route> parseRoutes(Reader in, boolean steps, LegListener legListener) throws IOException, CorruptedResponseException {
+        JsonReader reader = new JsonReader(in);
+        List<Route> routes = new ArrayList<>();
+        String status = null;
+        try {
+            reader.beginObject();
+        } catch (EOFException e) {
+            throw new CorruptedResponseException(NULL_RESPONSE);
+        }
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("status")) {
+                status = reader.nextString();
+            } else if (name.equals("routes")) {
+                reader.beginArray();
+                while (reader.hasNext())
+                    routes.add(parseRoute(reader, steps, routes.isEmpty() ? legListener : null));
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        //If Google's API status is not ok
+        if (!"OK".equalsIgnoreCase(status))
+            throw new CorruptedResponseException(STATUS_NOT_OK);
+        if (routes.isEmpty())
+            throw new CorruptedResponseException(EMPTY_ARRAY);
+        return routes;
+    }
+
+    /**
+     * Directions API accepts a limited number of waypoints in a request. This method will split the whole journey (origin, all the
+     * waypoints and destination) into segments having at most {@link #maxWaypoints} waypoints each. Consecutive segments share
+     * their end points, so the last stop of a segment is the origin of the next one. All the segments are requested concurrently and
+     * stitched back into a single route, legs in order and polylines end to end.
+     * @param waypoints all the waypoints, more than {@link #maxWaypoints}
+     * @return single continuous route
+     */
+    private Route designSegments(LatLng[] waypoints) throws Exception {
+        LatLng stops[] = new LatLng[waypoints.length + 2];
+        stops[0] = origin;
+        System.arraycopy(waypoints, 0, stops, 1, waypoints.length);
+        stops[stops.length - 1] = destination;
+
+        List<String> urls = new ArrayList<>();
+        int step = Math.max(1, maxWaypoints) + 1;
+        for (int start = 0; start < stops.length - 1; start += step) {
+            int end = Math.min(start + step, stops.length - 1);
+            urls.add(UrlManager.getDirectionApiUrl(stops[start], stops[end], sensor, mode, false,
+                    Arrays.copyOfRange(stops, start + 1, end)));
+        }
+
+        List<Route> segments = CallBatch.execute(client, urls, maxConcurrentRequests, new CallBatch.Parser<Route>() {
+            @Override
+            public Route parse(int index, Response response) throws Exception {
+                Route route = parseRoutes(response.body().charStream(), parseSteps, null).get(0);
+                decode(route);
+                return route;
+            }
+        });
+
+        Route route = new Route();
+        Path path = new Path();
+        StringBuilder summary = new StringBuilder();
+        for (Route segment : segments) {
+            route.getLegs().addAll(segment.getLegs());
+            Path part = segment.getPath();
+            //Skipping the first vertex if it is the same as the last vertex of previous segment
+            int first = (!path.isEmpty() && !part.isEmpty()
+                    && path.getLatE5(path.size() - 1) == part.getLatE5(0)
+                    && path.getLngE5(path.size() - 1) == part.getLngE5(0)) ? 1 : 0;
+            path.addAll(part, first, part.size());
+            if (segment.getSummary() != null && !segment.getSummary().equals("")) {
+                if (summary.length() > 0) summary.append(", ");
+                summary.append(segment.getSummary());
+            }
+        }
+        route.setSummary(summary.toString());
+        route.setPath(path);
+        route.setEncodedPolyline(PolylineCodec.encode(path));
+        return route;
+    }
+
+    /**
+     * Method will parse a single route of the response. Its overview polyline is not decoded here, see {@link #decode(List)}
+     * @param reader positioned at the route
+     * @param steps if true, steps of legs will also be parsed
+     * @param legListener if not null, it will be notified for every parsed leg
+     * @return route having summary, legs and encoded polyline
+     */
+    private static Route parseRoute(JsonReader reader, boolean steps, LegListener legListener) throws IOException {
+        Route route = new Route();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("summary")) {
+                route.setSummary(reader.nextString());
+            } else if (name.equals("overview_polyline")) {
+                route.setEncodedPolyline(parsePoints(reader));
+            } else if (name.equals("legs")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Leg leg = parseLeg(reader, steps);
+                    route.getLegs().add(leg);
+                    if (legListener != null) legListener.onLegParsed(leg);
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return route;
+    }
+
+    private static Leg parseLeg(JsonReader reader, boolean steps) throws IOException {
+        Leg leg = new Leg();
+        Measure measure = new Measure();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("start_address")) {
+                leg.setStartAddress(reader.nextString());
+            } else if (name.equals("end_address")) {
+                leg.setEndAddress(reader.nextString());
+            } else if (name.equals("start_location")) {
+                leg.setStartLocation(parseLocation(reader));
+            } else if (name.equals("end_location")) {
+                leg.setEndLocation(parseLocation(reader));
+            } else if (name.equals("distance")) {
+                parseMeasure(reader, measure);
+                leg.setDistanceText(measure.text);
+                leg.setDistanceValue(measure.value);
+            } else if (name.equals("duration")) {
+                parseMeasure(reader, measure);
+                leg.setDurationText(measure.text);
+                leg.setDurationValue(measure.value);
+            } else if (name.equals("steps") && steps) {
+                reader.beginArray();
+                while (reader.hasNext())
+                    leg.getSteps().add(parseStep(reader, measure));
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return leg;
+    }
+
+    /**
+     * Polyline of the step is kept encoded, see {@link Step#getPath()}
+     */
+    private static Step parseStep(JsonReader reader, Measure measure) throws IOException {
+        Step step = new Step();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("html_instructions")) {
+                step.setInstructions(reader.nextString());
+            } else if (name.equals("maneuver")) {
+                step.setManeuver(reader.nextString());
+            } else if (name.equals("travel_mode")) {
+                step.setTravelMode(reader.nextString());
+            } else if (name.equals("start_location")) {
+                step.setStartLocation(parseLocation(reader));
+            } else if (name.equals("end_location")) {
+                step.setEndLocation(parseLocation(reader));
+            } else if (name.equals("polyline")) {
+                step.setEncodedPolyline(parsePoints(reader));
+            } else if (name.equals("distance")) {
+                parseMeasure(reader, measure);
+                step.setDistanceText(measure.text);
+                step.setDistanceValue(measure.value);
+            } else if (name.equals("duration")) {
+                parseMeasure(reader, measure);
+                step.setDurationText(measure.text);
+                step.setDurationValue(measure.value);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return step;
+    }
+
+    /**
+     * @return "points" of a polyline object
+     */
+    private static String parsePoints(JsonReader reader) throws IOException {
+        String points = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("points")) points = reader.nextString();
+            else reader.skipValue();
+        }
+        reader.endObject();
+        return points;
+    }
+
+    private static LatLng parseLocation(JsonReader reader) throws IOException {
+        double lat = 0, lng = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("lat")) lat = reader.nextDouble();
+            else if (name.equals("lng")) lng = reader.nextDouble();
+            else reader.skipValue();
+        }
+        reader.endObject();
+        return new LatLng(lat, lng);
+    }
+
+    /**
+     * Parses a distance or a duration object, having text and value
+     */
+    private static void parseMeasure(JsonReader reader, Measure measure) throws IOException {
+        measure.text = "";
+        measure.value = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("text")) measure.text = reader.nextString();
+            else if (name.equals("value")) measure.value = reader.nextInt();
+            else reader.skipValue();
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Notified by the parser as soon as a leg has been parsed
+     */
+    private interface LegListener {
+        void onLegParsed(Leg leg);
+    }
+
+    /**
+     * Text and value of a distance or a duration, it is reused while parsing
+     */
+    private static class Measure {
+        private String text;
+        private int value;
     }
 
     /**
-     * This code will perform calculations on the json and decode the data for Polylines
-     * This decoding algorithm is provided by the vendor and 100% tested. So we will keep it untouched.
-     */
-    private List<LatLng> decodePoly(String encoded) {
-        List<LatLng> poly = new ArrayList<>();
-        int index = 0, len = encoded.length();
-        int lat = 0, lng = 0;
-
-        while (index < len) {
-            int b, shift = 0, result = 0;
-            do {
-                b = encoded.charAt(index++) - 63;
-                result |= (b & 0x1f) << shift;
-                shift += 5;
-            } while (b >= 0x20);
-            int dlat = ((result & 1) != 0 ? ~(result >> 1) : (result >> 1));
-            lat += dlat;
-
-            shift = 0;
-            result = 0;
-            do {
-                b = encoded.charAt(index++) - 63;
-                result |= (b & 0x1f) << shift;
-                shift += 5;
-            } while (b >= 0x20);
-            int dlng = ((result & 1) != 0 ? ~(result >> 1) : (result >> 1));
-            lng += dlng;
-
-            LatLng p = new LatLng( (((double) lat / 1E5)), (((double) lng / 1E5) ));
-            poly.add(p);
+     * Method will decode overview polylines of all the routes. For large responses having alternatives, routes are decoded in
+     * parallel: each route is a task on the executor of the library, and this thread also runs every task which has not been
+     * picked up yet, so decoding never waits for a free thread of a busy pool.
+     * @param routes to be decoded
+     */
+    private static void decode(List<Route> routes) throws InterruptedException, ExecutionException {
+        int length = 0;
+        for (Route route : routes) length += route.getEncodedPolyline().length();
+
+        if (routes.size() < 2 || length < PARALLEL_DECODING_THRESHOLD) {
+            for (Route route : routes) decode(route);
+            return;
+        }
+
+        List<FutureTask<Void>> tasks = new ArrayList<>(routes.size());
+        for (final Route route : routes) {
+            FutureTask<Void> task = new FutureTask<>(new Runnable() {
+                @Override
+                public void run() {
+                    decode(route);
+                }
+            }, null);
+            tasks.add(task);
+            if (tasks.size() > 1) GoogleServices.getExecutor().execute(task);
         }
-        return poly;
+        //Running of an already started or finished task is a no-op
+        for (FutureTask<Void> task : tasks) task.run();
+        for (FutureTask<Void> task : tasks) task.get();
+    }
+
+    private static void decode(Route route) {
+        String encoded = route.getEncodedPolyline();
+        Path path = new Path(encoded.length() / 4);
+        PolylineCodec.decode(encoded, path);
+        route.setPath(path);
+    }
+
+    /**
+     * @return new options having the style of template
+     */
+    private static PolylineOptions copyOf(PolylineOptions template) {
+        return new PolylineOptions()
+                .width(template.getWidth())
+                .color(template.getColor())
+                .geodesic(template.isGeodesic())
+                .zIndex(template.getZIndex());
+    }
+
+    /**
+     * Route is simplified for the zoom level at which it was drawn. To keep it sharp while zooming in, and light while zooming out,
+     * set {@link GoogleServices#getCameraChangeDispatcher(GoogleMap)} as camera change listener of the map, every designer drawn
+     * on that map registers itself with it. A designer may also be set as the listener directly if it is the only one on the map.
+     * Polylines are simplified again only when the zoom level changes by a whole level.
+     * @param position new position of map camera
+     */
+    @Override
+    public void onCameraChange(CameraPosition position) {
+        if (!simplify || polylines == null || path == null)
+            return;
+
+        final int zoom = (int) position.zoom;
+        if (zoom == requestedZoom)
+            return;
+        requestedZoom = zoom;
+
+        //Simplifying in background, only setting of points is on UI thread
+        final Path path = this.path;
+        final List<Route> routes = this.routes;
+        final Polyline alternatives[] = this.alternativePolylines;
+        GoogleServices.getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<LatLng> list = getPoints(path, zoom);
+                final List<List<LatLng>> others = new ArrayList<>();
+                if (alternatives != null) {
+                    for (int i = 0; i < alternatives.length; i++)
+                        others.add(getPoints(routes.get(i + 1).getPath(), zoom));
+                }
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        //Camera may have moved to another zoom level in the meantime
+                        if (zoom != requestedZoom || zoom == renderedZoom)
+                            return;
+                        polylines[0].setPoints(list);
+                        polylines[1].setPoints(list);
+                        for (int i = 0; i < others.size(); i++)
+                            alternatives[i].setPoints(others.get(i));
+                        renderedZoom = zoom;
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @param path full route
+     * @param zoom level of the map
+     * @return vertices of the route which are visible at this zoom level
+     */
+    private List<LatLng> getPoints(Path path, int zoom) {
+        if (path.isEmpty())
+            return new ArrayList<>();
+
+        if (!simplify)
+            return PolylineSimplifier.simplify(path, 0, new Path(path.size())).toLatLngs();
+
+        double latitude = (path.getLatitude(0) + path.getLatitude(path.size() - 1)) / 2;
+        double meters = GoogleMapUtilities.getMetersPerPixel(latitude, zoom) * tolerance;
+        return PolylineSimplifier.simplify(path, meters, new Path()).toLatLngs();
     }
 
     /**
@@ -306,10 +1077,36 @@ public class RouteDesigner extends AsyncTask<LatLng, Void, Polyline[]> {
         /**
          * This method will be invoked on a successful http request.
          * @param json
-         * It is the response received from the server after request.
+         * It is the response received from the server after request, it is empty if the route has been taken from
+         * {@link RouteCache} or from the route file, or if json is not retained
          * @param polylines
          * These are {@link Polyline} drawn on the map. These are removable from the map
          */
         void onRequestCompleted(String json, Polyline[] polylines);
     }
+
+    /**
+     * Implement this listener instead of {@link DesignerListener} to receive all the parsed routes as well. It is useful
+     * with {@link #setAlternatives(boolean)}, for example to pick the fastest route, see {@link Route#getFastest(List)}.
+     */
+    public interface RoutesListener extends DesignerListener {
+        /**
+         * This method will be invoked just before {@link #onRequestCompleted(String, Polyline[])}
+         * @param routes all the routes of the response, the first one is the recommended route
+         */
+        void onRoutesReceived(List<Route> routes);
+    }
+
+    /**
+     * Implement this listener instead of {@link DesignerListener} to know the progress of drawing in progressive mode,
+     * see {@link #setProgressive(boolean)}
+     */
+    public interface ProgressListener extends DesignerListener {
+        /**
+         * This method will be invoked on UI thread whenever more legs of the recommended route have been drawn.
+         * @param legs number of legs drawn so far
+         * @param polylines polylines drawn on the map, these will be completed by the next calls
+         */
+        void onProgress(int legs, Polyline[] polylines);
+    }
 }
\ No newline at end of file
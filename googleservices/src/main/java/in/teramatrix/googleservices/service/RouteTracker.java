@@ -0,0 +1,378 @@
+package in.teramatrix.googleservices.service;
+
+import android.location.Location;
+
+import com.google.android.gms.location.LocationListener;
+
+import in.teramatrix.googleservices.model.Path;
+import in.teramatrix.googleservices.util.CoordinateUtilities;
+
+/**
+ * Tracks location fixes against an active route, for example a route designed by {@link RouteDesigner} and fixes of
+ * {@link FusedLocationProvider}. For every fix, it finds the nearest point on the route and tells how far the fix is from the route,
+ * how much of the route has been covered and how much remains, and whether the fix is off the route.
+ * <br/>
+ * Segments of the route are indexed by a bounding volume hierarchy built once: the tree is implicit (node k has children 2k + 1 and
+ * 2k + 2, each child covering half of the segments of its parent), so it is a few primitive arrays without any node object. A fix is
+ * matched by walking the tree nearest box first and skipping boxes farther than the best segment so far, which takes O(log n) for a
+ * fix near the route. Segment matched by the previous fix is tried first, which makes the bound tight from the beginning. Nothing is
+ * allocated per fix; the same {@link Snap} is returned every time.
+ * <br/>
+ * Matching is done on a plane projected around the middle of the route, distances reported are measured on the sphere.
+ */
+@SuppressWarnings("unused")
+public class RouteTracker implements LocationListener {
+
+    /**
+     * Maximum number of segments in a leaf of the tree
+     */
+    private static final int LEAF_SIZE = 8;
+
+    /**
+     * Approximate length of one degree of latitude in meters
+     */
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    /**
+     * Vertices of the route in degrees
+     */
+    private final double latitudes[];
+    private final double longitudes[];
+
+    /**
+     * Vertices projected on the plane, in meters
+     */
+    private final double xs[];
+    private final double ys[];
+
+    /**
+     * Distance along the route from its first vertex to vertex i, in meters
+     */
+    private final double along[];
+
+    /**
+     * Number of segments, it is one less than the number of vertices
+     */
+    private final int segments;
+
+    /**
+     * Bounding boxes of the nodes of the tree
+     */
+    private final double minX[];
+    private final double minY[];
+    private final double maxX[];
+    private final double maxY[];
+
+    /**
+     * Depth of the deepest leaf
+     */
+    private final int depth;
+
+    /**
+     * Preallocated stack of the traversal, three entries (node, first segment, end segment) per pending node
+     */
+    private final int stack[];
+
+    /**
+     * Scale of longitude on the plane
+     */
+    private final double scaleX;
+
+    /**
+     * Distance from the route after which a fix is off the route, in meters
+     */
+    private double offRouteDistance;
+
+    /**
+     * Segment matched by the previous fix, -1 if there's no previous fix
+     */
+    private int lastSegment;
+
+    /**
+     * Result of the last fix, reused for every fix
+     */
+    private final Snap snap;
+
+    /**
+     * This will publish results for the fixes received in {@link #onLocationChanged(Location)}
+     */
+    private TrackerListener listener;
+
+    /**
+     * @param path route to be tracked, for example {@link in.teramatrix.googleservices.model.Route#getPath()}
+     */
+    public RouteTracker(Path path) {
+        int size = path.size();
+        if (size < 2)
+            throw new IllegalArgumentException("Route must have at least two vertices");
+
+        latitudes = new double[size];
+        longitudes = new double[size];
+        xs = new double[size];
+        ys = new double[size];
+        along = new double[size];
+        segments = size - 1;
+
+        double middle = (path.getLatitude(0) + path.getLatitude(size - 1)) / 2;
+        scaleX = METERS_PER_DEGREE * Math.cos(Math.toRadians(middle));
+        for (int i = 0; i < size; i++) {
+            latitudes[i] = path.getLatitude(i);
+            longitudes[i] = path.getLongitude(i);
+            xs[i] = longitudes[i] * scaleX;
+            ys[i] = latitudes[i] * METERS_PER_DEGREE;
+            if (i > 0)
+                along[i] = along[i - 1] + CoordinateUtilities.getDistance(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+        }
+
+        //Halving ranges until these fit in a leaf
+        int levels = 0;
+        while ((segments + (1 << levels) - 1) >> levels > LEAF_SIZE) levels++;
+        depth = levels;
+        int nodes = (1 << (depth + 1)) - 1;
+        minX = new double[nodes];
+        minY = new double[nodes];
+        maxX = new double[nodes];
+        maxY = new double[nodes];
+        build(0, 0, segments);
+
+        stack = new int[3 * 2 * (depth + 2)];
+        offRouteDistance = 50;
+        lastSegment = -1;
+        snap = new Snap();
+    }
+
+    /**
+     * @param offRouteDistance distance from the route in meters after which a fix will be considered off the route
+     */
+    public RouteTracker setOffRouteDistance(double offRouteDistance) {
+        this.offRouteDistance = offRouteDistance;
+        return this;
+    }
+
+    public RouteTracker setListener(TrackerListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * @return total length of the route in meters
+     */
+    public double getLength() {
+        return along[segments];
+    }
+
+    /**
+     * Forgets the previous fix, for example after the route has been left for long
+     */
+    public void reset() {
+        lastSegment = -1;
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        track(location.getLatitude(), location.getLongitude());
+        if (listener != null) listener.onLocationTracked(snap);
+    }
+
+    /**
+     * Method will match a fix with the route. Returned object is reused by the next call, copy its values if they are needed later.
+     * @param latitude of the fix
+     * @param longitude of the fix
+     * @return snapped point and progress along the route
+     */
+    public Snap track(double latitude, double longitude) {
+        double px = longitude * scaleX;
+        double py = latitude * METERS_PER_DEGREE;
+
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        if (lastSegment != -1) {
+            best = lastSegment;
+            bestDistance = squaredDistance(lastSegment, px, py);
+        }
+
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = 0;
+        stack[top++] = segments;
+        while (top > 0) {
+            int end = stack[--top];
+            int first = stack[--top];
+            int node = stack[--top];
+            if (boxDistance(node, px, py) >= bestDistance)
+                continue;
+
+            if (end - first <= LEAF_SIZE) {
+                for (int i = first; i < end; i++) {
+                    double distance = squaredDistance(i, px, py);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        best = i;
+                    }
+                }
+                continue;
+            }
+
+            //Pushing the farther child first, so that the nearer one is visited first
+            int middle = (first + end) >>> 1;
+            int left = 2 * node + 1, right = 2 * node + 2;
+            if (boxDistance(left, px, py) <= boxDistance(right, px, py)) {
+                top = push(top, right, middle, end);
+                top = push(top, left, first, middle);
+            } else {
+                top = push(top, left, first, middle);
+                top = push(top, right, middle, end);
+            }
+        }
+
+        lastSegment = best;
+        double t = projection(best, px, py);
+        double lat = latitudes[best] + t * (latitudes[best + 1] - latitudes[best]);
+        double lng = longitudes[best] + t * (longitudes[best + 1] - longitudes[best]);
+
+        snap.segment = best;
+        snap.latitude = lat;
+        snap.longitude = lng;
+        snap.distanceFromRoute = CoordinateUtilities.getDistance(latitude, longitude, lat, lng);
+        snap.distanceAlongRoute = along[best] + t * (along[best + 1] - along[best]);
+        snap.remainingDistance = along[segments] - snap.distanceAlongRoute;
+        snap.offRoute = snap.distanceFromRoute > offRouteDistance;
+        return snap;
+    }
+
+    private int push(int top, int node, int first, int end) {
+        stack[top++] = node;
+        stack[top++] = first;
+        stack[top++] = end;
+        return top;
+    }
+
+    /**
+     * Computes bounding boxes of the node covering segments from first (inclusive) to end (exclusive) and of all its children
+     */
+    private void build(int node, int first, int end) {
+        if (end - first <= LEAF_SIZE) {
+            minX[node] = Double.MAX_VALUE;
+            minY[node] = Double.MAX_VALUE;
+            maxX[node] = -Double.MAX_VALUE;
+            maxY[node] = -Double.MAX_VALUE;
+            //Segment i spans vertices i and i + 1
+            for (int i = first; i <= end; i++) {
+                minX[node] = Math.min(minX[node], xs[i]);
+                minY[node] = Math.min(minY[node], ys[i]);
+                maxX[node] = Math.max(maxX[node], xs[i]);
+                maxY[node] = Math.max(maxY[node], ys[i]);
+            }
+            return;
+        }
+
+        int middle = (first + end) >>> 1;
+        int left = 2 * node + 1, right = 2 * node + 2;
+        build(left, first, middle);
+        build(right, middle, end);
+        minX[node] = Math.min(minX[left], minX[right]);
+        minY[node] = Math.min(minY[left], minY[right]);
+        maxX[node] = Math.max(maxX[left], maxX[right]);
+        maxY[node] = Math.max(maxY[left], maxY[right]);
+    }
+
+    /**
+     * @return squared distance from the point to the box of the node, zero if the point is inside
+     */
+    private double boxDistance(int node, double px, double py) {
+        double dx = Math.max(0, Math.max(minX[node] - px, px - maxX[node]));
+        double dy = Math.max(0, Math.max(minY[node] - py, py - maxY[node]));
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * @return position (0 to 1) of the point nearest to p on segment i
+     */
+    private double projection(int i, double px, double py) {
+        double dx = xs[i + 1] - xs[i], dy = ys[i + 1] - ys[i];
+        double length = dx * dx + dy * dy;
+        if (length == 0) return 0;
+        return Math.max(0, Math.min(1, ((px - xs[i]) * dx + (py - ys[i]) * dy) / length));
+    }
+
+    /**
+     * @return squared distance from p to segment i on the plane
+     */
+    private double squaredDistance(int i, double px, double py) {
+        double t = projection(i, px, py);
+        double ex = px - (xs[i] + t * (xs[i + 1] - xs[i]));
+        double ey = py - (ys[i] + t * (ys[i + 1] - ys[i]));
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * Result of matching a fix with the route. Distances are in meters.
+     */
+    public static class Snap {
+        private int segment;
+        private double latitude;
+        private double longitude;
+        private double distanceFromRoute;
+        private double distanceAlongRoute;
+        private double remainingDistance;
+        private boolean offRoute;
+
+        /**
+         * @return index of the matched segment, it is between vertex i and vertex i + 1 of the route
+         */
+        public int getSegment() {
+            return segment;
+        }
+
+        /**
+         * @return latitude of the nearest point on the route
+         */
+        public double getLatitude() {
+            return latitude;
+        }
+
+        /**
+         * @return longitude of the nearest point on the route
+         */
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public double getDistanceFromRoute() {
+            return distanceFromRoute;
+        }
+
+        public double getDistanceAlongRoute() {
+            return distanceAlongRoute;
+        }
+
+        public double getRemainingDistance() {
+            return remainingDistance;
+        }
+
+        public boolean isOffRoute() {
+            return offRoute;
+        }
+
+        @Override
+        public String toString() {
+            return "Snap{" +
+                    "Segment=" + segment +
+                    ", FromRoute=" + distanceFromRoute +
+                    ", Along=" + distanceAlongRoute +
+                    ", Remaining=" + remainingDistance +
+                    ", OffRoute=" + offRoute +
+                    '}';
+        }
+    }
+
+    /**
+     * An interface to publish the result of every fix received by {@link #onLocationChanged(Location)}
+     */
+    public interface TrackerListener {
+        /**
+         * @param snap result of the fix, it is reused by the next fix
+         */
+        void onLocationTracked(Snap snap);
+    }
+}
@@ -0,0 +1,207 @@
+package in.teramatrix.googleservices.service;
+
+import android.os.AsyncTask;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import in.teramatrix.googleservices.GoogleServices;
+import in.teramatrix.googleservices.ResponseListener;
+import in.teramatrix.googleservices.exception.CorruptedResponseException;
+import in.teramatrix.googleservices.model.DistanceMatrix;
+import in.teramatrix.googleservices.model.TravelMode;
+import in.teramatrix.googleservices.util.TourOptimizer;
+
+/**
+ * Local alternative of {@code optimize:true} of Directions API, without its limit on the number of waypoints. It fetches the
+ * durations (or distances) between every pair of stops using {@link DistanceCalculator}, finds a good visiting order of the waypoints
+ * using {@link TourOptimizer} and, if a {@link RouteDesigner} has been given, designs the route through the waypoints in that order.
+ * Origin and destination remain the first and the last stop. It is easy to use class having Builder Pattern.
+ */
+@SuppressWarnings("unused")
+public class WaypointOptimizer extends AsyncTask<LatLng, Void, int[]> {
+
+    /**
+     * Starting point of the tour, it is never moved
+     */
+    private LatLng origin;
+
+    /**
+     * End point of the tour, it is never moved
+     */
+    private LatLng destination;
+
+    /**
+     * Waypoints in the order in which these were given
+     */
+    private LatLng waypoints[];
+
+    /**
+     * Mode of transport for the distance matrix, see {@link TravelMode}
+     */
+    private String mode;
+
+    /**
+     * Keys of Distance Matrix API, see {@link DistanceCalculator}
+     */
+    private String serverKey;
+    private String clientId;
+    private String cryptoKey;
+
+    /**
+     * If true, total distance will be minimized, otherwise total duration
+     */
+    private boolean byDistance;
+
+    /**
+     * Time in milliseconds given to the optimizer after the matrix has been received
+     */
+    private long timeLimit;
+
+    /**
+     * If not null, route will be designed through the optimized waypoints using this designer
+     */
+    private RouteDesigner designer;
+
+    /**
+     * This will publish results to your app module. Just pass an implemented version of this listener in this class
+     * and results will be in your hand.
+     */
+    private OptimizerListener listener;
+
+    public WaypointOptimizer() {
+        //Default Settings
+        this.mode = TravelMode.MODE_DRIVING;
+        this.byDistance = false;
+        this.timeLimit = 500;
+    }
+
+    public WaypointOptimizer setOrigin(LatLng origin) {
+        this.origin = origin;
+        return this;
+    }
+
+    public WaypointOptimizer setDestination(LatLng destination) {
+        this.destination = destination;
+        return this;
+    }
+
+    public WaypointOptimizer setMode(String mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    public WaypointOptimizer setServerKey(String serverKey) {
+        this.serverKey = serverKey;
+        return this;
+    }
+
+    public WaypointOptimizer setClientId(String clientId) {
+        this.clientId = clientId;
+        return this;
+    }
+
+    public WaypointOptimizer setCryptoKey(String cryptoKey) {
+        this.cryptoKey = cryptoKey;
+        return this;
+    }
+
+    public WaypointOptimizer setByDistance(boolean byDistance) {
+        this.byDistance = byDistance;
+        return this;
+    }
+
+    public WaypointOptimizer setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+        return this;
+    }
+
+    /**
+     * @param designer to design the route once waypoints are ordered, its origin and destination will be set by this class
+     */
+    public WaypointOptimizer setRouteDesigner(RouteDesigner designer) {
+        this.designer = designer;
+        return this;
+    }
+
+    public WaypointOptimizer setResponseListener(OptimizerListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * It is just like build method of Builder Pattern. It will execute this {@link AsyncTask} on the
+     * executor of this service, see {@link GoogleServices#getExecutor(Class)}
+     * @param waypoints stops to be visited between origin and destination, in any order
+     */
+    public void optimize(LatLng ... waypoints) {
+        //If origin or destination is null
+        if (origin == null || destination == null)
+            throw new NullPointerException("Origin or Destination can not be null");
+
+        this.executeOnExecutor(GoogleServices.getExecutor(WaypointOptimizer.class), waypoints);
+    }
+
+    @Override
+    protected int[] doInBackground(LatLng... waypoints) {
+        this.waypoints = waypoints;
+        try {
+            //All the stops are both rows and columns of the matrix
+            int size = waypoints.length + 2;
+            LatLng stops[] = new LatLng[size];
+            stops[0] = origin;
+            System.arraycopy(waypoints, 0, stops, 1, waypoints.length);
+            stops[size - 1] = destination;
+
+            DistanceMatrix matrix = new DistanceCalculator(stops)
+                    .setMode(mode)
+                    .setServerKey(serverKey)
+                    .setClientId(clientId)
+                    .setCryptoKey(cryptoKey)
+                    .setRetainJson(false)
+                    .calculateMatrix(stops);
+
+            int tour[] = new TourOptimizer(byDistance ? matrix.getDistances() : matrix.getDurations(), size)
+                    .setTimeLimit(timeLimit)
+                    .optimize(0, size - 1);
+
+            //Dropping origin and destination, remaining stops are indexes of waypoints
+            int order[] = new int[waypoints.length];
+            for (int i = 0; i < order.length; i++)
+                order[i] = tour[i + 1] - 1;
+            return order;
+        } catch (CorruptedResponseException e) {
+            if (listener != null) listener.onRequestFailure(e);
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (listener != null) listener.onRequestFailure(e);
+        }
+        return null;
+    }
+
+    @Override
+    protected void onPostExecute(int[] order) {
+        super.onPostExecute(order);
+        if (order == null)
+            return;
+
+        LatLng ordered[] = new LatLng[order.length];
+        for (int i = 0; i < order.length; i++)
+            ordered[i] = waypoints[order[i]];
+
+        if (listener != null) listener.onRequestCompleted(ordered, order);
+        if (designer != null) designer.setOrigin(origin).setDestination(destination).design(ordered);
+    }
+
+    /**
+     * An interface to publish results in the caller classes. By implementing this,
+     * end user of the module can access final results.
+     */
+    public interface OptimizerListener extends ResponseListener {
+        /**
+         * This method will be invoked once the waypoints have been ordered.
+         * @param waypoints waypoints in optimized visiting order
+         * @param order indexes of the given waypoints in optimized visiting order
+         */
+        void onRequestCompleted(LatLng[] waypoints, int[] order);
+    }
+}
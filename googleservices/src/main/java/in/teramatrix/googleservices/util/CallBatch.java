@@ -0,0 +1,136 @@
+package in.teramatrix.googleservices.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import in.teramatrix.googleservices.exception.CorruptedResponseException;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import static in.teramatrix.googleservices.exception.CorruptedResponseException.NULL_RESPONSE;
+
+/**
+ * Executes a group of http calls concurrently and collects their parsed results in the order of the urls. At most a fixed number of
+ * calls are in flight at the same time. Calls are enqueued on the dispatcher of {@link OkHttpClient} and parsed on its threads,
+ * so no thread of the caller is parked per call; only the calling thread waits for the whole batch. As soon as any call fails, the
+ * calls in flight are cancelled and no further call is started, then the first failure is thrown.
+ */
+public class CallBatch {
+
+    private CallBatch() {
+    }
+
+    /**
+     * Method will execute all the calls and block the calling thread until all of them are finished, so call it from a background
+     * thread only.
+     * @param client to make the calls
+     * @param urls to be called
+     * @param maxConcurrent maximum number of calls in flight at the same time
+     * @param parser to convert a successful response into a result, it is called on the threads of the http client
+     * @return parsed results in the order of urls
+     * @throws Exception first failure of any call or parser
+     */
+    public static <T> List<T> execute(OkHttpClient client, List<String> urls, int maxConcurrent, final Parser<T> parser) throws Exception {
+        final int count = urls.size();
+        final Object[] results = new Object[count];
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final CountDownLatch finished = new CountDownLatch(count);
+        final Semaphore permits = new Semaphore(Math.max(1, maxConcurrent));
+        final List<Call> calls = new ArrayList<>(count);
+
+        try {
+            for (int i = 0; i < count; i++) {
+                permits.acquire();
+                Call call;
+                synchronized (calls) {
+                    if (failure.get() != null) {
+                        //No need to start remaining calls
+                        for (int j = i; j < count; j++) finished.countDown();
+                        break;
+                    }
+                    call = client.newCall(new Request.Builder().url(urls.get(i)).build());
+                    calls.add(call);
+                }
+
+                final int index = i;
+                call.enqueue(new Callback() {
+                    @Override
+                    public void onFailure(Call call, IOException e) {
+                        fail(calls, failure, e);
+                        permits.release();
+                        finished.countDown();
+                    }
+
+                    @Override
+                    public void onResponse(Call call, Response response) throws IOException {
+                        try {
+                            if (response.isSuccessful())
+                                results[index] = parser.parse(index, response);
+                            else
+                                fail(calls, failure, new CorruptedResponseException(NULL_RESPONSE));
+                        } catch (Exception e) {
+                            fail(calls, failure, e);
+                        } finally {
+                            response.body().close();
+                            permits.release();
+                            finished.countDown();
+                        }
+                    }
+                });
+            }
+            //Cancelled calls finish at once, so a failure is not held up by slow calls
+            finished.await();
+        } catch (InterruptedException e) {
+            synchronized (calls) {
+                for (Call call : calls) call.cancel();
+            }
+            throw e;
+        }
+
+        if (failure.get() != null)
+            throw failure.get();
+
+        List<T> list = new ArrayList<>(count);
+        for (Object result : results) {
+            @SuppressWarnings("unchecked")
+            T item = (T) result;
+            list.add(item);
+        }
+        return list;
+    }
+
+    /**
+     * Method will record the first failure of the batch and cancel every call which has been started. Calls are started under the
+     * same lock, so no call is started after the failure.
+     * @param calls started calls
+     * @param failure first failure of the batch
+     * @param e failure of a call
+     */
+    private static void fail(List<Call> calls, AtomicReference<Exception> failure, Exception e) {
+        synchronized (calls) {
+            if (!failure.compareAndSet(null, e))
+                return;
+            for (Call call : calls) call.cancel();
+        }
+    }
+
+    /**
+     * Converts a successful response of a call into its result.
+     */
+    public interface Parser<T> {
+        /**
+         * @param index of the url of this call
+         * @param response successful response, its body will be closed after parsing
+         * @return parsed result
+         * @throws Exception if response can not be parsed
+         */
+        T parse(int index, Response response) throws Exception;
+    }
+}
@@ -0,0 +1,85 @@
+package in.teramatrix.googleservices.util;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.CameraPosition;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A map has a single {@link GoogleMap.OnCameraChangeListener}, so a second {@link in.teramatrix.googleservices.service.RouteDesigner}
+ * set as listener would silently replace the first one. This listener takes that single place and forwards every camera change to
+ * all the designers drawn on the map, which register themselves, and to the own listener of the app, see
+ * {@link #setListener(GoogleMap.OnCameraChangeListener)}. Designers are held weakly, so that a designer which is no longer used
+ * is dropped along with its route. Get it by {@link in.teramatrix.googleservices.GoogleServices#getCameraChangeDispatcher(GoogleMap)}.
+ */
+public class CameraChangeDispatcher implements GoogleMap.OnCameraChangeListener {
+
+    /**
+     * Registered listeners, dead references are removed on the next camera change
+     */
+    private final List<WeakReference<GoogleMap.OnCameraChangeListener>> listeners = new ArrayList<>();
+
+    /**
+     * Own listener of the app, it is held strongly and called after the registered ones
+     */
+    private GoogleMap.OnCameraChangeListener listener;
+
+    /**
+     * Method will register a listener, it is held weakly and added only once
+     * @param listener to be called on every camera change
+     */
+    public synchronized void add(GoogleMap.OnCameraChangeListener listener) {
+        if (listener == null)
+            throw new NullPointerException("Listener can not be null");
+        for (WeakReference<GoogleMap.OnCameraChangeListener> reference : listeners) {
+            if (reference.get() == listener)
+                return;
+        }
+        listeners.add(new WeakReference<>(listener));
+    }
+
+    /**
+     * @param listener to be unregistered
+     */
+    public synchronized void remove(GoogleMap.OnCameraChangeListener listener) {
+        Iterator<WeakReference<GoogleMap.OnCameraChangeListener>> iterator = listeners.iterator();
+        while (iterator.hasNext()) {
+            GoogleMap.OnCameraChangeListener registered = iterator.next().get();
+            if (registered == null || registered == listener)
+                iterator.remove();
+        }
+    }
+
+    /**
+     * Use this instead of {@link GoogleMap#setOnCameraChangeListener(GoogleMap.OnCameraChangeListener)} once this dispatcher is
+     * set on the map, otherwise the app's listener would replace it.
+     * @param listener own listener of the app, or null to clear it
+     */
+    public synchronized CameraChangeDispatcher setListener(GoogleMap.OnCameraChangeListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    @Override
+    public void onCameraChange(CameraPosition position) {
+        //Listeners are called outside the lock, one of them may register another designer
+        List<GoogleMap.OnCameraChangeListener> live = new ArrayList<>();
+        synchronized (this) {
+            Iterator<WeakReference<GoogleMap.OnCameraChangeListener>> iterator = listeners.iterator();
+            while (iterator.hasNext()) {
+                GoogleMap.OnCameraChangeListener registered = iterator.next().get();
+                if (registered == null)
+                    iterator.remove();
+                else
+                    live.add(registered);
+            }
+            if (listener != null)
+                live.add(listener);
+        }
+        for (GoogleMap.OnCameraChangeListener registered : live)
+            registered.onCameraChange(position);
+    }
+}
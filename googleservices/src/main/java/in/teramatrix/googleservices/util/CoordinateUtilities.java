@@ -15,6 +15,17 @@ import java.util.Date;
  */
 @SuppressWarnings("unused")
 public class CoordinateUtilities {
+
+    /**
+     * Mean radius of the earth in meters
+     */
+    private static final double EARTH_RADIUS = 6371000;
+
+    /**
+     * Multiplier from degrees to radians, it saves a division per {@link Math#toRadians(double)}
+     */
+    private static final double RADIANS = Math.PI / 180;
+
     /**
      * Method will simply convert a {@link Location} instance to string and log it.
      * @param current to be logged in logcat
@@ -73,17 +84,245 @@ public class CoordinateUtilities {
     }
 
     /**
-     * @param a starting point
-     * @param b ending point
-     * @return distance between these two points
+     * Great circle distance (haversine) between two points, without creating any object
+     * @return distance in meters
+     */
+    public static double getDistance(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = (lat2 - lat1) * RADIANS;
+        double dLng = (lng2 - lng1) * RADIANS;
+        double x = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(lat1 * RADIANS)
+                * Math.cos(lat2 * RADIANS) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(x), Math.sqrt(1 - x));
+    }
+
+    /**
+     * Great circle distances (haversine) from one point to many points. Trigonometry of the origin is done only once and nothing is
+     * allocated, so it is much faster than calling {@link #getDistance(double, double, double, double)} in a loop.
+     * @param lat latitude of the origin
+     * @param lng longitude of the origin
+     * @param lats latitudes of the points
+     * @param lngs longitudes of the points
+     * @param out in which distances in meters will be written, at least as long as lats
+     * @return out
+     */
+    public static double[] getDistances(double lat, double lng, double lats[], double lngs[], double out[]) {
+        double lat1 = lat * RADIANS;
+        double lng1 = lng * RADIANS;
+        double cos1 = Math.cos(lat1);
+        for (int i = 0; i < lats.length; i++) {
+            double lat2 = lats[i] * RADIANS;
+            double sinLat = Math.sin((lat2 - lat1) * 0.5);
+            double sinLng = Math.sin((lngs[i] * RADIANS - lng1) * 0.5);
+            double x = sinLat * sinLat + cos1 * Math.cos(lat2) * sinLng * sinLng;
+            out[i] = 2 * EARTH_RADIUS * asin(Math.sqrt(Math.min(1, x)));
+        }
+        return out;
+    }
+
+    /**
+     * Method will find the points nearest to the origin by great circle distance, for example to shortlist candidates before asking
+     * road distances of only a few of them. Points are ranked by the haversine term itself, which grows with the distance, so no
+     * inverse trigonometry is done; a bounded max-heap keeps the best k in O(n log k).
+     * @param lat latitude of the origin
+     * @param lng longitude of the origin
+     * @param lats latitudes of the points
+     * @param lngs longitudes of the points
+     * @param k number of points to be found
+     * @return indexes of at most k nearest points, nearest first
+     */
+    public static int[] getNearest(double lat, double lng, double lats[], double lngs[], int k) {
+        k = Math.min(k, lats.length);
+        if (k <= 0) return new int[0];
+
+        int heap[] = new int[k];
+        double scores[] = new double[k];
+        int size = 0;
+
+        double lat1 = lat * RADIANS;
+        double lng1 = lng * RADIANS;
+        double cos1 = Math.cos(lat1);
+        for (int i = 0; i < lats.length; i++) {
+            double lat2 = lats[i] * RADIANS;
+            double sinLat = Math.sin((lat2 - lat1) * 0.5);
+            double sinLng = Math.sin((lngs[i] * RADIANS - lng1) * 0.5);
+            double score = sinLat * sinLat + cos1 * Math.cos(lat2) * sinLng * sinLng;
+
+            if (size < k) {
+                //Sifting up the new point
+                int child = size++;
+                while (child > 0) {
+                    int parent = (child - 1) >>> 1;
+                    if (scores[parent] >= score) break;
+                    heap[child] = heap[parent];
+                    scores[child] = scores[parent];
+                    child = parent;
+                }
+                heap[child] = i;
+                scores[child] = score;
+            } else if (score < scores[0]) {
+                //Replacing the farthest point kept so far
+                siftDown(heap, scores, size, i, score);
+            }
+        }
+
+        //Taking the farthest out one by one fills the result from its end
+        int nearest[] = new int[size];
+        for (int last = size - 1; last >= 0; last--) {
+            nearest[last] = heap[0];
+            siftDown(heap, scores, last, heap[last], scores[last]);
+        }
+        return nearest;
+    }
+
+    /**
+     * Places the point at the root of a max-heap of the given size and moves it down to its position
+     */
+    private static void siftDown(int heap[], double scores[], int size, int index, double score) {
+        int parent = 0;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) break;
+            if (child + 1 < size && scores[child + 1] > scores[child]) child++;
+            if (scores[child] <= score) break;
+            heap[parent] = heap[child];
+            scores[parent] = scores[child];
+            parent = child;
+        }
+        if (size > 0) {
+            heap[parent] = index;
+            scores[parent] = score;
+        }
+    }
+
+    /**
+     * Great circle distances from many points to many points. Every point is turned into a unit vector once, then the distance
+     * of a pair is the angle of the chord between its vectors: three subtractions, a square root and an arc sine, without any
+     * trigonometry of the coordinates in the inner loop. It is the same value as haversine and stays exact for nearby points.
+     * The inner loop is a plain pass over primitive arrays, which the JIT can unroll; see {@link #asin(double)} for the arc sine.
+     * @param lats1 latitudes of the origins, rows of the result
+     * @param lngs1 longitudes of the origins
+     * @param lats2 latitudes of the destinations, columns of the result
+     * @param lngs2 longitudes of the destinations
+     * @param out in which distances in meters will be written in row major order, at least lats1.length * lats2.length long
+     * @return out
      */
-    private double getDistance(LatLng a, LatLng b) {
-        double earthRadius = 6371; //in kilometers
-        double dLat = Math.toRadians(b.latitude-a.latitude);
-        double dLng = Math.toRadians(b.longitude-a.longitude);
-        double x = Math.sin(dLat/2) * Math.sin(dLat/2) + Math.cos(Math.toRadians(a.latitude))
-                * Math.cos(Math.toRadians(b.latitude)) * Math.sin(dLng/2) * Math.sin(dLng/2);
-        double y = 2 * Math.atan2(Math.sqrt(x), Math.sqrt(1-x));
-        return earthRadius * y;
+    public static double[] getDistances(double lats1[], double lngs1[], double lats2[], double lngs2[], double out[]) {
+        int columns = lats2.length;
+        double xs[] = new double[columns];
+        double ys[] = new double[columns];
+        double zs[] = new double[columns];
+        for (int j = 0; j < columns; j++) {
+            double lat = lats2[j] * RADIANS, lng = lngs2[j] * RADIANS;
+            double cos = Math.cos(lat);
+            xs[j] = cos * Math.cos(lng);
+            ys[j] = cos * Math.sin(lng);
+            zs[j] = Math.sin(lat);
+        }
+
+        for (int i = 0; i < lats1.length; i++) {
+            double lat = lats1[i] * RADIANS, lng = lngs1[i] * RADIANS;
+            double cos = Math.cos(lat);
+            double x = cos * Math.cos(lng);
+            double y = cos * Math.sin(lng);
+            double z = Math.sin(lat);
+            int row = i * columns;
+            for (int j = 0; j < columns; j++) {
+                double dx = x - xs[j], dy = y - ys[j], dz = z - zs[j];
+                //Half of the chord is the sine of half of the angle
+                double half = Math.sqrt(dx * dx + dy * dy + dz * dz) * 0.5;
+                out[row + j] = 2 * EARTH_RADIUS * asin(Math.min(1, half));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Arc sine of half of a chord. {@link Math#asin(double)} is not an intrinsic of the JIT and costs more than the rest of a
+     * distance, so up to 0.2 (about 2500 km) it is the Taylor series up to x^15, whose error is about 0.2 micrometer on the
+     * ground at 0.2 and far less for shorter chords. Longer chords fall back to an exact {@link Math#atan2(double, double)}.
+     */
+    private static double asin(double x) {
+        if (x > 0.2)
+            return Math.atan2(x, Math.sqrt(1 - x * x));
+        double x2 = x * x;
+        return x * (1 + x2 * (1.0 / 6 + x2 * (3.0 / 40 + x2 * (5.0 / 112 + x2 * (35.0 / 1152 + x2 * (63.0 / 2816
+                + x2 * (231.0 / 13312 + x2 * (143.0 / 10240))))))));
+    }
+
+    /**
+     * Initial bearings (forward azimuths) from one point to many points
+     * @param lat latitude of the origin
+     * @param lng longitude of the origin
+     * @param lats latitudes of the points
+     * @param lngs longitudes of the points
+     * @param out in which bearings in degrees clockwise from north (0 to 360) will be written, at least as long as lats
+     * @return out
+     */
+    public static double[] getBearings(double lat, double lng, double lats[], double lngs[], double out[]) {
+        double lat1 = lat * RADIANS;
+        double lng1 = lng * RADIANS;
+        double sin1 = Math.sin(lat1);
+        double cos1 = Math.cos(lat1);
+        for (int i = 0; i < lats.length; i++) {
+            double lat2 = lats[i] * RADIANS;
+            double dLng = lngs[i] * RADIANS - lng1;
+            double cos2 = Math.cos(lat2);
+            double y = Math.sin(dLng) * cos2;
+            double x = cos1 * Math.sin(lat2) - sin1 * cos2 * Math.cos(dLng);
+            double bearing = Math.atan2(y, x) / RADIANS;
+            out[i] = bearing < 0 ? bearing + 360 : bearing;
+        }
+        return out;
+    }
+
+    /**
+     * Bounding box of the points in degrees. Boxes crossing the 180th meridian are not handled, their west and east are -180 and 180.
+     * @param lats latitudes of the points
+     * @param lngs longitudes of the points
+     * @param out in which south, west, north and east will be written, at least 4 long
+     * @return out, or NaN values if there's no point
+     */
+    public static double[] getBounds(double lats[], double lngs[], double out[]) {
+        if (lats.length == 0) {
+            out[0] = out[1] = out[2] = out[3] = Double.NaN;
+            return out;
+        }
+
+        double south = lats[0], north = lats[0];
+        double west = lngs[0], east = lngs[0];
+        for (int i = 1; i < lats.length; i++) {
+            double lat = lats[i], lng = lngs[i];
+            south = lat < south ? lat : south;
+            north = lat > north ? lat : north;
+            west = lng < west ? lng : west;
+            east = lng > east ? lng : east;
+        }
+        out[0] = south;
+        out[1] = west;
+        out[2] = north;
+        out[3] = east;
+        return out;
+    }
+
+    /**
+     * Geographic centroid of the points: the mean of their unit vectors projected back on the sphere. Unlike the mean of
+     * latitudes and longitudes, it is right for points on both sides of the 180th meridian.
+     * @param lats latitudes of the points
+     * @param lngs longitudes of the points
+     * @return centroid, or null if there's no point or the points cancel each other out (antipodes)
+     */
+    public static LatLng getCentroid(double lats[], double lngs[]) {
+        double x = 0, y = 0, z = 0;
+        for (int i = 0; i < lats.length; i++) {
+            double lat = lats[i] * RADIANS, lng = lngs[i] * RADIANS;
+            double cos = Math.cos(lat);
+            x += cos * Math.cos(lng);
+            y += cos * Math.sin(lng);
+            z += Math.sin(lat);
+        }
+        double horizontal = Math.sqrt(x * x + y * y);
+        if (horizontal == 0 && z == 0)
+            return null;
+        return new LatLng(Math.atan2(z, horizontal) / RADIANS, Math.atan2(y, x) / RADIANS);
     }
 }
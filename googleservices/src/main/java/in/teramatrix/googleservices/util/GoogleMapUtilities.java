@@ -153,6 +153,17 @@ public class GoogleMapUtilities {
         map.animateCamera(CameraUpdateFactory.newLatLngBounds(builder.build(), 100));
     }
 
+    /**
+     * Ground resolution of Google Map, that is how many meters a single pixel (density independent) covers at this latitude and
+     * zoom level. Zoom level 0 is the whole world in 256 pixels and every next level doubles it.
+     * @param latitude at which resolution is needed
+     * @param zoom level of the map camera
+     * @return meters per pixel
+     */
+    public static double getMetersPerPixel(double latitude, float zoom) {
+        return 156543.03392 * Math.cos(Math.toRadians(latitude)) / Math.pow(2, zoom);
+    }
+
     /**
      * Whenever user clicks on any marker on the map, an info window is visible. If there's a requirement to change the layout of
      * default info window then this method may be helpful. In the method, {@code getInfoContents()} has been overridden to set up custom
@@ -0,0 +1,127 @@
+package in.teramatrix.googleservices.util;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An {@link Executor} that runs its tasks on another (shared) executor but never lets more than a fixed number of them run at the
+ * same time. Tasks beyond that limit wait in a bounded queue of their own, and a task is rejected with {@link RejectedExecutionException}
+ * when that queue is full. It is used to give every service of this module its own concurrency limit over one shared thread pool, so
+ * a burst of slow Directions calls can not starve the geocoders.
+ */
+public class LimitedExecutor implements Executor {
+
+    /**
+     * Executor on which the tasks are actually run
+     */
+    private final Executor delegate;
+
+    /**
+     * Maximum number of tasks of this executor that may run at the same time
+     */
+    private final int limit;
+
+    /**
+     * Maximum number of tasks that may wait for a free slot
+     */
+    private final int queueSize;
+
+    /**
+     * Tasks waiting for a free slot
+     */
+    private final ArrayDeque<Runnable> pending;
+
+    /**
+     * Number of tasks which have been handed over to the delegate and are not finished yet
+     */
+    private int active;
+
+    public LimitedExecutor(Executor delegate, int limit, int queueSize) {
+        if (delegate == null)
+            throw new NullPointerException("Executor can not be null");
+        if (limit <= 0 || queueSize < 0)
+            throw new IllegalArgumentException("Limit must be positive and queue size can not be negative");
+
+        this.delegate = delegate;
+        this.limit = limit;
+        this.queueSize = queueSize;
+        this.pending = new ArrayDeque<>();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null)
+            throw new NullPointerException("Task can not be null");
+
+        synchronized (this) {
+            if (active >= limit && pending.size() >= queueSize)
+                throw new RejectedExecutionException("Queue of " + queueSize + " tasks is full");
+            pending.offer(command);
+        }
+        drain(command);
+    }
+
+    /**
+     * @return number of tasks running right now
+     */
+    public synchronized int getActiveCount() {
+        return active;
+    }
+
+    /**
+     * @return number of tasks waiting for a free slot
+     */
+    public synchronized int getQueuedCount() {
+        return pending.size();
+    }
+
+    /**
+     * This method will hand over waiting tasks to the delegate as long as there are free slots. If the delegate rejects a task while
+     * other tasks of this executor are running, it goes back to the head of the queue and will be retried when one of them finishes.
+     * If none is running, nothing would retry it, so it is failed instead: the caller's own task is rejected back to the caller, and
+     * a task of another caller is cancelled if it is a {@link Future} (as the tasks of {@link android.os.AsyncTask} are), so that
+     * its caller gets its cancellation. Any other task is kept for the next call of {@link #execute(Runnable)}. A finishing task
+     * never throws for the others.
+     * @param command task of the caller of {@link #execute(Runnable)}, or null if called by a finishing task
+     */
+    private void drain(Runnable command) {
+        while (true) {
+            final Runnable next;
+            synchronized (this) {
+                if (active >= limit || pending.isEmpty()) return;
+                next = pending.poll();
+                active++;
+            }
+
+            try {
+                delegate.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            next.run();
+                        } finally {
+                            synchronized (LimitedExecutor.this) {
+                                active--;
+                            }
+                            drain(null);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    active--;
+                    if (next != command && (active > 0 || !(next instanceof Future))) {
+                        pending.addFirst(next);
+                        return;
+                    }
+                }
+                if (next == command)
+                    throw e;
+                //Cancelled outside the lock, its completion may call back into other code; remaining tasks are tried next
+                ((Future<?>) next).cancel(false);
+            }
+        }
+    }
+}
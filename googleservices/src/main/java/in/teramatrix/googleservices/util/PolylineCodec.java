@@ -0,0 +1,160 @@
+package in.teramatrix.googleservices.util;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.List;
+
+import in.teramatrix.googleservices.model.Path;
+
+/**
+ * Encoder and decoder of the <a href="https://developers.google.com/maps/documentation/utilities/polylinealgorithm">Encoded Polyline
+ * Algorithm Format</a>. Decoding goes straight into the primitive buffer of a {@link Path}, from a {@link CharSequence} or from raw
+ * ASCII bytes, without copying the input and without creating any object per vertex.
+ */
+@SuppressWarnings("unused")
+public class PolylineCodec {
+
+    private PolylineCodec() {
+    }
+
+    /**
+     * Method will decode an encoded polyline and append its vertices to the path
+     * @param encoded polyline, for example "points" of "overview_polyline" in the response of Directions API
+     * @param path in which vertices will be appended, it may be reused across calls after {@link Path#clear()}
+     * @return number of decoded vertices
+     */
+    public static int decode(CharSequence encoded, Path path) {
+        return decode(encoded, 0, encoded.length(), path);
+    }
+
+    /**
+     * @param encoded polyline
+     * @param start index of first character (inclusive)
+     * @param end index of last character (exclusive)
+     * @param path in which vertices will be appended
+     * @return number of decoded vertices
+     */
+    public static int decode(CharSequence encoded, int start, int end, Path path) {
+        //Every vertex takes at least two characters
+        path.ensureCapacity(path.size() + (end - start) / 2);
+        int count = 0;
+        int index = start;
+        int lat = 0, lng = 0;
+        while (index < end) {
+            int b, shift = 0, result = 0;
+            do {
+                b = encoded.charAt(index++) - 63;
+                result |= (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            lat += ((result & 1) != 0 ? ~(result >> 1) : (result >> 1));
+
+            shift = 0;
+            result = 0;
+            do {
+                b = encoded.charAt(index++) - 63;
+                result |= (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            lng += ((result & 1) != 0 ? ~(result >> 1) : (result >> 1));
+
+            path.add(lat, lng);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Same as {@link #decode(CharSequence, Path)} but works on ASCII bytes, for example a slice of a response buffer
+     * @param encoded bytes of polyline
+     * @param offset index of first byte
+     * @param length number of bytes
+     * @param path in which vertices will be appended
+     * @return number of decoded vertices
+     */
+    public static int decode(byte encoded[], int offset, int length, Path path) {
+        path.ensureCapacity(path.size() + length / 2);
+        int count = 0;
+        int index = offset;
+        int end = offset + length;
+        int lat = 0, lng = 0;
+        while (index < end) {
+            int b, shift = 0, result = 0;
+            do {
+                b = encoded[index++] - 63;
+                result |= (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            lat += ((result & 1) != 0 ? ~(result >> 1) : (result >> 1));
+
+            shift = 0;
+            result = 0;
+            do {
+                b = encoded[index++] - 63;
+                result |= (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            lng += ((result & 1) != 0 ? ~(result >> 1) : (result >> 1));
+
+            path.add(lat, lng);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @param path to be encoded
+     * @return encoded polyline of all the vertices of path
+     */
+    public static String encode(Path path) {
+        return encode(path, 0, path.size());
+    }
+
+    /**
+     * @param path to be encoded
+     * @param start index of first vertex (inclusive)
+     * @param end index of last vertex (exclusive)
+     * @return encoded polyline of these vertices
+     */
+    public static String encode(Path path, int start, int end) {
+        StringBuilder builder = new StringBuilder((end - start) * 8);
+        int lat = 0, lng = 0;
+        for (int i = start; i < end; i++) {
+            encode(path.getLatE5(i) - lat, builder);
+            encode(path.getLngE5(i) - lng, builder);
+            lat = path.getLatE5(i);
+            lng = path.getLngE5(i);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param points to be encoded
+     * @return encoded polyline
+     */
+    public static String encode(List<LatLng> points) {
+        StringBuilder builder = new StringBuilder(points.size() * 8);
+        int lat = 0, lng = 0;
+        for (LatLng point : points) {
+            int latE5 = (int) Math.round(point.latitude * Path.E5);
+            int lngE5 = (int) Math.round(point.longitude * Path.E5);
+            encode(latE5 - lat, builder);
+            encode(lngE5 - lng, builder);
+            lat = latE5;
+            lng = lngE5;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Encodes a single signed value: zig-zag, then 5 bit chunks from the lowest, 0x20 marks that more chunks follow
+     */
+    private static void encode(int value, StringBuilder builder) {
+        value = value < 0 ? ~(value << 1) : (value << 1);
+        while (value >= 0x20) {
+            builder.append((char) ((0x20 | (value & 0x1f)) + 63));
+            value >>= 5;
+        }
+        builder.append((char) (value + 63));
+    }
+}
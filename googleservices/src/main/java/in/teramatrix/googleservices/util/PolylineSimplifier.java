@@ -0,0 +1,110 @@
+package in.teramatrix.googleservices.util;
+
+import in.teramatrix.googleservices.model.Path;
+
+/**
+ * Douglas-Peucker simplification of a {@link Path}. Vertices which are closer than a tolerance (in meters) to the line through their
+ * neighbours that are kept are dropped, so the shape is preserved within the tolerance while most vertices of straight stretches
+ * disappear. Consecutive duplicate vertices are always dropped. It is iterative (no recursion on long routes) and works on the E5
+ * integers of the path, projected on a local plane around the path.
+ */
+@SuppressWarnings("unused")
+public class PolylineSimplifier {
+
+    /**
+     * Approximate length of one E5 unit of latitude in meters
+     */
+    private static final double METERS_PER_E5 = 111320.0 / Path.E5;
+
+    private PolylineSimplifier() {
+    }
+
+    /**
+     * @param path to be simplified, it is not modified
+     * @param tolerance maximum distance in meters between the original and the simplified line
+     * @param out in which kept vertices will be appended, it may be reused across calls after {@link Path#clear()}
+     * @return out
+     */
+    public static Path simplify(Path path, double tolerance, Path out) {
+        int size = path.size();
+        if (size < 3) {
+            appendDistinct(path, 0, size, out);
+            return out;
+        }
+
+        int coordinates[] = path.getCoordinates();
+        //Longitude is scaled by cosine of the middle latitude, it is accurate enough within a route
+        double middle = (coordinates[0] + coordinates[(size - 1) * 2]) / 2.0 / Path.E5;
+        double scaleX = METERS_PER_E5 * Math.cos(Math.toRadians(middle));
+        double scaleY = METERS_PER_E5;
+        double squaredTolerance = tolerance * tolerance;
+
+        boolean keep[] = new boolean[size];
+        keep[0] = true;
+        keep[size - 1] = true;
+
+        //Ranges still to be examined, first and last index of each range
+        int stack[] = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            double ax = coordinates[first * 2 + 1] * scaleX, ay = coordinates[first * 2] * scaleY;
+            double bx = coordinates[last * 2 + 1] * scaleX, by = coordinates[last * 2] * scaleY;
+            double dx = bx - ax, dy = by - ay;
+            double length = dx * dx + dy * dy;
+
+            double max = -1;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                double px = coordinates[i * 2 + 1] * scaleX - ax, py = coordinates[i * 2] * scaleY - ay;
+                double distance;
+                if (length == 0) {
+                    distance = px * px + py * py;
+                } else {
+                    //Distance from the segment, not from the infinite line, so that loops are not lost
+                    double t = Math.max(0, Math.min(1, (px * dx + py * dy) / length));
+                    double ex = px - t * dx, ey = py - t * dy;
+                    distance = ex * ex + ey * ey;
+                }
+                if (distance > max) {
+                    max = distance;
+                    index = i;
+                }
+            }
+
+            if (index != -1 && max > squaredTolerance) {
+                keep[index] = true;
+                if (top + 4 > stack.length) {
+                    int grown[] = new int[stack.length * 2];
+                    System.arraycopy(stack, 0, grown, 0, top);
+                    stack = grown;
+                }
+                stack[top++] = first;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = last;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) appendDistinct(path, i, i + 1, out);
+        }
+        return out;
+    }
+
+    /**
+     * Appends vertices, skipping the ones which are equal to the last vertex of out
+     */
+    private static void appendDistinct(Path path, int start, int end, Path out) {
+        for (int i = start; i < end; i++) {
+            int n = out.size();
+            if (n > 0 && out.getLatE5(n - 1) == path.getLatE5(i) && out.getLngE5(n - 1) == path.getLngE5(i))
+                continue;
+            out.add(path.getLatE5(i), path.getLngE5(i));
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package in.teramatrix.googleservices.util;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import in.teramatrix.googleservices.model.Leg;
+import in.teramatrix.googleservices.model.Path;
+import in.teramatrix.googleservices.model.Route;
+import in.teramatrix.googleservices.model.Step;
+
+/**
+ * Compact binary format of {@link Route} to keep routes on disk and load them back without calling Directions API. Vertices are
+ * stored as differences of E5 coordinates from the previous vertex, zig-zag encoded into group varints: a tag byte tells the length
+ * (one to four bytes, little-endian) of each of the next four values, that is of two vertices, so a vertex of a road usually takes
+ * two to three bytes and a reader knows where the values are before reading them. Legs and steps keep their metadata; polylines of
+ * steps stay encoded, as in memory. Files are read through a memory mapped buffer; vertices of a route are copied out of it at once
+ * and decoded in a loop without branches into the primitive buffer of {@link Path}. Overview polyline of a route is not stored,
+ * {@link Route} encodes it again from the path when it is asked for.
+ * A file may carry the fingerprint of the request it answers (for example its quantized points and options), a reader asking for
+ * another fingerprint gets no routes.
+ * <pre>
+ * file   : magic "GSRT", version, fingerprint, route count, routes
+ * route  : summary, leg count, legs, vertex count, byte length of vertices, groups
+ * leg    : start address, end address, start, end, distance text, distance, duration text, duration, step count, steps
+ * step   : instructions, maneuver, travel mode, start, end, distance text, distance, duration text, duration, encoded polyline
+ * group  : tag of two bits (length - 1) per value, zig-zag deltas of latitude E5 and longitude E5 of two vertices
+ * string : varint length + 1 (zero means null) and UTF-8 bytes
+ * point  : zig-zag varint latitude E5 and longitude E5
+ * </pre>
+ */
+@SuppressWarnings("unused")
+public class RouteFormat {
+
+    private static final int MAGIC = 0x47535254;
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private RouteFormat() {
+    }
+
+    /**
+     * Method will write the routes into the file without a fingerprint, replacing it if it exists
+     * @param routes to be written, routes must have been decoded
+     * @param file in which routes will be written
+     */
+    public static void write(List<Route> routes, File file) throws IOException {
+        write(routes, null, file);
+    }
+
+    /**
+     * Method will write the routes into the file, replacing it if it exists
+     * @param routes to be written, routes must have been decoded
+     * @param fingerprint of the request of these routes, or null
+     * @param file in which routes will be written
+     */
+    public static void write(List<Route> routes, String fingerprint, File file) throws IOException {
+        Output out = new Output(4096);
+        out.writeInt(MAGIC);
+        out.writeVarint(VERSION);
+        out.writeString(fingerprint);
+        out.writeVarint(routes.size());
+        for (Route route : routes) {
+            out.writeString(route.getSummary());
+            out.writeVarint(route.getLegs().size());
+            for (Leg leg : route.getLegs()) {
+                out.writeString(leg.getStartAddress());
+                out.writeString(leg.getEndAddress());
+                out.writeLatLng(leg.getStartLocation());
+                out.writeLatLng(leg.getEndLocation());
+                out.writeString(leg.getDistanceText());
+                out.writeVarint(leg.getDistanceValue());
+                out.writeString(leg.getDurationText());
+                out.writeVarint(leg.getDurationValue());
+                out.writeVarint(leg.getSteps().size());
+                for (Step step : leg.getSteps()) {
+                    out.writeString(step.getInstructions());
+                    out.writeString(step.getManeuver());
+                    out.writeString(step.getTravelMode());
+                    out.writeLatLng(step.getStartLocation());
+                    out.writeLatLng(step.getEndLocation());
+                    out.writeString(step.getDistanceText());
+                    out.writeVarint(step.getDistanceValue());
+                    out.writeString(step.getDurationText());
+                    out.writeVarint(step.getDurationValue());
+                    out.writeString(step.getEncodedPolyline());
+                }
+            }
+
+            Path path = route.getPath();
+            int size = path == null ? 0 : path.size();
+            //Deltas of latitudes and longitudes, padded with zeros to whole groups
+            int deltas[] = new int[(size + 1) / 2 * 4];
+            for (int i = 0; i < size; i++) {
+                deltas[i * 2] = path.getLatE5(i) - (i == 0 ? 0 : path.getLatE5(i - 1));
+                deltas[i * 2 + 1] = path.getLngE5(i) - (i == 0 ? 0 : path.getLngE5(i - 1));
+            }
+            Output vertices = new Output(size * 3 + 1);
+            for (int i = 0; i < deltas.length; i += 4)
+                vertices.writeGroup(deltas, i);
+            //Length of vertices lets the reader copy them out of the buffer at once
+            out.writeVarint(size);
+            out.writeVarint(vertices.size);
+            out.ensure(vertices.size);
+            System.arraycopy(vertices.bytes, 0, out.bytes, out.size, vertices.size);
+            out.size += vertices.size;
+        }
+
+        //Writing to a temporary file first, so that a reader never sees a half written file
+        File temp = new File(file.getPath() + ".tmp");
+        FileOutputStream stream = new FileOutputStream(temp);
+        try {
+            stream.write(out.bytes, 0, out.size);
+            stream.getFD().sync();
+        } finally {
+            stream.close();
+        }
+        if (!temp.renameTo(file)) {
+            //Rename can not replace an existing file on some file systems
+            if (!file.delete() || !temp.renameTo(file)) {
+                temp.delete();
+                throw new IOException("Unable to write " + file);
+            }
+        }
+    }
+
+    /**
+     * Method will read the routes back from the file, whatever their fingerprint is
+     * @param file written by {@link #write(List, String, File)}
+     * @return routes in the order in which they were written
+     * @throws IOException if file can not be read or it is not in this format
+     */
+    public static List<Route> read(File file) throws IOException {
+        return read(file, null);
+    }
+
+    /**
+     * Method will read the routes back from the file if these have been written for the same request
+     * @param file written by {@link #write(List, String, File)}
+     * @param fingerprint of the request, or null to accept routes of any request
+     * @return routes in the order in which they were written, null if the file has been written with another fingerprint
+     * @throws IOException if file can not be read or it is not in this format
+     */
+    public static List<Route> read(File file, String fingerprint) throws IOException {
+        RandomAccessFile access = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = access.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer, fingerprint);
+        } finally {
+            access.close();
+        }
+    }
+
+    /**
+     * @param buffer positioned at the beginning of the routes
+     * @return routes in the order in which they were written, whatever their fingerprint is
+     */
+    public static List<Route> read(ByteBuffer buffer) throws IOException {
+        return read(buffer, null);
+    }
+
+    /**
+     * @param buffer positioned at the beginning of the routes
+     * @param fingerprint of the request, or null to accept routes of any request
+     * @return routes in the order in which they were written, null if these have been written with another fingerprint
+     */
+    public static List<Route> read(ByteBuffer buffer, String fingerprint) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC || readVarint(buffer) != VERSION)
+                throw new IOException("Not a route file");
+            String written = readString(buffer);
+            if (fingerprint != null && !fingerprint.equals(written))
+                return null;
+
+            int count = readVarint(buffer);
+            List<Route> routes = new ArrayList<>(count);
+            for (int r = 0; r < count; r++) {
+                Route route = new Route();
+                route.setSummary(readString(buffer));
+                int legs = readVarint(buffer);
+                for (int l = 0; l < legs; l++) {
+                    Leg leg = new Leg();
+                    leg.setStartAddress(readString(buffer));
+                    leg.setEndAddress(readString(buffer));
+                    leg.setStartLocation(readLatLng(buffer));
+                    leg.setEndLocation(readLatLng(buffer));
+                    leg.setDistanceText(readString(buffer));
+                    leg.setDistanceValue(readVarint(buffer));
+                    leg.setDurationText(readString(buffer));
+                    leg.setDurationValue(readVarint(buffer));
+                    int steps = readVarint(buffer);
+                    for (int s = 0; s < steps; s++) {
+                        Step step = new Step();
+                        step.setInstructions(readString(buffer));
+                        step.setManeuver(readString(buffer));
+                        step.setTravelMode(readString(buffer));
+                        step.setStartLocation(readLatLng(buffer));
+                        step.setEndLocation(readLatLng(buffer));
+                        step.setDistanceText(readString(buffer));
+                        step.setDistanceValue(readVarint(buffer));
+                        step.setDurationText(readString(buffer));
+                        step.setDurationValue(readVarint(buffer));
+                        step.setEncodedPolyline(readString(buffer));
+                        leg.getSteps().add(step);
+                    }
+                    route.getLegs().add(leg);
+                }
+
+                int size = readVarint(buffer);
+                int length = readVarint(buffer);
+                //Padding lets the last value be read as four bytes too
+                byte vertices[] = new byte[length + 3];
+                buffer.get(vertices, 0, length);
+                route.setPath(readPath(vertices, length, size));
+                routes.add(route);
+            }
+            return routes;
+        } catch (RuntimeException e) {
+            //Truncated or corrupted file
+            throw new IOException("Corrupted route file", e);
+        }
+    }
+
+    /**
+     * Tight loop over plain arrays, it is where most of the time of reading goes. Every value is read as four bytes and masked to
+     * the length given by its tag, so there's no branch on the bytes, and it is added to the latitude or longitude of the previous
+     * vertex; padding values are zeros, so they don't change the sums.
+     * @param bytes groups of zig-zag deltas of vertices, followed by three bytes of padding
+     * @param length number of bytes of groups
+     * @param size number of vertices
+     * @return decoded path
+     */
+    private static Path readPath(byte bytes[], int length, int size) throws IOException {
+        int coordinates[] = new int[(size + 1) / 2 * 4];
+        int index = 0;
+        int lat = 0, lng = 0;
+        for (int i = 0; i < coordinates.length; i += 4) {
+            int tag = bytes[index++] & 0xff;
+            for (int j = i; j < i + 4; j += 2) {
+                int bytesOfValue = (tag & 3) + 1;
+                int value = getInt(bytes, index) & (-1 >>> (32 - 8 * bytesOfValue));
+                index += bytesOfValue;
+                lat += (value >>> 1) ^ -(value & 1);
+                coordinates[j] = lat;
+
+                bytesOfValue = (tag >>> 2 & 3) + 1;
+                value = getInt(bytes, index) & (-1 >>> (32 - 8 * bytesOfValue));
+                index += bytesOfValue;
+                lng += (value >>> 1) ^ -(value & 1);
+                coordinates[j + 1] = lng;
+                tag >>>= 4;
+            }
+        }
+        if (index != length)
+            throw new IOException("Corrupted route file");
+        return new Path(coordinates, size);
+    }
+
+    /**
+     * @return four bytes at the index, little-endian
+     */
+    private static int getInt(byte bytes[], int index) {
+        return (bytes[index] & 0xff) | (bytes[index + 1] & 0xff) << 8 | (bytes[index + 2] & 0xff) << 16 | bytes[index + 3] << 24;
+    }
+
+    private static int readVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int readZigzag(ByteBuffer buffer) throws IOException {
+        int value = readVarint(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = readVarint(buffer) - 1;
+        if (length < 0) return null;
+        byte bytes[] = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static LatLng readLatLng(ByteBuffer buffer) throws IOException {
+        if (buffer.get() == 0) return null;
+        int lat = readZigzag(buffer);
+        int lng = readZigzag(buffer);
+        return new LatLng(lat / Path.E5, lng / Path.E5);
+    }
+
+    /**
+     * A growable byte array, it is not synchronized unlike {@link java.io.ByteArrayOutputStream}
+     */
+    private static class Output {
+        private byte bytes[];
+        private int size;
+
+        private Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+
+        private void writeInt(int value) {
+            ensure(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7f) != 0) {
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeZigzag(int value) {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+
+        /**
+         * Writes four values behind a tag of their lengths
+         * @param values of which four will be written, as zig-zag integers of one to four bytes
+         * @param offset of the first value
+         */
+        private void writeGroup(int values[], int offset) {
+            ensure(17);
+            int tag = size++;
+            bytes[tag] = 0;
+            for (int j = 0; j < 4; j++) {
+                int value = values[offset + j];
+                int zigzag = (value << 1) ^ (value >> 31);
+                int length = zigzag >>> 8 == 0 ? 1 : zigzag >>> 16 == 0 ? 2 : zigzag >>> 24 == 0 ? 3 : 4;
+                bytes[tag] |= (length - 1) << (2 * j);
+                for (int k = 0; k < length; k++) {
+                    bytes[size++] = (byte) zigzag;
+                    zigzag >>>= 8;
+                }
+            }
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte data[] = value.getBytes(UTF_8);
+            writeVarint(data.length + 1);
+            ensure(data.length);
+            System.arraycopy(data, 0, bytes, size, data.length);
+            size += data.length;
+        }
+
+        private void writeLatLng(LatLng value) {
+            ensure(1);
+            if (value == null) {
+                bytes[size++] = 0;
+                return;
+            }
+            bytes[size++] = 1;
+            writeZigzag((int) Math.round(value.latitude * Path.E5));
+            writeZigzag((int) Math.round(value.longitude * Path.E5));
+        }
+    }
+}
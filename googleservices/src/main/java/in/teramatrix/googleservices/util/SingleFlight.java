@@ -0,0 +1,88 @@
+package in.teramatrix.googleservices.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request coalescing, also known as single-flight. When several callers ask for the same key at the same time, only the first one
+ * executes the loader (network call and parsing) and the others simply wait for its result. Once the call is finished, the key is
+ * forgotten, so it is not a cache; the next request for the same key will be executed again.
+ * @param <V> type of the shared result
+ */
+public class SingleFlight<V> {
+
+    /**
+     * Calls which are in flight right now, by their key
+     */
+    private final Map<String, FutureTask<V>> calls = new HashMap<>();
+
+    /**
+     * Number of loaders actually executed
+     */
+    private final AtomicLong executed = new AtomicLong();
+
+    /**
+     * Number of requests which were served by a call of another caller
+     */
+    private final AtomicLong collapsed = new AtomicLong();
+
+    /**
+     * Method will execute the loader, or join the call already in flight for the same key. It will block the calling thread until
+     * the result is available, so call it from a background thread only.
+     * @param key identity of the request, for example its url
+     * @param loader to be executed if no identical call is in flight
+     * @return result of the loader, shared by all the concurrent callers
+     * @throws Exception thrown by the loader
+     */
+    public V execute(String key, Callable<V> loader) throws Exception {
+        FutureTask<V> task;
+        boolean owner = false;
+        synchronized (calls) {
+            task = calls.get(key);
+            if (task == null) {
+                task = new FutureTask<>(loader);
+                calls.put(key, task);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            executed.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                synchronized (calls) {
+                    calls.remove(key);
+                }
+            }
+        } else {
+            collapsed.incrementAndGet();
+        }
+
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of network calls actually made
+     */
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * @return number of requests which shared the call of another caller instead of making their own
+     */
+    public long getCollapsedCount() {
+        return collapsed.get();
+    }
+}
@@ -0,0 +1,22 @@
+package in.teramatrix.googleservices;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExecutorSettingsTest {
+
+    @Test
+    public void serviceWithoutLimitLeavesAThreadToOthers() {
+        ExecutorSettings settings = new ExecutorSettings().setPoolSize(4).setLimit(String.class, 2);
+        assertEquals(3, settings.getLimit(Object.class));
+        assertEquals(2, settings.getLimit(String.class));
+    }
+
+    @Test
+    public void limitIsBoundedByPool() {
+        ExecutorSettings settings = new ExecutorSettings().setPoolSize(4).setLimit(String.class, 10);
+        assertEquals(4, settings.getLimit(String.class));
+        assertEquals(1, new ExecutorSettings().setPoolSize(1).getLimit(Object.class));
+    }
+}
@@ -0,0 +1,22 @@
+package in.teramatrix.googleservices.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the JMH benchmarks of this module. Benchmarks are compiled along with the unit tests (JMH generates its code while
+ * the test sources are compiled), but they are not tests and are never run by {@code gradlew test}. Run this class from the IDE with
+ * the unit test classpath, optionally passing a regular expression of the benchmarks to be run, for example {@code PolylineCodec}.
+ * Allocation per operation is reported by the GC profiler as {@code gc.alloc.rate.norm}.
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ".*Benchmark.*")
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package in.teramatrix.googleservices.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import in.teramatrix.googleservices.util.CoordinateUtilities;
+
+/**
+ * Batch kernels of {@link CoordinateUtilities} against the same work done with the scalar
+ * {@link CoordinateUtilities#getDistance(double, double, double, double)}: distances from one point to all the points, distances
+ * between all the pairs of a square matrix, and the nearest points, which the scalar way finds by sorting all the distances.
+ * Points are random within about 50 km of a city, like the stops of a delivery run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinateUtilitiesBenchmark {
+
+    @Param({"100", "1000"})
+    public int points;
+
+    private double lats[];
+    private double lngs[];
+    private double distances[];
+    private double matrix[];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        lats = new double[points];
+        lngs = new double[points];
+        for (int i = 0; i < points; i++) {
+            lats[i] = 26.9 + 0.9 * (random.nextDouble() - 0.5);
+            lngs[i] = 75.8 + 0.9 * (random.nextDouble() - 0.5);
+        }
+        distances = new double[points];
+        matrix = new double[points * points];
+    }
+
+    @Benchmark
+    public double[] oneToManyScalar() {
+        for (int i = 0; i < points; i++)
+            distances[i] = CoordinateUtilities.getDistance(lats[0], lngs[0], lats[i], lngs[i]);
+        return distances;
+    }
+
+    @Benchmark
+    public double[] oneToManyKernel() {
+        return CoordinateUtilities.getDistances(lats[0], lngs[0], lats, lngs, distances);
+    }
+
+    @Benchmark
+    public double[] manyToManyScalar() {
+        for (int i = 0; i < points; i++) {
+            for (int j = 0; j < points; j++)
+                matrix[i * points + j] = CoordinateUtilities.getDistance(lats[i], lngs[i], lats[j], lngs[j]);
+        }
+        return matrix;
+    }
+
+    @Benchmark
+    public double[] manyToManyKernel() {
+        return CoordinateUtilities.getDistances(lats, lngs, lats, lngs, matrix);
+    }
+
+    @Benchmark
+    public double nearestBySort() {
+        for (int i = 0; i < points; i++)
+            distances[i] = CoordinateUtilities.getDistance(lats[0], lngs[0], lats[i], lngs[i]);
+        double sorted[] = distances.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(10, points) - 1];
+    }
+
+    @Benchmark
+    public int[] nearestKernel() {
+        return CoordinateUtilities.getNearest(lats[0], lngs[0], lats, lngs, 10);
+    }
+}
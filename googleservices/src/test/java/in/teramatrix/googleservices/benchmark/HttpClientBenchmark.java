@@ -0,0 +1,169 @@
+package in.teramatrix.googleservices.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ServerSocketFactory;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import in.teramatrix.googleservices.HttpSettings;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.internal.SslContextBuilder;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Per call latency and allocation of the shared client built by {@link HttpSettings} against a client created for every call, which
+ * is what every service did before the client was shared. Calls go to a local HTTPS server answering a geocoding sized response, so
+ * the difference is the connection setup and TLS handshake that a warm pooled connection skips. The fresh client's connection is
+ * evicted after its call, otherwise abandoned pools would exhaust sockets during the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpClientBenchmark {
+
+    private static final String BODY = "{\"results\":[{\"formatted_address\":\"Jaipur, Rajasthan, India\",\"geometry\":"
+            + "{\"location\":{\"lat\":26.9124336,\"lng\":75.7872709}}}],\"status\":\"OK\"}";
+
+    private MockWebServer server;
+    private SSLSocketFactory socketFactory;
+    private HostnameVerifier verifier;
+    private HttpUrl url;
+    private OkHttpClient shared;
+
+    @Setup
+    public void setUp() throws IOException, GeneralSecurityException {
+        //Certificate of the local server is self-signed, so the clients trust any certificate
+        SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, new TrustManager[]{new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        }}, null);
+        socketFactory = clientContext.getSocketFactory();
+        verifier = new HostnameVerifier() {
+            @Override
+            public boolean verify(String hostname, SSLSession session) {
+                return true;
+            }
+        };
+
+        server = new MockWebServer();
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.useHttps(SslContextBuilder.localhost().getSocketFactory(), false);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody(BODY);
+            }
+        });
+        server.start();
+        url = server.url("/maps/api/geocode/json?address=jaipur");
+
+        shared = new HttpSettings().build().newBuilder()
+                .sslSocketFactory(socketFactory)
+                .hostnameVerifier(verifier)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        shared.connectionPool().evictAll();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public String sharedClient() throws IOException {
+        return call(shared);
+    }
+
+    @Benchmark
+    public String clientPerCall() throws IOException {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .sslSocketFactory(socketFactory)
+                .hostnameVerifier(verifier)
+                .build();
+        try {
+            return call(client);
+        } finally {
+            client.connectionPool().evictAll();
+        }
+    }
+
+    private String call(OkHttpClient client) throws IOException {
+        Response response = client.newCall(new Request.Builder().url(url).build()).execute();
+        return response.body().string();
+    }
+
+    /**
+     * Accepted sockets have Nagle's algorithm turned off, so that the response is not held back for a delayed acknowledgement
+     */
+    private static class NoDelayServerSocketFactory extends ServerSocketFactory {
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package in.teramatrix.googleservices.benchmark;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import in.teramatrix.googleservices.model.Path;
+import in.teramatrix.googleservices.util.LegacyPolyline;
+import in.teramatrix.googleservices.util.PolylineCodec;
+
+/**
+ * Decoding of a route polyline by {@link PolylineCodec} into a reused {@link Path}, from a String and from ASCII bytes, against
+ * {@link LegacyPolyline#decodePoly(String)} of RouteDesigner which created a {@link LatLng} per vertex. Routes are random walks of street sized steps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolylineCodecBenchmark {
+
+    @Param({"1000", "20000"})
+    public int vertices;
+
+    private String encoded;
+    private byte ascii[];
+    private Path path;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Path route = new Path(vertices);
+        double lat = 26.9, lng = 75.8;
+        for (int i = 0; i < vertices; i++) {
+            lat += 0.0003 * random.nextGaussian();
+            lng += 0.0003 * random.nextGaussian();
+            route.add((int) Math.round(lat * Path.E5), (int) Math.round(lng * Path.E5));
+        }
+        encoded = PolylineCodec.encode(route);
+        ascii = encoded.getBytes(Charset.forName("US-ASCII"));
+        path = new Path(vertices);
+    }
+
+    @Benchmark
+    public List<LatLng> decodePoly() {
+        return LegacyPolyline.decodePoly(encoded);
+    }
+
+    @Benchmark
+    public Path codecString() {
+        path.clear();
+        PolylineCodec.decode(encoded, path);
+        return path;
+    }
+
+    @Benchmark
+    public Path codecBytes() {
+        path.clear();
+        PolylineCodec.decode(ascii, 0, ascii.length, path);
+        return path;
+    }
+}
@@ -0,0 +1,82 @@
+package in.teramatrix.googleservices.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import in.teramatrix.googleservices.model.Path;
+import in.teramatrix.googleservices.model.Route;
+import in.teramatrix.googleservices.util.PolylineCodec;
+import in.teramatrix.googleservices.util.RouteFormat;
+
+/**
+ * Loading a stored route: reading it from a file of {@link RouteFormat} against decoding its encoded polyline, as a route received
+ * from Directions API is decoded. Reading includes opening and mapping the file. The route is a random walk of steps of up to a
+ * meter around a city.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteFormatBenchmark {
+
+    @Param({"10000", "100000"})
+    public int vertices;
+
+    private File file;
+    private String encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        Path path = new Path(vertices);
+        int lat = 2690000, lng = 7580000;
+        for (int i = 0; i < vertices; i++) {
+            lat += random.nextInt(201) - 100;
+            lng += random.nextInt(201) - 100;
+            path.add(lat, lng);
+        }
+        encoded = PolylineCodec.encode(path);
+
+        Route route = new Route();
+        route.setPath(path);
+        route.setEncodedPolyline(encoded);
+        file = File.createTempFile("route", ".bin");
+        RouteFormat.write(Collections.singletonList(route), file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (!file.delete()) file.deleteOnExit();
+    }
+
+    @Benchmark
+    public List<Route> readFile() throws IOException {
+        return RouteFormat.read(file);
+    }
+
+    @Benchmark
+    public Path decodePolyline() {
+        Path path = new Path(vertices);
+        PolylineCodec.decode(encoded, path);
+        return path;
+    }
+}
@@ -0,0 +1,56 @@
+package in.teramatrix.googleservices.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import in.teramatrix.googleservices.util.TourOptimizer;
+
+/**
+ * Time taken by {@link TourOptimizer} to optimize the order of stops until no move helps, with a time limit which is never reached.
+ * Costs are straight lines between random points of a 20 km square, made asymmetric by a random detour in each direction like road
+ * durations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TourOptimizerBenchmark {
+
+    @Param({"50", "200"})
+    public int stops;
+
+    private int costs[];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double x[] = new double[stops], y[] = new double[stops];
+        for (int i = 0; i < stops; i++) {
+            x[i] = 20000 * random.nextDouble();
+            y[i] = 20000 * random.nextDouble();
+        }
+        costs = new int[stops * stops];
+        for (int i = 0; i < stops; i++)
+            for (int j = 0; j < stops; j++)
+                costs[i * stops + j] = (int) (Math.hypot(x[i] - x[j], y[i] - y[j]) * (1 + 0.4 * random.nextDouble()));
+    }
+
+    @Benchmark
+    public int[] optimize() {
+        return new TourOptimizer(costs, stops).setTimeLimit(60000).optimize(0, stops - 1);
+    }
+}
@@ -0,0 +1,17 @@
+package in.teramatrix.googleservices.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+public class GeocodingCacheTest {
+
+    @Test
+    public void requestKeyIsNormalizedAddress() {
+        assertEquals(GeocodingCache.getRequestKey(" Jaipur,  Rajasthan"), GeocodingCache.getRequestKey("jaipur, rajasthan"));
+        assertNotEquals(GeocodingCache.getRequestKey("Jaipur"), GeocodingCache.getRequestKey("Jodhpur"));
+        assertFalse(GeocodingCache.getRequestKey("Jaipur").contains("http"));
+    }
+}
@@ -0,0 +1,30 @@
+package in.teramatrix.googleservices.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PersistentCacheTest {
+
+    @Test
+    public void placesKeyHasNoCredentials() {
+        assertEquals("https://maps.googleapis.com/maps/api/place/search/json?location=26.9%2C75.7&type=bar&radius=500",
+                PersistentCache.getPlacesKey("https://maps.googleapis.com/maps/api/place/search/json"
+                        + "?location=26.9%2C75.7&type=bar&key=AIzaSecret&radius=500&client=gme-x&signature=abc%3D"));
+        assertEquals("https://maps.googleapis.com/maps/api/place/search/json?location=1%2C2",
+                PersistentCache.getPlacesKey("https://maps.googleapis.com/maps/api/place/search/json?key=AIzaSecret&location=1%2C2"));
+    }
+
+    @Test
+    public void placesKeyKeepsOtherParameters() {
+        String url = "https://maps.googleapis.com/maps/api/place/search/json?location=1%2C2&keyword=cafe&rankBy=prominence";
+        assertEquals(url, PersistentCache.getPlacesKey(url));
+        assertEquals("https://example.com/json", PersistentCache.getPlacesKey("https://example.com/json"));
+    }
+
+    @Test
+    public void placesKeyIsSameForRotatedKeys() {
+        assertEquals(PersistentCache.getPlacesKey("https://example.com/json?location=1%2C2&key=old"),
+                PersistentCache.getPlacesKey("https://example.com/json?location=1%2C2&key=new"));
+    }
+}
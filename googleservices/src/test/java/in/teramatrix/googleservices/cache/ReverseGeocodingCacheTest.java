@@ -0,0 +1,22 @@
+package in.teramatrix.googleservices.cache;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class ReverseGeocodingCacheTest {
+
+    @Test
+    public void requestKeyIsCellWhenCellSizeIsGiven() {
+        LatLng a = new LatLng(26.912434, 75.787270);
+        LatLng b = new LatLng(26.912435, 75.787271);
+        LatLng far = new LatLng(26.922434, 75.787270);
+        assertEquals(ReverseGeocodingCache.getRequestKey(a, 25), ReverseGeocodingCache.getRequestKey(b, 25));
+        assertNotEquals(ReverseGeocodingCache.getRequestKey(a, 25), ReverseGeocodingCache.getRequestKey(far, 25));
+        assertNotEquals(ReverseGeocodingCache.getRequestKey(a, 0), ReverseGeocodingCache.getRequestKey(b, 0));
+        assertEquals(ReverseGeocodingCache.getRequestKey(a, 0), ReverseGeocodingCache.getRequestKey(new LatLng(a.latitude, a.longitude), 0));
+    }
+}
@@ -0,0 +1,102 @@
+package in.teramatrix.googleservices.cache;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import in.teramatrix.googleservices.model.Leg;
+import in.teramatrix.googleservices.model.Path;
+import in.teramatrix.googleservices.model.Route;
+import in.teramatrix.googleservices.model.Step;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class RouteCacheTest {
+
+    private static final LatLng ORIGIN = new LatLng(26.912434, 75.787270);
+    private static final LatLng DESTINATION = new LatLng(26.449923, 74.639915);
+    private static final LatLng WAYPOINTS[] = {new LatLng(26.7, 75.2)};
+
+    @Test
+    public void nearbyPointsShareTheKey() {
+        LatLng nearby = new LatLng(ORIGIN.latitude + 0.00005, ORIGIN.longitude);
+        assertEquals(key(ORIGIN, WAYPOINTS, "driving", false, true), key(nearby, WAYPOINTS, "driving", false, true));
+        assertNotEquals(key(ORIGIN, WAYPOINTS, "driving", false, true),
+                key(new LatLng(ORIGIN.latitude + 0.01, ORIGIN.longitude), WAYPOINTS, "driving", false, true));
+    }
+
+    @Test
+    public void optionsArePartOfTheKey() {
+        String key = key(ORIGIN, WAYPOINTS, "driving", false, true);
+        assertNotEquals(key, key(ORIGIN, WAYPOINTS, "driving", false, false));
+        assertNotEquals(key, key(ORIGIN, WAYPOINTS, "driving", true, true));
+        assertNotEquals(key, key(ORIGIN, WAYPOINTS, "walking", false, true));
+        assertNotEquals(key, key(ORIGIN, new LatLng[0], "driving", false, true));
+    }
+
+    @Test
+    public void cachedRoutesAreCopies() {
+        List<Route> routes = Collections.singletonList(route());
+        List<Route> cached = RouteCache.copyOf(routes);
+        String encoded = routes.get(0).getEncodedPolyline();
+
+        //Changes of the designer to its own routes after caching them
+        routes.get(0).setSummary("Changed");
+        routes.get(0).getPath().add(1, 1);
+        routes.get(0).getLegs().get(0).setDistanceValue(0);
+        routes.get(0).getLegs().get(0).getSteps().get(0).getPath().clear();
+        routes.get(0).getLegs().get(0).getSteps().clear();
+
+        List<Route> copies = RouteCache.copyOf(cached);
+        assertNotSame(cached.get(0), copies.get(0));
+        Route route = copies.get(0);
+        assertEquals("NH 48", route.getSummary());
+        assertEquals(3, route.getPath().size());
+        assertEquals(encoded, route.getEncodedPolyline());
+        assertEquals(1200, route.getLegs().get(0).getDistanceValue());
+        assertEquals(1, route.getLegs().get(0).getSteps().size());
+        assertEquals(2, route.getLegs().get(0).getSteps().get(0).getPath().size());
+    }
+
+    @Test
+    public void undecodedStepIsCopiedEncoded() {
+        Route route = route();
+        Step step = new Step();
+        step.setEncodedPolyline("_p~iF~ps|U_ulLnnqC");
+        route.getLegs().get(0).getSteps().add(step);
+
+        Step copy = RouteCache.copyOf(Collections.singletonList(route)).get(0).getLegs().get(0).getSteps().get(1);
+        assertEquals(step.getEncodedPolyline(), copy.getEncodedPolyline());
+        assertFalse(copy.isDecoded());
+        assertEquals(2, copy.getPath().size());
+    }
+
+    private static Route route() {
+        Path path = new Path();
+        path.add(2691243, 7578727);
+        path.add(2670000, 7520000);
+        path.add(2644992, 7463991);
+        Route route = new Route();
+        route.setSummary("NH 48");
+        route.setPath(path);
+
+        Step step = new Step();
+        step.setEncodedPolyline("_p~iF~ps|U_ulLnnqC");
+        step.getPath();
+        Leg leg = new Leg();
+        leg.setDistanceValue(1200);
+        leg.getSteps().add(step);
+        route.getLegs().add(leg);
+        return route;
+    }
+
+    private static String key(LatLng origin, LatLng waypoints[], String mode, boolean alternatives, boolean steps) {
+        return RouteCache.getKey(origin, DESTINATION, waypoints, mode, alternatives, steps, 50);
+    }
+}
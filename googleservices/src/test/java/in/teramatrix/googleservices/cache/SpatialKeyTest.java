@@ -0,0 +1,59 @@
+package in.teramatrix.googleservices.cache;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpatialKeyTest {
+
+    private static final double CELL = 25;
+
+    @Test
+    public void pointsOfOneCellShareTheKey() {
+        long key = SpatialKey.cell(26.9124, 75.7873, CELL);
+        assertEquals(key, SpatialKey.cell(26.9124 + 1e-7, 75.7873 + 1e-7, CELL));
+        assertEquals(key, SpatialKey.cell(26.9124, 75.7873, CELL));
+    }
+
+    @Test
+    public void cellsAreRoughlyCellSizeOnTheGround() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            double latitude = -80 + 160 * random.nextDouble();
+            double longitude = -179 + 358 * random.nextDouble();
+            long key = SpatialKey.cell(latitude, longitude, CELL);
+
+            //Points farther apart than the diagonal of a cell never share it
+            double far = 2 * CELL / SpatialKey.METERS_PER_DEGREE;
+            assertNotEquals(key, SpatialKey.cell(latitude + far, longitude, CELL));
+            assertNotEquals(key, SpatialKey.cell(latitude, longitude + far / Math.cos(Math.toRadians(latitude)), CELL));
+
+            //Moving a small fraction of a cell changes the key only near an edge
+            double near = 0.01 * CELL / SpatialKey.METERS_PER_DEGREE;
+            long row = key >> 32;
+            assertTrue(Math.abs((SpatialKey.cell(latitude + near, longitude, CELL) >> 32) - row) <= 1);
+        }
+    }
+
+    @Test
+    public void rowAndColumnArePacked() {
+        long key = SpatialKey.cell(0, 0, CELL);
+        double latStep = CELL / SpatialKey.METERS_PER_DEGREE;
+        long row = (long) Math.floor(90 / latStep);
+        double lngStep = latStep / Math.cos(Math.toRadians(-90 + (row + 0.5) * latStep));
+        assertEquals(row, key >> 32);
+        assertEquals((long) Math.floor(180 / lngStep), key & 0xffffffffL);
+    }
+
+    @Test
+    public void neighbouringCellsDifferByOne() {
+        double latStep = CELL / SpatialKey.METERS_PER_DEGREE;
+        long key = SpatialKey.cell(45.00001, 10.00001, CELL);
+        long north = SpatialKey.cell(45.00001 + latStep, 10.00001, CELL);
+        assertEquals((key >> 32) + 1, north >> 32);
+    }
+}
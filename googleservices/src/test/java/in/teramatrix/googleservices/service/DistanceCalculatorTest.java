@@ -0,0 +1,333 @@
+package in.teramatrix.googleservices.service;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Test;
+
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import in.teramatrix.googleservices.model.Path;
+import in.teramatrix.googleservices.util.PolylineCodec;
+import in.teramatrix.googleservices.util.UrlManager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DistanceCalculatorTest {
+
+    @Test
+    public void fullMissIsASingleBlock() {
+        boolean missing[] = new boolean[6 * 9];
+        Arrays.fill(missing, true);
+        List<int[][]> blocks = DistanceCalculator.plan(missing, 6, 9, 0.25);
+        assertEquals(1, blocks.size());
+        assertArrayEquals(range(6), blocks.get(0)[0]);
+        assertArrayEquals(range(9), blocks.get(0)[1]);
+    }
+
+    @Test
+    public void nothingMissingIsNoBlock() {
+        assertTrue(DistanceCalculator.plan(new boolean[5 * 5], 5, 5, 0.25).isEmpty());
+    }
+
+    @Test
+    public void addedColumnIsAThinBlock() {
+        int rows = 10, columns = 8;
+        boolean missing[] = new boolean[rows * columns];
+        for (int row = 0; row < rows; row++)
+            missing[row * columns + 5] = true;
+
+        List<int[][]> blocks = DistanceCalculator.plan(missing, rows, columns, 0.25);
+        assertEquals(1, blocks.size());
+        assertArrayEquals(range(rows), blocks.get(0)[0]);
+        assertArrayEquals(new int[]{5}, blocks.get(0)[1]);
+    }
+
+    @Test
+    public void addedRowIsAThinBlock() {
+        int rows = 10, columns = 8;
+        boolean missing[] = new boolean[rows * columns];
+        Arrays.fill(missing, 3 * columns, 4 * columns, true);
+
+        List<int[][]> blocks = DistanceCalculator.plan(missing, rows, columns, 0.25);
+        assertEquals(1, blocks.size());
+        assertArrayEquals(new int[]{3}, blocks.get(0)[0]);
+        assertArrayEquals(range(columns), blocks.get(0)[1]);
+    }
+
+    @Test
+    public void addedRowAndColumnAreNotMerged() {
+        int rows = 10, columns = 10;
+        boolean missing[] = new boolean[rows * columns];
+        for (int row = 0; row < rows; row++)
+            missing[row * columns + columns - 1] = true;
+        Arrays.fill(missing, (rows - 1) * columns, rows * columns, true);
+
+        List<int[][]> blocks = DistanceCalculator.plan(missing, rows, columns, 0.25);
+        assertEquals(2, blocks.size());
+        assertCovered(missing, rows, columns, blocks, 0.25);
+        //Column of the old rows and the new row, nothing cached is fetched again
+        assertEquals(rows - 1 + columns, elements(blocks));
+    }
+
+    @Test
+    public void scatteredCellsAreMergedWithinTheBound() {
+        Random random = new Random(5);
+        for (int round = 0; round < 200; round++) {
+            int rows = 1 + random.nextInt(40), columns = 1 + random.nextInt(40);
+            double cachedRatio = random.nextDouble();
+            boolean missing[] = new boolean[rows * columns];
+            for (int i = 0; i < missing.length; i++)
+                missing[i] = random.nextDouble() >= cachedRatio;
+
+            double maxOverFetch = round % 4 * 0.1;
+            List<int[][]> blocks = DistanceCalculator.plan(missing, rows, columns, maxOverFetch);
+            assertCovered(missing, rows, columns, blocks, maxOverFetch);
+        }
+    }
+
+    @Test
+    public void fewScatteredCachedCellsAreFetchedInOneBlock() {
+        int rows = 20, columns = 20;
+        Random random = new Random(9);
+        boolean missing[] = new boolean[rows * columns];
+        Arrays.fill(missing, true);
+        for (int i = 0; i < 30; i++)
+            missing[random.nextInt(missing.length)] = false;
+
+        //Nearly one group per row without merging
+        assertTrue(DistanceCalculator.plan(missing, rows, columns, 0).size() > 10);
+        List<int[][]> blocks = DistanceCalculator.plan(missing, rows, columns, 0.25);
+        assertEquals(1, blocks.size());
+        assertCovered(missing, rows, columns, blocks, 0.25);
+    }
+
+    @Test
+    public void zeroOverFetchRequestsOnlyMissingCells() {
+        Random random = new Random(3);
+        int rows = 15, columns = 12;
+        boolean missing[] = new boolean[rows * columns];
+        for (int i = 0; i < missing.length; i++)
+            missing[i] = random.nextInt(3) > 0;
+
+        List<int[][]> blocks = DistanceCalculator.plan(missing, rows, columns, 0);
+        assertCovered(missing, rows, columns, blocks, 0);
+        int count = 0;
+        for (boolean cell : missing)
+            if (cell) count++;
+        assertEquals(count, elements(blocks));
+    }
+
+    @Test
+    public void pointKeysMatchTheEncodedPoints() {
+        Random random = new Random(11);
+        LatLng points[] = new LatLng[500];
+        for (int i = 0; i < points.length; i++) {
+            //Some of them exactly half way between two E5 steps
+            double latitude = random.nextInt(3) == 0 ? (random.nextInt(1800000) - 900000 + 0.5) / Path.E5 : random.nextDouble() * 180 - 90;
+            points[i] = new LatLng(latitude, random.nextDouble() * 360 - 180);
+        }
+
+        Path sent = decode(DistanceCalculator.getLocations(null, points, range(points.length)));
+        assertEquals(points.length, sent.size());
+        String keys[] = DistanceCalculator.getKeys(null, points);
+        LatLng received[] = new LatLng[points.length];
+        for (int i = 0; i < points.length; i++)
+            received[i] = new LatLng(sent.getLatitude(i), sent.getLongitude(i));
+        String receivedKeys[] = DistanceCalculator.getKeys(null, received);
+        for (int i = 0; i < points.length; i++)
+            assertEquals("Point " + i, keys[i], receivedKeys[i]);
+    }
+
+    @Test
+    public void pointsSentAlikeShareTheirKey() {
+        LatLng points[] = {new LatLng(26.912434, 75.787270), new LatLng(26.9124343, 75.7872704), new LatLng(26.91245, 75.78727)};
+        String keys[] = DistanceCalculator.getKeys(null, points);
+        assertEquals(keys[0], keys[1]);
+        assertNotEquals(keys[0], keys[2]);
+        assertEquals(DistanceCalculator.getLocations(null, points, new int[]{0})[0], DistanceCalculator.getLocations(null, points, new int[]{1})[0]);
+    }
+
+    @Test
+    public void tileEncodesItsOwnPointsInOrder() {
+        LatLng points[] = {new LatLng(1, 2), new LatLng(-3.5, 4.25), new LatLng(26.91243, 75.78727), new LatLng(-33.86785, 151.20732)};
+        String locations[] = DistanceCalculator.getLocations(null, points, new int[]{3, 0, 2});
+        assertEquals(1, locations.length);
+        assertTrue(locations[0].startsWith("enc:") && locations[0].endsWith(":"));
+
+        Path sent = decode(locations);
+        assertEquals(3, sent.size());
+        int expected[] = {3, 0, 2};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(points[expected[i]].latitude, sent.getLatitude(i), 0.5 / Path.E5);
+            assertEquals(points[expected[i]].longitude, sent.getLongitude(i), 0.5 / Path.E5);
+        }
+    }
+
+    @Test
+    public void addressesAreSelectedAndNormalized() {
+        String addresses[] = {"Jaipur", " Delhi ", "MUMBAI"};
+        assertArrayEquals(new String[]{"MUMBAI", "Jaipur"}, DistanceCalculator.getLocations(addresses, null, new int[]{2, 0}));
+        String keys[] = DistanceCalculator.getKeys(addresses, null);
+        assertEquals(DistanceCalculator.getKeys(new String[]{"jaipur"}, null)[0], keys[0]);
+        assertEquals(DistanceCalculator.getKeys(new String[]{"mumbai"}, null)[0], keys[2]);
+    }
+
+    @Test
+    public void encodedPolylineSurvivesTheUrl() throws Exception {
+        Random random = new Random(13);
+        for (int round = 0; round < 50; round++) {
+            LatLng points[] = new LatLng[1 + random.nextInt(25)];
+            for (int i = 0; i < points.length; i++)
+                points[i] = new LatLng(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+            String origins[] = DistanceCalculator.getLocations(null, points, range(points.length));
+            String destinations[] = DistanceCalculator.getLocations(null, points, new int[]{points.length - 1});
+
+            String url = UrlManager.getDistanceMatrixUrl(origins, destinations, "driving", "KEY");
+            String originsParameter = parameter(url, "origins");
+            //Characters of a polyline such as '|', '?', '\\' and '`' must not leak in the url unescaped
+            assertTrue(originsParameter, originsParameter.matches("[A-Za-z0-9%._*+-]*"));
+            assertEquals(origins[0], URLDecoder.decode(originsParameter, "UTF-8"));
+            assertEquals(destinations[0], URLDecoder.decode(parameter(url, "destinations"), "UTF-8"));
+            assertEquals("KEY", parameter(url, "key"));
+        }
+    }
+
+    @Test
+    public void tilesOfALargeMatrixOfPointsAreLegal() throws Exception {
+        Random random = new Random(17);
+        int size = 200;
+        final LatLng points[] = new LatLng[size];
+        for (int i = 0; i < size; i++)
+            points[i] = new LatLng(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+
+        assertTilesLegal(size, size, new DistanceCalculator.TileUrl() {
+            @Override
+            public String get(int rows[], int columns[]) throws Exception {
+                return UrlManager.getDistanceMatrixUrl(DistanceCalculator.getLocations(null, points, rows),
+                        DistanceCalculator.getLocations(null, points, columns), "driving", "KEY");
+            }
+        });
+    }
+
+    @Test
+    public void tilesOfALargeMatrixOfLongAddressesAreLegal() throws Exception {
+        Random random = new Random(19);
+        int size = 200;
+        final String addresses[] = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder address = new StringBuilder();
+            for (int length = 100 + random.nextInt(600); address.length() < length; )
+                address.append((char) ('a' + random.nextInt(26))).append(random.nextInt(4) == 0 ? ", " : "");
+            addresses[i] = address.toString();
+        }
+
+        //Urls of square tiles are too long, so some of them are split further
+        int tiles = assertTilesLegal(size, size, new DistanceCalculator.TileUrl() {
+            @Override
+            public String get(int rows[], int columns[]) throws Exception {
+                return UrlManager.getDistanceMatrixUrl(DistanceCalculator.getLocations(addresses, null, rows),
+                        DistanceCalculator.getLocations(addresses, null, columns), "driving", "KEY");
+            }
+        });
+        assertTrue(tiles > size * size / DistanceCalculator.MAX_ELEMENTS);
+    }
+
+    /**
+     * Splits the whole matrix with the default limits and asserts that every tile is within the limits and every cell is in
+     * exactly one tile
+     * @return number of tiles
+     */
+    private static int assertTilesLegal(int rows, int columns, DistanceCalculator.TileUrl url) throws Exception {
+        List<DistanceCalculator.Tile> tiles = new ArrayList<>();
+        DistanceCalculator.split(range(rows), range(columns), DistanceCalculator.MAX_ELEMENTS, DistanceCalculator.MAX_DIMENSION,
+                DistanceCalculator.MAX_URL_LENGTH, url, tiles);
+
+        int covered[] = new int[rows * columns];
+        for (DistanceCalculator.Tile tile : tiles) {
+            assertTrue(tile.rows.length > 0 && tile.columns.length > 0);
+            assertTrue(tile.rows.length <= DistanceCalculator.MAX_DIMENSION);
+            assertTrue(tile.columns.length <= DistanceCalculator.MAX_DIMENSION);
+            assertTrue(tile.rows.length * tile.columns.length <= DistanceCalculator.MAX_ELEMENTS);
+            assertTrue("Url of " + tile.url.length() + " characters", tile.url.length() <= DistanceCalculator.MAX_URL_LENGTH);
+            assertEquals(url.get(tile.rows, tile.columns), tile.url);
+            for (int row : tile.rows) {
+                for (int column : tile.columns)
+                    covered[row * columns + column]++;
+            }
+        }
+        for (int i = 0; i < covered.length; i++)
+            assertEquals("Cell " + i + " requested " + covered[i] + " times", 1, covered[i]);
+        return tiles.size();
+    }
+
+    /**
+     * @return points of a side sent as a single "enc:polyline:" location
+     */
+    private static Path decode(String locations[]) {
+        assertEquals(1, locations.length);
+        String location = locations[0];
+        assertTrue(location, location.startsWith("enc:") && location.endsWith(":"));
+        Path path = new Path();
+        PolylineCodec.decode(location.substring(4, location.length() - 1), path);
+        return path;
+    }
+
+    private static String parameter(String url, String name) {
+        for (String pair : url.substring(url.indexOf('?') + 1).split("&")) {
+            if (pair.startsWith(name + "="))
+                return pair.substring(name.length() + 1);
+        }
+        throw new AssertionError("No " + name + " in " + url);
+    }
+
+    /**
+     * Asserts that every missing cell is in exactly one block, and that at most maxOverFetch of the cells of each block are cached
+     */
+    private static void assertCovered(boolean missing[], int rows, int columns, List<int[][]> blocks, double maxOverFetch) {
+        int covered[] = new int[rows * columns];
+        for (int block[][] : blocks) {
+            assertTrue(block[0].length > 0 && block[1].length > 0);
+            int cached = 0;
+            for (int row : block[0]) {
+                for (int column : block[1]) {
+                    covered[row * columns + column]++;
+                    if (!missing[row * columns + column]) cached++;
+                }
+            }
+            assertTrue("Block over-fetches " + cached + " cells", cached <= maxOverFetch * block[0].length * block[1].length);
+            assertSorted(block[0]);
+            assertSorted(block[1]);
+        }
+        for (int i = 0; i < covered.length; i++) {
+            assertTrue("Cell " + i + " requested " + covered[i] + " times", covered[i] <= 1);
+            if (missing[i]) assertEquals("Cell " + i + " not requested", 1, covered[i]);
+        }
+    }
+
+    private static void assertSorted(int indexes[]) {
+        for (int i = 1; i < indexes.length; i++)
+            assertFalse(indexes[i] <= indexes[i - 1]);
+    }
+
+    private static int elements(List<int[][]> blocks) {
+        int elements = 0;
+        for (int block[][] : blocks)
+            elements += block[0].length * block[1].length;
+        return elements;
+    }
+
+    private static int[] range(int size) {
+        int range[] = new int[size];
+        for (int i = 0; i < size; i++)
+            range[i] = i;
+        return range;
+    }
+}
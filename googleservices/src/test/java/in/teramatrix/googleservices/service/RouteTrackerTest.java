@@ -0,0 +1,121 @@
+package in.teramatrix.googleservices.service;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import in.teramatrix.googleservices.model.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RouteTrackerTest {
+
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    @Test
+    public void matchesTheNearestSegmentAsBruteForce() {
+        Random random = new Random(17);
+        for (int round = 0; round < 20; round++) {
+            Path path = randomRoute(random, 2 + random.nextInt(3000));
+            RouteTracker tracker = new RouteTracker(path);
+            double scaleX = scaleX(path);
+
+            for (int fix = 0; fix < 300; fix++) {
+                //Mostly fixes near the route, some anywhere around it
+                int vertex = random.nextInt(path.size());
+                double spread = fix % 10 == 0 ? 0.05 : 0.0003;
+                double latitude = path.getLatitude(vertex) + spread * random.nextGaussian();
+                double longitude = path.getLongitude(vertex) + spread * random.nextGaussian();
+                if (fix % 50 == 0) tracker.reset();
+
+                RouteTracker.Snap snap = tracker.track(latitude, longitude);
+                double expected = Double.MAX_VALUE;
+                for (int i = 0; i + 1 < path.size(); i++)
+                    expected = Math.min(expected, distance(path, i, latitude, longitude, scaleX));
+                double actual = distance(path, snap.getSegment(), latitude, longitude, scaleX);
+                assertEquals("Fix " + fix + " of round " + round, expected, actual, 1e-6 * Math.max(1, expected));
+            }
+        }
+    }
+
+    @Test
+    public void followsADriveAlongTheRoute() {
+        Random random = new Random(19);
+        Path path = randomRoute(random, 2000);
+        RouteTracker tracker = new RouteTracker(path);
+        double previous = -1;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            //Half way on each segment, a few meters aside
+            double latitude = (path.getLatitude(i) + path.getLatitude(i + 1)) / 2 + 0.00002;
+            double longitude = (path.getLongitude(i) + path.getLongitude(i + 1)) / 2;
+            RouteTracker.Snap snap = tracker.track(latitude, longitude);
+            assertFalse(snap.isOffRoute());
+            assertEquals(tracker.getLength(), snap.getDistanceAlongRoute() + snap.getRemainingDistance(), 1e-6);
+            assertTrue(snap.getDistanceAlongRoute() >= 0 && snap.getRemainingDistance() >= -1e-9);
+            previous = snap.getDistanceAlongRoute();
+        }
+        assertTrue(previous > 0);
+    }
+
+    @Test
+    public void reportsDistanceFromRouteAndOffRoute() {
+        Path path = new Path();
+        path.add(2690000, 7580000);
+        path.add(2690000, 7590000);
+        RouteTracker tracker = new RouteTracker(path).setOffRouteDistance(50);
+
+        //About 33 meters north of the middle of an east-west segment
+        RouteTracker.Snap snap = tracker.track(26.9003, 75.85);
+        assertEquals(0, snap.getSegment());
+        assertEquals(33.4, snap.getDistanceFromRoute(), 0.5);
+        assertEquals(26.9, snap.getLatitude(), 1e-9);
+        assertEquals(75.85, snap.getLongitude(), 1e-9);
+        assertEquals(tracker.getLength() / 2, snap.getDistanceAlongRoute(), 0.01);
+        assertFalse(snap.isOffRoute());
+
+        assertTrue(tracker.track(26.9010, 75.85).isOffRoute());
+        //Beyond the end, it is snapped to the last vertex
+        snap = tracker.track(26.9, 76);
+        assertEquals(75.9, snap.getLongitude(), 1e-9);
+        assertEquals(0, snap.getRemainingDistance(), 1e-6);
+    }
+
+    /**
+     * @return squared distance in plane meters from a fix to segment i, same projection as the tracker
+     */
+    private static double distance(Path path, int i, double latitude, double longitude, double scaleX) {
+        double ax = path.getLongitude(i) * scaleX, ay = path.getLatitude(i) * METERS_PER_DEGREE;
+        double bx = path.getLongitude(i + 1) * scaleX, by = path.getLatitude(i + 1) * METERS_PER_DEGREE;
+        double px = longitude * scaleX, py = latitude * METERS_PER_DEGREE;
+        double dx = bx - ax, dy = by - ay;
+        double length = dx * dx + dy * dy;
+        double t = length == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / length));
+        double ex = px - (ax + t * dx), ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+
+    private static double scaleX(Path path) {
+        double middle = (path.getLatitude(0) + path.getLatitude(path.size() - 1)) / 2;
+        return METERS_PER_DEGREE * Math.cos(Math.toRadians(middle));
+    }
+
+    /**
+     * @return a winding route with street sized steps, which may cross itself
+     */
+    private static Path randomRoute(Random random, int count) {
+        Path path = new Path(count);
+        double lat = -60 + 120 * random.nextDouble();
+        double lng = -170 + 340 * random.nextDouble();
+        double heading = random.nextDouble() * 2 * Math.PI;
+        for (int i = 0; i < count; i++) {
+            heading += 0.5 * random.nextGaussian();
+            double step = (5 + 40 * random.nextDouble()) / METERS_PER_DEGREE;
+            lat += step * Math.cos(heading);
+            lng += step * Math.sin(heading) / Math.cos(Math.toRadians(lat));
+            path.add((int) Math.round(lat * Path.E5), (int) Math.round(lng * Path.E5));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,135 @@
+package in.teramatrix.googleservices.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import in.teramatrix.googleservices.exception.CorruptedResponseException;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CallBatchTest {
+
+    private static final Parser PARSER = new Parser();
+
+    private MockWebServer server;
+    private OkHttpClient client;
+
+    private final CountDownLatch releaseSlow = new CountDownLatch(1);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                int now = inFlight.incrementAndGet();
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(maxInFlight.get(), now));
+                }
+                try {
+                    Thread.sleep(20);
+                    if (request.getPath().contains("slow"))
+                        releaseSlow.await(10, TimeUnit.SECONDS);
+                    if (request.getPath().contains("fail"))
+                        return new MockResponse().setResponseCode(500);
+                    return new MockResponse().setBody(request.getPath());
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+        server.start();
+        client = new OkHttpClient();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        releaseSlow.countDown();
+        server.shutdown();
+    }
+
+    @Test
+    public void neverExceedsMaxConcurrent() throws Exception {
+        List<String> results = CallBatch.execute(client, urls(20, -1), 3, PARSER);
+        assertTrue("At most 3 calls in flight but were " + maxInFlight.get(), maxInFlight.get() <= 3);
+        assertEquals(20, server.getRequestCount());
+        assertEquals(20, results.size());
+    }
+
+    @Test
+    public void usesTheAllowedConcurrency() throws Exception {
+        CallBatch.execute(client, urls(12, -1), 4, PARSER);
+        assertTrue("Calls should overlap but at most " + maxInFlight.get() + " were in flight", maxInFlight.get() > 1);
+    }
+
+    @Test
+    public void keepsTheOrderOfUrls() throws Exception {
+        List<String> results = CallBatch.execute(client, urls(10, -1), 5, PARSER);
+        for (int i = 0; i < results.size(); i++)
+            assertEquals(i + ":/call/" + i, results.get(i));
+    }
+
+    @Test
+    public void throwsTheFailureOfACall() throws Exception {
+        try {
+            CallBatch.execute(client, urls(10, 4), 2, PARSER);
+            fail("Failed call must fail the batch");
+        } catch (CorruptedResponseException expected) {
+            //Expected
+        }
+        assertTrue("Remaining calls should not be started", server.getRequestCount() < 10);
+    }
+
+    @Test
+    public void failureDoesNotWaitForCallsInFlight() throws Exception {
+        List<String> urls = new ArrayList<>();
+        urls.add(server.url("/slow/0").toString());
+        urls.add(server.url("/fail/1").toString());
+        long start = System.nanoTime();
+        try {
+            CallBatch.execute(client, urls, 2, PARSER);
+            fail("Failed call must fail the batch");
+        } catch (CorruptedResponseException expected) {
+            //Expected
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Slow call should have been cancelled but the batch took " + millis + " ms", millis < 5000);
+    }
+
+    @Test
+    public void emptyBatchHasNoCalls() throws Exception {
+        assertEquals(0, CallBatch.execute(client, new ArrayList<String>(), 3, PARSER).size());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    private List<String> urls(int count, int failing) {
+        List<String> urls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            urls.add(server.url(i == failing ? "/fail/" + i : "/call/" + i).toString());
+        return urls;
+    }
+
+    private static class Parser implements CallBatch.Parser<String> {
+        @Override
+        public String parse(int index, Response response) throws Exception {
+            return index + ":" + response.body().string();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package in.teramatrix.googleservices.util;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CameraChangeDispatcherTest {
+
+    private final CameraPosition position = new CameraPosition(new LatLng(26.9, 75.8), 12, 0, 0);
+
+    @Test
+    public void everyDesignerAndTheAppAreCalled() {
+        CameraChangeDispatcher dispatcher = new CameraChangeDispatcher();
+        Recorder first = new Recorder(), second = new Recorder(), app = new Recorder();
+        dispatcher.add(first);
+        dispatcher.add(second);
+        dispatcher.setListener(app);
+
+        dispatcher.onCameraChange(position);
+        assertEquals(1, first.positions.size());
+        assertEquals(1, second.positions.size());
+        assertEquals(1, app.positions.size());
+        assertSame(position, first.positions.get(0));
+    }
+
+    @Test
+    public void listenerIsAddedOnlyOnce() {
+        CameraChangeDispatcher dispatcher = new CameraChangeDispatcher();
+        Recorder recorder = new Recorder();
+        dispatcher.add(recorder);
+        dispatcher.add(recorder);
+
+        dispatcher.onCameraChange(position);
+        assertEquals(1, recorder.positions.size());
+    }
+
+    @Test
+    public void removedListenerIsNotCalled() {
+        CameraChangeDispatcher dispatcher = new CameraChangeDispatcher();
+        Recorder kept = new Recorder(), removed = new Recorder();
+        dispatcher.add(kept);
+        dispatcher.add(removed);
+        dispatcher.remove(removed);
+        dispatcher.setListener(null);
+
+        dispatcher.onCameraChange(position);
+        assertEquals(1, kept.positions.size());
+        assertEquals(0, removed.positions.size());
+    }
+
+    @Test
+    public void listenerMayAddAnotherOne() {
+        final CameraChangeDispatcher dispatcher = new CameraChangeDispatcher();
+        final Recorder added = new Recorder();
+        dispatcher.add(new Recorder() {
+            @Override
+            public void onCameraChange(CameraPosition position) {
+                super.onCameraChange(position);
+                dispatcher.add(added);
+            }
+        });
+
+        dispatcher.onCameraChange(position);
+        assertEquals(0, added.positions.size());
+        dispatcher.onCameraChange(position);
+        assertEquals(1, added.positions.size());
+    }
+
+    @Test
+    public void unusedListenerIsDropped() throws Exception {
+        CameraChangeDispatcher dispatcher = new CameraChangeDispatcher();
+        Recorder recorder = new Recorder();
+        WeakReference<Recorder> reference = new WeakReference<>(recorder);
+        dispatcher.add(recorder);
+        recorder = null;
+
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("Dispatcher keeps the listener alive", reference.get());
+        dispatcher.onCameraChange(position);
+    }
+
+    private static class Recorder implements GoogleMap.OnCameraChangeListener {
+        final List<CameraPosition> positions = new ArrayList<>();
+
+        @Override
+        public void onCameraChange(CameraPosition position) {
+            positions.add(position);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package in.teramatrix.googleservices.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoordinateUtilitiesTest {
+
+    private static final double EARTH_RADIUS = 6371000;
+
+    /**
+     * Arc (in radians) of a chord of 0.4, above which the kernels leave their polynomial arc sine
+     */
+    private static final double POLYNOMIAL_ARC = 2 * Math.asin(0.2);
+
+    @Test
+    public void scalarDistanceOfKnownPoints() {
+        //Quarter of a meridian and a degree of the equator on a sphere of 6371 km
+        assertEquals(Math.PI / 2 * EARTH_RADIUS, CoordinateUtilities.getDistance(0, 0, 90, 0), 1e-6);
+        assertEquals(Math.PI / 180 * EARTH_RADIUS, CoordinateUtilities.getDistance(0, 10, 0, 11), 1e-6);
+        assertEquals(0, CoordinateUtilities.getDistance(26.9, 75.8, 26.9, 75.8), 0);
+    }
+
+    @Test
+    public void oneToManyDistancesMatchScalar() {
+        Random random = new Random(29);
+        for (int round = 0; round < 100; round++) {
+            double lat = randomLatitude(random), lng = randomLongitude(random);
+            double lats[] = new double[500], lngs[] = new double[500];
+            fill(random, lat, lng, lats, lngs);
+
+            double out[] = CoordinateUtilities.getDistances(lat, lng, lats, lngs, new double[lats.length]);
+            for (int i = 0; i < lats.length; i++)
+                assertDistance(CoordinateUtilities.getDistance(lat, lng, lats[i], lngs[i]), out[i]);
+        }
+    }
+
+    @Test
+    public void manyToManyDistancesMatchScalar() {
+        Random random = new Random(31);
+        for (int round = 0; round < 20; round++) {
+            double lat = randomLatitude(random), lng = randomLongitude(random);
+            double lats1[] = new double[1 + random.nextInt(60)], lngs1[] = new double[lats1.length];
+            double lats2[] = new double[1 + random.nextInt(60)], lngs2[] = new double[lats2.length];
+            fill(random, lat, lng, lats1, lngs1);
+            fill(random, lat, lng, lats2, lngs2);
+
+            double out[] = CoordinateUtilities.getDistances(lats1, lngs1, lats2, lngs2, new double[lats1.length * lats2.length]);
+            for (int i = 0; i < lats1.length; i++) {
+                for (int j = 0; j < lats2.length; j++)
+                    assertDistance(CoordinateUtilities.getDistance(lats1[i], lngs1[i], lats2[j], lngs2[j]), out[i * lats2.length + j]);
+            }
+        }
+    }
+
+    @Test
+    public void polynomialArcSineIsBelowAMicrometer() {
+        //Along a meridian, on both sides of the end of the polynomial
+        int count = 2000;
+        double lats[] = new double[count], lngs[] = new double[count];
+        for (int i = 0; i < count; i++)
+            lats[i] = Math.toDegrees(POLYNOMIAL_ARC * (i + 1) / (count - 100)) - 45;
+        Arrays.fill(lngs, 30);
+
+        double oneToMany[] = CoordinateUtilities.getDistances(-45, 30, lats, lngs, new double[count]);
+        double manyToMany[] = CoordinateUtilities.getDistances(new double[]{-45}, new double[]{30}, lats, lngs, new double[count]);
+        for (int i = 0; i < count; i++) {
+            double expected = 2 * EARTH_RADIUS * Math.asin(Math.sin((lats[i] + 45) * Math.PI / 360));
+            assertEquals("Point " + i, expected, oneToMany[i], 1e-6);
+            assertEquals("Point " + i, expected, manyToMany[i], 1e-6);
+        }
+    }
+
+    @Test
+    public void bearingsMatchTextbookFormula() {
+        Random random = new Random(37);
+        for (int round = 0; round < 50; round++) {
+            double lat = randomLatitude(random), lng = randomLongitude(random);
+            double lats[] = new double[200], lngs[] = new double[200];
+            fill(random, lat, lng, lats, lngs);
+
+            double out[] = CoordinateUtilities.getBearings(lat, lng, lats, lngs, new double[lats.length]);
+            for (int i = 0; i < lats.length; i++) {
+                double dLng = Math.toRadians(lngs[i] - lng);
+                double y = Math.sin(dLng) * Math.cos(Math.toRadians(lats[i]));
+                double x = Math.cos(Math.toRadians(lat)) * Math.sin(Math.toRadians(lats[i]))
+                        - Math.sin(Math.toRadians(lat)) * Math.cos(Math.toRadians(lats[i])) * Math.cos(dLng);
+                double expected = (Math.toDegrees(Math.atan2(y, x)) + 360) % 360;
+                assertTrue(out[i] >= 0 && out[i] <= 360);
+                //Bearings just below 360 and at 0 are the same direction
+                double difference = Math.abs(expected - out[i]);
+                assertEquals("Point " + i, 0, Math.min(difference, 360 - difference), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void nearestMatchesFullSort() {
+        Random random = new Random(23);
+        for (int round = 0; round < 300; round++) {
+            int size = random.nextInt(400);
+            //Clustered around a city in some rounds, spread over the globe in others
+            double spread = round % 3 == 0 ? 180 : 0.5;
+            final double lats[] = new double[size], lngs[] = new double[size];
+            double lat = random.nextDouble() * 160 - 80, lng = random.nextDouble() * 360 - 180;
+            for (int i = 0; i < size; i++) {
+                lats[i] = Math.max(-90, Math.min(90, lat + spread * (random.nextDouble() - 0.5)));
+                lngs[i] = lng + 2 * spread * (random.nextDouble() - 0.5);
+            }
+            int k = random.nextInt(size + 5);
+
+            final double distances[] = new double[size];
+            Integer sorted[] = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                distances[i] = CoordinateUtilities.getDistance(lat, lng, lats[i], lngs[i]);
+                sorted[i] = i;
+            }
+            Arrays.sort(sorted, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(distances[a], distances[b]);
+                }
+            });
+
+            int nearest[] = CoordinateUtilities.getNearest(lat, lng, lats, lngs, k);
+            assertEquals(Math.min(k, size), nearest.length);
+            for (int rank = 0; rank < nearest.length; rank++) {
+                //Distances, not indexes, so that points at nearly the same distance may come in either order
+                assertEquals("Rank " + rank + " of round " + round, distances[sorted[rank]], distances[nearest[rank]], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void nearestKeepsEveryIndexOfDuplicates() {
+        double lats[] = {10, 10, 10, 10, 11};
+        double lngs[] = {20, 20, 20, 20, 20};
+        int nearest[] = CoordinateUtilities.getNearest(10, 20, lats, lngs, 5);
+        assertEquals(4, nearest[4]);
+        int first[] = Arrays.copyOf(nearest, 4);
+        Arrays.sort(first);
+        assertEquals("[0, 1, 2, 3]", Arrays.toString(first));
+    }
+
+    @Test
+    public void nearestOfNothing() {
+        assertEquals(0, CoordinateUtilities.getNearest(0, 0, new double[0], new double[0], 3).length);
+        assertEquals(0, CoordinateUtilities.getNearest(0, 0, new double[]{1}, new double[]{1}, 0).length);
+    }
+
+    /**
+     * Kernels may differ from the scalar haversine only by rounding, which grows only near antipodes
+     */
+    private static void assertDistance(double expected, double actual) {
+        assertEquals(expected, actual, 1e-6 + 1e-9 * expected);
+    }
+
+    /**
+     * Fills points around the given one, some within meters, some within a city, some anywhere on the globe
+     */
+    private static void fill(Random random, double lat, double lng, double lats[], double lngs[]) {
+        for (int i = 0; i < lats.length; i++) {
+            double spread;
+            switch (i % 4) {
+                case 0: spread = 0.0001; break;
+                case 1: spread = 0.2; break;
+                case 2: spread = 30; break;
+                default: spread = 360; break;
+            }
+            lats[i] = Math.max(-90, Math.min(90, lat + spread * (random.nextDouble() - 0.5)));
+            lngs[i] = lng + spread * (random.nextDouble() - 0.5);
+        }
+    }
+
+    private static double randomLatitude(Random random) {
+        return random.nextDouble() * 180 - 90;
+    }
+
+    private static double randomLongitude(Random random) {
+        return random.nextDouble() * 360 - 180;
+    }
+}
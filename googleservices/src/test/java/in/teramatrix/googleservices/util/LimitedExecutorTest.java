@@ -0,0 +1,181 @@
+package in.teramatrix.googleservices.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LimitedExecutorTest {
+
+    @Test
+    public void neverRunsMoreThanLimit() throws Exception {
+        final ThreadExecutor delegate = new ThreadExecutor();
+        LimitedExecutor executor = new LimitedExecutor(delegate, 3, 100);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(30);
+        for (int i = 0; i < 30; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    int now = running.incrementAndGet();
+                    synchronized (max) {
+                        max.set(Math.max(max.get(), now));
+                    }
+                    sleep(5);
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue("At most 3 tasks at once but were " + max.get(), max.get() <= 3);
+        assertEquals(0, delegate.failures.size());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectsWhenQueueIsFull() {
+        final CountDownLatch release = new CountDownLatch(1);
+        LimitedExecutor executor = new LimitedExecutor(new ThreadExecutor(), 1, 1);
+        executor.execute(blocker(release));
+        executor.execute(blocker(release));
+        try {
+            executor.execute(blocker(release));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void taskRejectedByDelegateWhileOthersRunIsKeptAndRetried() throws Exception {
+        ThreadExecutor delegate = new ThreadExecutor();
+        LimitedExecutor executor = new LimitedExecutor(delegate, 2, 10);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch releaseFirst = new CountDownLatch(1);
+        final CountDownLatch releaseSecond = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+
+        executor.execute(blocker(releaseFirst));
+        executor.execute(blocker(releaseSecond));
+        executor.execute(recorder(order, "b", finished));
+
+        //Delegate rejects the queued task while it is drained by the first finishing one, the second one is still running
+        delegate.reject = true;
+        releaseFirst.countDown();
+        waitUntilActive(executor, 1);
+        assertEquals(1, executor.getQueuedCount());
+        assertEquals(0, delegate.failures.size());
+
+        delegate.reject = false;
+        releaseSecond.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals("[b]", order.toString());
+        assertEquals(0, delegate.failures.size());
+    }
+
+    @Test
+    public void futureRejectedByDelegateWhenNothingRunsIsCancelled() throws Exception {
+        ThreadExecutor delegate = new ThreadExecutor();
+        LimitedExecutor executor = new LimitedExecutor(delegate, 1, 10);
+        final CountDownLatch release = new CountDownLatch(1);
+        FutureTask<Void> queued = new FutureTask<>(recorder(new ArrayList<String>(), "b", null), null);
+
+        executor.execute(blocker(release));
+        executor.execute(queued);
+
+        //Delegate rejects the queued task while it is drained by the last running one, nothing would retry it
+        delegate.reject = true;
+        release.countDown();
+        waitUntilActive(executor, 0);
+        assertTrue(queued.isCancelled());
+        assertEquals(0, executor.getQueuedCount());
+        assertEquals(0, delegate.failures.size());
+    }
+
+    @Test
+    public void onlyOwnTaskIsRejectedToCaller() throws Exception {
+        ThreadExecutor delegate = new ThreadExecutor();
+        LimitedExecutor executor = new LimitedExecutor(delegate, 1, 10);
+        delegate.reject = true;
+        try {
+            executor.execute(recorder(new ArrayList<String>(), "a", null));
+            fail("Task rejected by the delegate must be rejected to its caller");
+        } catch (RejectedExecutionException expected) {
+            //Expected
+        }
+        assertEquals(0, executor.getQueuedCount());
+        assertEquals(0, executor.getActiveCount());
+    }
+
+    private static Runnable blocker(final CountDownLatch release) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private static Runnable recorder(final List<String> order, final String name, final CountDownLatch finished) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+                if (finished != null) finished.countDown();
+            }
+        };
+    }
+
+    private static void waitUntilActive(LimitedExecutor executor, int count) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getActiveCount() > count && System.currentTimeMillis() < deadline)
+            sleep(1);
+        //Finishing task drains after it has given up its slot
+        sleep(50);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs every task on a new thread, rejects everything while reject is set and records exceptions escaping the threads
+     */
+    private static class ThreadExecutor implements Executor {
+        private volatile boolean reject;
+        private final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        @Override
+        public void execute(Runnable command) {
+            if (reject)
+                throw new RejectedExecutionException("Rejected by test");
+            Thread thread = new Thread(command);
+            thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread t, Throwable e) {
+                    failures.add(e);
+                }
+            });
+            thread.start();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package in.teramatrix.googleservices.util;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import in.teramatrix.googleservices.model.Path;
+
+import static org.junit.Assert.assertEquals;
+
+public class PolylineCodecTest {
+
+    /**
+     * Example of the documentation of the Encoded Polyline Algorithm Format
+     */
+    private static final String EXAMPLE = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+
+    @Test
+    public void decodesTheDocumentedExample() {
+        Path path = new Path();
+        assertEquals(3, PolylineCodec.decode(EXAMPLE, path));
+        assertEquals(38.5, path.getLatitude(0), 1e-9);
+        assertEquals(-120.2, path.getLongitude(0), 1e-9);
+        assertEquals(40.7, path.getLatitude(1), 1e-9);
+        assertEquals(-120.95, path.getLongitude(1), 1e-9);
+        assertEquals(43.252, path.getLatitude(2), 1e-9);
+        assertEquals(-126.453, path.getLongitude(2), 1e-9);
+        assertEquals(EXAMPLE, PolylineCodec.encode(path));
+    }
+
+    @Test
+    public void decodesAsTheLegacyDecoder() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            String encoded = PolylineCodec.encode(randomWalk(random, 1 + random.nextInt(500)));
+            List<LatLng> expected = LegacyPolyline.decodePoly(encoded);
+
+            Path path = new Path(1);
+            assertEquals(expected.size(), PolylineCodec.decode(encoded, path));
+            assertSame(expected, path);
+
+            Path bytes = new Path(1);
+            byte ascii[] = ("xx" + encoded + "yy").getBytes(Charset.forName("US-ASCII"));
+            assertEquals(expected.size(), PolylineCodec.decode(ascii, 2, encoded.length(), bytes));
+            assertSame(expected, bytes);
+        }
+    }
+
+    @Test
+    public void roundTripsPaths() {
+        Random random = new Random(5);
+        for (int round = 0; round < 50; round++) {
+            Path path = new Path();
+            for (LatLng point : randomWalk(random, random.nextInt(300)))
+                path.add(point);
+
+            Path decoded = new Path();
+            PolylineCodec.decode(PolylineCodec.encode(path), decoded);
+            assertEquals(path.size(), decoded.size());
+            for (int i = 0; i < path.size(); i++) {
+                assertEquals(path.getLatE5(i), decoded.getLatE5(i));
+                assertEquals(path.getLngE5(i), decoded.getLngE5(i));
+            }
+            assertEquals(PolylineCodec.encode(path.toLatLngs()), PolylineCodec.encode(path));
+        }
+    }
+
+    @Test
+    public void appendsToExistingVertices() {
+        Path path = new Path();
+        path.add(1, 2);
+        PolylineCodec.decode(EXAMPLE, path);
+        assertEquals(4, path.size());
+        assertEquals(1, path.getLatE5(0));
+        assertEquals(3850000, path.getLatE5(1));
+    }
+
+    @Test
+    public void encodesARangeOfVertices() {
+        Path path = new Path();
+        PolylineCodec.decode(EXAMPLE, path);
+        Path tail = new Path();
+        PolylineCodec.decode(PolylineCodec.encode(path, 1, 3), tail);
+        assertEquals(2, tail.size());
+        assertEquals(path.getLatE5(1), tail.getLatE5(0));
+        assertEquals(path.getLngE5(2), tail.getLngE5(1));
+    }
+
+    private static void assertSame(List<LatLng> expected, Path path) {
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).latitude, path.getLatitude(i), 1e-9);
+            assertEquals(expected.get(i).longitude, path.getLongitude(i), 1e-9);
+        }
+    }
+
+    /**
+     * @return points of a random route, with steps of a few meters to a few kilometers and a few large jumps
+     */
+    private static List<LatLng> randomWalk(Random random, int count) {
+        List<LatLng> points = new ArrayList<>(count);
+        double lat = -60 + 120 * random.nextDouble();
+        double lng = -179 + 358 * random.nextDouble();
+        for (int i = 0; i < count; i++) {
+            double step = random.nextInt(20) == 0 ? 1 : 0.0005;
+            lat = Math.max(-85, Math.min(85, lat + step * random.nextGaussian()));
+            lng = Math.max(-179.9, Math.min(179.9, lng + step * random.nextGaussian()));
+            points.add(new LatLng(Math.round(lat * 1E5) / 1E5, Math.round(lng * 1E5) / 1E5));
+        }
+        return points;
+    }
+}
@@ -0,0 +1,130 @@
+package in.teramatrix.googleservices.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import in.teramatrix.googleservices.model.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PolylineSimplifierTest {
+
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    @Test
+    public void keepsEveryVertexWithinTolerance() {
+        Random random = new Random(3);
+        for (int round = 0; round < 10; round++) {
+            Path path = randomRoute(random, 1000);
+            for (double tolerance : new double[]{1, 5, 25, 100}) {
+                Path simplified = PolylineSimplifier.simplify(path, tolerance, new Path());
+                for (int i = 0; i < path.size(); i++) {
+                    double distance = distanceToLine(path, i, simplified);
+                    assertTrue("Vertex " + i + " is " + distance + " m away at tolerance " + tolerance, distance <= tolerance + 0.01);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void keepsTheEndpoints() {
+        Random random = new Random(8);
+        for (int round = 0; round < 30; round++) {
+            Path path = randomRoute(random, 3 + random.nextInt(500));
+            for (double tolerance : new double[]{1, 50, 1e7}) {
+                Path simplified = PolylineSimplifier.simplify(path, tolerance, new Path());
+                int last = simplified.size() - 1;
+                assertEquals(path.getLatE5(0), simplified.getLatE5(0));
+                assertEquals(path.getLngE5(0), simplified.getLngE5(0));
+                assertEquals(path.getLatE5(path.size() - 1), simplified.getLatE5(last));
+                assertEquals(path.getLngE5(path.size() - 1), simplified.getLngE5(last));
+                if (tolerance == 1e7) assertEquals(2, simplified.size());
+            }
+        }
+    }
+
+    @Test
+    public void keptVerticesAreASubsequenceAndShrinkWithTolerance() {
+        Path path = randomRoute(new Random(13), 5000);
+        int previous = Integer.MAX_VALUE;
+        for (double tolerance : new double[]{0.5, 2, 10, 50, 250}) {
+            Path simplified = PolylineSimplifier.simplify(path, tolerance, new Path());
+            int j = 0;
+            for (int i = 0; i < path.size() && j < simplified.size(); i++) {
+                if (path.getLatE5(i) == simplified.getLatE5(j) && path.getLngE5(i) == simplified.getLngE5(j)) j++;
+            }
+            assertEquals(simplified.size(), j);
+            assertTrue(simplified.size() <= previous);
+            previous = simplified.size();
+        }
+        assertTrue(previous < path.size() / 10);
+    }
+
+    @Test
+    public void dropsCollinearAndDuplicateVertices() {
+        Path path = new Path();
+        for (int i = 0; i <= 100; i++) {
+            path.add(2690000 + i * 10, 7580000 + i * 10);
+            if (i % 10 == 0) path.add(2690000 + i * 10, 7580000 + i * 10);
+        }
+        Path simplified = PolylineSimplifier.simplify(path, 0.5, new Path());
+        assertEquals(2, simplified.size());
+
+        Path duplicates = new Path();
+        duplicates.add(1, 1);
+        duplicates.add(1, 1);
+        assertEquals(1, PolylineSimplifier.simplify(duplicates, 1, new Path()).size());
+    }
+
+    @Test
+    public void appendsToOutAndLeavesPathUntouched() {
+        Path path = randomRoute(new Random(21), 100);
+        int coordinates[] = path.getCoordinates().clone();
+        Path out = new Path();
+        out.add(0, 0);
+        PolylineSimplifier.simplify(path, 10, out);
+        assertEquals(0, out.getLatE5(0));
+        assertEquals(path.getLatE5(0), out.getLatE5(1));
+        for (int i = 0; i < path.size() * 2; i++)
+            assertEquals(coordinates[i], path.getCoordinates()[i]);
+    }
+
+    /**
+     * @return a winding route of a few kilometers, with street sized steps
+     */
+    private static Path randomRoute(Random random, int count) {
+        Path path = new Path(count);
+        double lat = -60 + 120 * random.nextDouble();
+        double lng = -170 + 340 * random.nextDouble();
+        double heading = random.nextDouble() * 2 * Math.PI;
+        for (int i = 0; i < count; i++) {
+            heading += 0.3 * random.nextGaussian();
+            double step = (2 + 20 * random.nextDouble()) / METERS_PER_DEGREE;
+            lat += step * Math.cos(heading);
+            lng += step * Math.sin(heading) / Math.cos(Math.toRadians(lat));
+            path.add((int) Math.round(lat * Path.E5), (int) Math.round(lng * Path.E5));
+        }
+        return path;
+    }
+
+    /**
+     * @return distance in meters of a vertex of path from the nearest segment of line, on a plane around the vertex
+     */
+    private static double distanceToLine(Path path, int index, Path line) {
+        double cos = Math.cos(Math.toRadians(path.getLatitude(index)));
+        double px = path.getLongitude(index) * cos * METERS_PER_DEGREE, py = path.getLatitude(index) * METERS_PER_DEGREE;
+        double min = Double.MAX_VALUE;
+        for (int i = 0; i + 1 < line.size(); i++) {
+            double ax = line.getLongitude(i) * cos * METERS_PER_DEGREE - px, ay = line.getLatitude(i) * METERS_PER_DEGREE - py;
+            double bx = line.getLongitude(i + 1) * cos * METERS_PER_DEGREE - px, by = line.getLatitude(i + 1) * METERS_PER_DEGREE - py;
+            double dx = bx - ax, dy = by - ay;
+            double length = dx * dx + dy * dy;
+            double t = length == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / length));
+            double ex = ax + t * dx, ey = ay + t * dy;
+            min = Math.min(min, Math.sqrt(ex * ex + ey * ey));
+        }
+        return min;
+    }
+}
@@ -0,0 +1,222 @@
+package in.teramatrix.googleservices.util;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import in.teramatrix.googleservices.model.Leg;
+import in.teramatrix.googleservices.model.Path;
+import in.teramatrix.googleservices.model.Route;
+import in.teramatrix.googleservices.model.Step;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class RouteFormatTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsBackWhatWasWritten() throws Exception {
+        List<Route> routes = Arrays.asList(route(new Random(1), 2, 3, 5000), route(new Random(2), 1, 0, 1));
+        File file = folder.newFile("route.bin");
+        RouteFormat.write(routes, file);
+
+        List<Route> read = RouteFormat.read(file);
+        assertEquals(routes.size(), read.size());
+        for (int r = 0; r < routes.size(); r++)
+            assertRoute(routes.get(r), read.get(r));
+    }
+
+    @Test
+    public void restoresEncodedPolyline() throws Exception {
+        Route route = route(new Random(3), 1, 1, 300);
+        File file = folder.newFile("route.bin");
+        RouteFormat.write(Arrays.asList(route), file);
+        assertEquals(route.getEncodedPolyline(), RouteFormat.read(file).get(0).getEncodedPolyline());
+    }
+
+    @Test
+    public void keepsNullValues() throws Exception {
+        Route route = new Route();
+        route.setPath(new Path());
+        route.setEncodedPolyline("");
+        Leg leg = new Leg();
+        leg.getSteps().add(new Step());
+        route.getLegs().add(leg);
+        File file = folder.newFile("route.bin");
+        RouteFormat.write(Arrays.asList(route), file);
+        assertRoute(route, RouteFormat.read(file).get(0));
+    }
+
+    @Test
+    public void keepsDifferencesOfEveryLength() throws Exception {
+        //Odd number of vertices, differences of one to four bytes and of both signs, across the antimeridian
+        int vertices[][] = {{0, 0}, {-1, 1}, {126, -127}, {-32000, 32000}, {8000000, -8300000}, {-9000000, 18000000},
+                {9000000, -18000000}};
+        Path path = new Path();
+        for (int vertex[] : vertices) path.add(vertex[0], vertex[1]);
+        Route route = new Route();
+        route.setPath(path);
+        route.setEncodedPolyline(PolylineCodec.encode(path));
+        File file = folder.newFile("route.bin");
+        RouteFormat.write(Arrays.asList(route), file);
+        assertRoute(route, RouteFormat.read(file).get(0));
+    }
+
+    @Test
+    public void anotherFingerprintIsAMiss() throws Exception {
+        List<Route> routes = Arrays.asList(route(new Random(4), 1, 1, 50));
+        File file = folder.newFile("route.bin");
+        RouteFormat.write(routes, "driving|-s|1", file);
+
+        assertNotNull(RouteFormat.read(file, "driving|-s|1"));
+        assertNull(RouteFormat.read(file, "driving|--|1"));
+        assertNotNull(RouteFormat.read(file));
+
+        RouteFormat.write(routes, file);
+        assertNull(RouteFormat.read(file, "driving|-s|1"));
+    }
+
+    @Test
+    public void replacesAnExistingFile() throws Exception {
+        File file = folder.newFile("route.bin");
+        RouteFormat.write(Arrays.asList(route(new Random(5), 3, 3, 3000)), file);
+        Route small = route(new Random(6), 1, 1, 10);
+        RouteFormat.write(Arrays.asList(small), file);
+        List<Route> read = RouteFormat.read(file);
+        assertEquals(1, read.size());
+        assertRoute(small, read.get(0));
+    }
+
+    @Test
+    public void rejectsOtherAndCorruptedFiles() throws Exception {
+        File other = folder.newFile("other.bin");
+        FileOutputStream out = new FileOutputStream(other);
+        out.write("not a route file".getBytes("UTF-8"));
+        out.close();
+        assertReadFails(other);
+
+        File file = folder.newFile("route.bin");
+        RouteFormat.write(Arrays.asList(route(new Random(7), 2, 2, 1000)), file);
+        RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+        truncated.setLength(truncated.length() / 2);
+        truncated.close();
+        assertReadFails(file);
+    }
+
+    private static void assertReadFails(File file) {
+        try {
+            RouteFormat.read(file);
+            fail("Reading " + file + " must fail");
+        } catch (IOException expected) {
+            //Expected
+        }
+    }
+
+    private static void assertRoute(Route expected, Route actual) {
+        assertEquals(expected.getSummary(), actual.getSummary());
+        assertEquals(expected.getPath().size(), actual.getPath().size());
+        for (int i = 0; i < expected.getPath().size(); i++) {
+            assertEquals(expected.getPath().getLatE5(i), actual.getPath().getLatE5(i));
+            assertEquals(expected.getPath().getLngE5(i), actual.getPath().getLngE5(i));
+        }
+        assertEquals(expected.getEncodedPolyline(), actual.getEncodedPolyline());
+        assertEquals(expected.getLegs().size(), actual.getLegs().size());
+        for (int l = 0; l < expected.getLegs().size(); l++) {
+            Leg a = expected.getLegs().get(l), b = actual.getLegs().get(l);
+            assertEquals(a.getStartAddress(), b.getStartAddress());
+            assertEquals(a.getEndAddress(), b.getEndAddress());
+            assertLatLng(a.getStartLocation(), b.getStartLocation());
+            assertLatLng(a.getEndLocation(), b.getEndLocation());
+            assertEquals(a.getDistanceText(), b.getDistanceText());
+            assertEquals(a.getDistanceValue(), b.getDistanceValue());
+            assertEquals(a.getDurationText(), b.getDurationText());
+            assertEquals(a.getDurationValue(), b.getDurationValue());
+            assertEquals(a.getSteps().size(), b.getSteps().size());
+            for (int s = 0; s < a.getSteps().size(); s++) {
+                Step x = a.getSteps().get(s), y = b.getSteps().get(s);
+                assertEquals(x.getInstructions(), y.getInstructions());
+                assertEquals(x.getManeuver(), y.getManeuver());
+                assertEquals(x.getTravelMode(), y.getTravelMode());
+                assertLatLng(x.getStartLocation(), y.getStartLocation());
+                assertLatLng(x.getEndLocation(), y.getEndLocation());
+                assertEquals(x.getDistanceText(), y.getDistanceText());
+                assertEquals(x.getDistanceValue(), y.getDistanceValue());
+                assertEquals(x.getDurationText(), y.getDurationText());
+                assertEquals(x.getDurationValue(), y.getDurationValue());
+                assertEquals(x.getEncodedPolyline(), y.getEncodedPolyline());
+            }
+        }
+    }
+
+    private static void assertLatLng(LatLng expected, LatLng actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.latitude, actual.latitude, 1e-9);
+        assertEquals(expected.longitude, actual.longitude, 1e-9);
+    }
+
+    /**
+     * @return a route as parsed from Directions API, with E5 coordinates and a few non ASCII texts
+     */
+    private static Route route(Random random, int legs, int steps, int vertices) {
+        Path path = new Path(vertices);
+        int lat = 2690000 + random.nextInt(1000), lng = 7580000 + random.nextInt(1000);
+        for (int i = 0; i < vertices; i++) {
+            lat += random.nextInt(201) - 100;
+            lng += random.nextInt(201) - 100;
+            path.add(lat, lng);
+        }
+
+        Route route = new Route();
+        route.setSummary("NH 48 and Tonk Rd " + random.nextInt(100));
+        route.setPath(path);
+        route.setEncodedPolyline(PolylineCodec.encode(path));
+        for (int l = 0; l < legs; l++) {
+            Leg leg = new Leg();
+            leg.setStartAddress("जयपुर, Rajasthan " + l);
+            leg.setEndAddress(l % 2 == 0 ? "Ajmer, Rajasthan" : null);
+            leg.setStartLocation(new LatLng(26.91243, 75.78727));
+            leg.setEndLocation(l % 2 == 0 ? new LatLng(-26.44991, -74.63993) : null);
+            leg.setDistanceText(random.nextInt(300) + " km");
+            leg.setDistanceValue(random.nextInt(300000));
+            leg.setDurationText("2 hours 10 mins");
+            leg.setDurationValue(random.nextInt(30000));
+            List<Step> list = new ArrayList<>();
+            for (int s = 0; s < steps; s++) {
+                Step step = new Step();
+                step.setInstructions("Head <b>south</b> on Station Rd " + s);
+                step.setManeuver(s % 2 == 0 ? "turn-left" : null);
+                step.setTravelMode("DRIVING");
+                step.setStartLocation(new LatLng(26.9 + s / 1E5, 75.7));
+                step.setEndLocation(new LatLng(26.9, 75.7 + s / 1E5));
+                step.setDistanceText("0.4 km");
+                step.setDistanceValue(400 + s);
+                step.setDurationText("1 min");
+                step.setDurationValue(60 + s);
+                step.setEncodedPolyline(PolylineCodec.encode(path, 0, Math.min(vertices, 10)));
+                list.add(step);
+            }
+            leg.setSteps(list);
+            route.getLegs().add(leg);
+        }
+        return route;
+    }
+}
@@ -0,0 +1,237 @@
+package in.teramatrix.googleservices.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TourOptimizerTest {
+
+    @Test
+    public void visitsEveryStopOnceFromStartToEnd() {
+        Random random = new Random(1);
+        for (int round = 0; round < 20; round++) {
+            int size = 2 + random.nextInt(60);
+            int start = random.nextInt(size);
+            int end = (start + 1 + random.nextInt(size - 1)) % size;
+            int order[] = new TourOptimizer(euclidean(random, size), size).optimize(start, end);
+            assertPermutation(order, size);
+            assertEquals(start, order[0]);
+            assertEquals(end, order[size - 1]);
+        }
+    }
+
+    @Test
+    public void openTourMayEndAnywhere() {
+        Random random = new Random(2);
+        for (int round = 0; round < 20; round++) {
+            int size = 1 + random.nextInt(60);
+            int start = random.nextInt(size);
+            int order[] = new TourOptimizer(euclidean(random, size), size).optimize(start, -1);
+            assertPermutation(order, size);
+            assertEquals(start, order[0]);
+        }
+    }
+
+    @Test
+    public void isLocallyOptimalAndCloseToOptimum() {
+        Random random = new Random(3);
+        double gap = 0;
+        int rounds = 30;
+        for (int round = 0; round < rounds; round++) {
+            int size = 8;
+            int costs[] = round % 2 == 0 ? euclidean(random, size) : asymmetric(random, size);
+            int end = round % 3 == 0 ? -1 : size - 1;
+            TourOptimizer optimizer = new TourOptimizer(costs, size);
+            long greedy = optimizer.getCost(new TourOptimizer(costs, size).setTimeLimit(0).optimize(0, end), false);
+            int order[] = optimizer.optimize(0, end);
+            long cost = optimizer.getCost(order, false);
+            assertTrue(cost <= greedy);
+            assertLocallyOptimal(optimizer, order, end);
+
+            long optimum = bruteForce(optimizer, size, end);
+            assertTrue("Cost " + cost + " is far from optimum " + optimum, cost <= optimum * 1.15);
+            gap += (double) cost / optimum - 1;
+        }
+        assertTrue("Average gap from optimum is " + gap / rounds, gap / rounds < 0.02);
+    }
+
+    @Test
+    public void pricesReversedStretchesInTheirNewDirection() {
+        //Stops on a one way street, going back is ten times as costly; the only good tour follows the street
+        int size = 12;
+        int costs[] = new int[size * size];
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                costs[i * size + j] = j >= i ? (j - i) * 10 : (i - j) * 100;
+        //Greedy start is made wrong by a shortcut, so 2-opt and Or-opt have to repair it
+        costs[3 * size + 9] = 1;
+
+        TourOptimizer optimizer = new TourOptimizer(costs, size);
+        int order[] = optimizer.optimize(0, size - 1);
+        assertPermutation(order, size);
+        long cost = optimizer.getCost(order, false);
+        assertEquals(bruteForce(optimizer, size, size - 1), cost);
+
+        //Symmetric pricing would accept reversals that are twice as costly the other way
+        long greedy = optimizer.getCost(new TourOptimizer(costs, size).setTimeLimit(0).optimize(0, size - 1), false);
+        assertTrue(cost <= greedy);
+    }
+
+    @Test
+    public void strongAsymmetryEndsInLocalOptimum() {
+        Random random = new Random(6);
+        for (int round = 0; round < 20; round++) {
+            int size = 40;
+            int costs[] = euclidean(random, size);
+            //Every pair is three times as costly one way as the other
+            for (int i = 0; i < size; i++)
+                for (int j = i + 1; j < size; j++)
+                    costs[(random.nextBoolean() ? i * size + j : j * size + i)] *= 3;
+
+            TourOptimizer optimizer = new TourOptimizer(costs, size).setTimeLimit(5000);
+            int order[] = optimizer.optimize(0, round % 2 == 0 ? -1 : size - 1);
+            assertPermutation(order, size);
+            assertLocallyOptimal(optimizer, order, round % 2 == 0 ? -1 : size - 1);
+        }
+    }
+
+    @Test
+    public void avoidsUnreachablePairs() {
+        Random random = new Random(4);
+        for (int round = 0; round < 20; round++) {
+            int size = 10 + random.nextInt(30);
+            int costs[] = euclidean(random, size);
+            //Hidden tour through a random permutation stays reachable, half of the other pairs are not
+            int hidden[] = new int[size];
+            for (int i = 0; i < size; i++) hidden[i] = i;
+            for (int i = size - 1; i > 1; i--) {
+                int j = 1 + random.nextInt(i);
+                int temp = hidden[i];
+                hidden[i] = hidden[j];
+                hidden[j] = temp;
+            }
+            boolean kept[] = new boolean[size * size];
+            for (int i = 0; i + 1 < size; i++) kept[hidden[i] * size + hidden[i + 1]] = true;
+            for (int k = 0; k < costs.length; k++)
+                if (!kept[k] && k % (size + 1) != 0 && random.nextBoolean()) costs[k] = -1;
+
+            TourOptimizer optimizer = new TourOptimizer(costs, size);
+            int order[] = optimizer.optimize(0, -1);
+            assertPermutation(order, size);
+            for (int i = 0; i + 1 < order.length; i++)
+                assertTrue("Unreachable pair " + order[i] + " -> " + order[i + 1], costs[order[i] * size + order[i + 1]] >= 0);
+        }
+    }
+
+    @Test
+    public void honoursTheTimeLimit() {
+        Random random = new Random(5);
+        int size = 400;
+        int costs[] = asymmetric(random, size);
+        long started = System.nanoTime();
+        int order[] = new TourOptimizer(costs, size).setTimeLimit(20).optimize(0, size - 1);
+        long elapsed = (System.nanoTime() - started) / 1000000;
+        assertPermutation(order, size);
+        //One pass of a move may finish after the deadline
+        assertTrue("Took " + elapsed + " ms", elapsed < 20 + 200);
+    }
+
+    /**
+     * Asserts that no single reversal of a stretch and no move of a run of up to three stops lowers the cost
+     */
+    private static void assertLocallyOptimal(TourOptimizer optimizer, int order[], int end) {
+        long cost = optimizer.getCost(order, false);
+        int last = end >= 0 ? order.length - 2 : order.length - 1;
+        for (int i = 1; i <= last; i++) {
+            for (int j = i + 1; j <= last; j++) {
+                int reversed[] = order.clone();
+                for (int a = i, b = j; a < b; a++, b--) swap(reversed, a, b);
+                assertTrue("Reversal " + i + ".." + j + " improves", optimizer.getCost(reversed, false) >= cost);
+            }
+        }
+        for (int length = 1; length <= 3; length++) {
+            for (int i = 1; i + length - 1 <= last; i++) {
+                for (int k = 0; k <= last; k++) {
+                    if (k >= i - 1 && k <= i + length - 1) continue;
+                    int moved[] = new int[order.length];
+                    int n = 0;
+                    for (int p = 0; p < order.length; p++) {
+                        if (p >= i && p < i + length) continue;
+                        moved[n++] = order[p];
+                        if (p == k) for (int q = i; q < i + length; q++) moved[n++] = order[q];
+                    }
+                    assertTrue("Moving " + i + "+" + length + " after " + k + " improves", optimizer.getCost(moved, false) >= cost);
+                }
+            }
+        }
+    }
+
+    private static void assertPermutation(int order[], int size) {
+        assertEquals(size, order.length);
+        boolean seen[] = new boolean[size];
+        for (int stop : order) {
+            assertTrue(stop >= 0 && stop < size && !seen[stop]);
+            seen[stop] = true;
+        }
+    }
+
+    /**
+     * @return lowest cost of all the orders from stop 0, ending at end if it is not -1
+     */
+    private static long bruteForce(TourOptimizer optimizer, int size, int end) {
+        int order[] = new int[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        if (end >= 0) {
+            order[end] = order[size - 1];
+            order[size - 1] = end;
+        }
+        return permute(optimizer, order, 1, end >= 0 ? size - 1 : size);
+    }
+
+    private static long permute(TourOptimizer optimizer, int order[], int from, int to) {
+        if (from >= to - 1)
+            return optimizer.getCost(order, false);
+        long best = Long.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            swap(order, from, i);
+            best = Math.min(best, permute(optimizer, order, from + 1, to));
+            swap(order, from, i);
+        }
+        return best;
+    }
+
+    private static void swap(int order[], int i, int j) {
+        int temp = order[i];
+        order[i] = order[j];
+        order[j] = temp;
+    }
+
+    /**
+     * @return costs of straight lines between random points of a 10 km square, in meters
+     */
+    private static int[] euclidean(Random random, int size) {
+        double x[] = new double[size], y[] = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = 10000 * random.nextDouble();
+            y[i] = 10000 * random.nextDouble();
+        }
+        int costs[] = new int[size * size];
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                costs[i * size + j] = (int) Math.hypot(x[i] - x[j], y[i] - y[j]);
+        return costs;
+    }
+
+    /**
+     * @return euclidean costs made asymmetric by a random detour of up to 60% in each direction, like one way streets
+     */
+    private static int[] asymmetric(Random random, int size) {
+        int costs[] = euclidean(random, size);
+        for (int k = 0; k < costs.length; k++)
+            costs[k] = (int) (costs[k] * (1 + 0.6 * random.nextDouble()));
+        return costs;
+    }
+}